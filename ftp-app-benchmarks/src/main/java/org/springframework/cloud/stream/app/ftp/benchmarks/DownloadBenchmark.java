@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.benchmarks;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.net.ftp.FTPFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.cloud.stream.app.file.FileReadingMode;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.splitter.FileSplitter;
+import org.springframework.integration.file.transformer.FileToByteArrayTransformer;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+/**
+ * Downloads remote files to a local directory, as the synchronizer of the source does,
+ * and reads each of them with the given {@link FileReadingMode}: {@code ref} emits the
+ * file itself, {@code lines} splits it into one message per line and {@code contents}
+ * reads it into a {@code byte[]}, with the same Spring Integration components as the
+ * source. The score is in files per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DownloadBenchmark extends FtpServerBenchmarkSupport {
+
+	private static final String REMOTE_DIR = "download";
+
+	private static final int FILE_COUNT = 8;
+
+	private static final int LINE_LENGTH = 80;
+
+	@Param({ "ref", "lines", "contents" })
+	public FileReadingMode mode;
+
+	@Param({ "65536", "4194304" })
+	public int fileSize;
+
+	private final FileToByteArrayTransformer fileToByteArray = new FileToByteArrayTransformer();
+
+	private final FileSplitter fileSplitter = new FileSplitter(true, false);
+
+	private File localDirectory;
+
+	private long lines;
+
+	@Override
+	protected void prepare(File homeDirectory, File localDirectory) throws IOException {
+		this.localDirectory = localDirectory;
+		File directory = new File(homeDirectory, REMOTE_DIR);
+		Files.createDirectories(directory.toPath());
+		StringBuilder line = new StringBuilder(LINE_LENGTH);
+		while (line.length() < LINE_LENGTH - 1) {
+			line.append((char) ('a' + line.length() % 26));
+		}
+		for (int i = 0; i < FILE_COUNT; i++) {
+			try (BufferedWriter writer = Files.newBufferedWriter(new File(directory, fileName(i)).toPath(),
+					StandardCharsets.UTF_8)) {
+				for (int written = 0; written < this.fileSize; written += LINE_LENGTH) {
+					writer.append(line).append('\n');
+				}
+			}
+		}
+		this.fileSplitter.setOutputChannel((message, timeout) -> {
+			this.lines++;
+			return true;
+		});
+		this.fileSplitter.afterPropertiesSet();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FILE_COUNT)
+	public void download(Blackhole blackhole) throws IOException {
+		try (Session<FTPFile> session = this.sessionFactory.getSession()) {
+			for (int i = 0; i < FILE_COUNT; i++) {
+				File localFile = new File(this.localDirectory, fileName(i));
+				try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(localFile))) {
+					session.read(REMOTE_DIR + "/" + fileName(i), outputStream);
+				}
+				read(localFile, blackhole);
+			}
+		}
+	}
+
+	private void read(File file, Blackhole blackhole) {
+		Message<File> message = MessageBuilder.withPayload(file).build();
+		switch (this.mode) {
+			case lines:
+				this.fileSplitter.handleMessage(message);
+				blackhole.consume(this.lines);
+				break;
+			case contents:
+				blackhole.consume(this.fileToByteArray.transform(message));
+				break;
+			default:
+				blackhole.consume(message);
+		}
+	}
+
+	private static String fileName(int index) {
+		return String.format("file-%02d.txt", index);
+	}
+
+}
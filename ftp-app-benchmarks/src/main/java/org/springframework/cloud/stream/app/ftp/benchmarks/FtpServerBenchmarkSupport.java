@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.cloud.stream.app.test.ftp.EmbeddedFtpServer;
+import org.springframework.integration.file.remote.session.CachingSessionFactory;
+import org.springframework.integration.ftp.session.DefaultFtpSessionFactory;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Base state of the benchmarks: an {@link EmbeddedFtpServer} over a temporary directory,
+ * started once per trial, and a caching session factory connected to it.
+ */
+@State(Scope.Benchmark)
+public abstract class FtpServerBenchmarkSupport {
+
+	private EmbeddedFtpServer server;
+
+	private File workDirectory;
+
+	protected CachingSessionFactory<FTPFile> sessionFactory;
+
+	@Setup(Level.Trial)
+	public void startServer() throws Exception {
+		this.workDirectory = Files.createTempDirectory("ftp-benchmarks").toFile();
+		File homeDirectory = new File(this.workDirectory, "remote");
+		File localDirectory = new File(this.workDirectory, "local");
+		Files.createDirectories(homeDirectory.toPath());
+		Files.createDirectories(localDirectory.toPath());
+		prepare(homeDirectory, localDirectory);
+		this.server = EmbeddedFtpServer.start(homeDirectory);
+		DefaultFtpSessionFactory ftpSessionFactory = new DefaultFtpSessionFactory();
+		ftpSessionFactory.setHost("localhost");
+		ftpSessionFactory.setPort(this.server.getPort());
+		ftpSessionFactory.setUsername("TEST_USER");
+		ftpSessionFactory.setPassword("TEST_USER");
+		ftpSessionFactory.setClientMode(FTPClient.PASSIVE_LOCAL_DATA_CONNECTION_MODE);
+		ftpSessionFactory.setFileType(FTPClient.BINARY_FILE_TYPE);
+		this.sessionFactory = new CachingSessionFactory<>(ftpSessionFactory, sessionCacheSize());
+		this.sessionFactory.setTestSession(false);
+		started();
+	}
+
+	@TearDown(Level.Trial)
+	public void stopServer() {
+		try {
+			if (this.sessionFactory != null) {
+				this.sessionFactory.destroy();
+			}
+			if (this.server != null) {
+				this.server.close();
+			}
+		}
+		finally {
+			FileSystemUtils.deleteRecursively(this.workDirectory);
+		}
+	}
+
+	/**
+	 * The port of the embedded server.
+	 * @return the port.
+	 */
+	protected int getPort() {
+		return this.server.getPort();
+	}
+
+	/**
+	 * Create the remote files of the benchmark before the server starts.
+	 * @param homeDirectory the root directory of the server.
+	 * @param localDirectory a directory for the local copies.
+	 * @throws IOException if the files cannot be created.
+	 */
+	protected abstract void prepare(File homeDirectory, File localDirectory) throws IOException;
+
+	/**
+	 * Called once the server is started and the session factory is available.
+	 * @throws Exception if the benchmark cannot be initialized.
+	 */
+	protected void started() throws Exception {
+	}
+
+	/**
+	 * The number of sessions cached by the session factory.
+	 * @return the number of sessions.
+	 */
+	protected int sessionCacheSize() {
+		return 1;
+	}
+
+}
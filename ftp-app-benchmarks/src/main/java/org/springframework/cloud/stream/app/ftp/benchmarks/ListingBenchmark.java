@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.net.ftp.FTPFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.file.filters.ChainFileListFilter;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.ftp.filters.FtpPersistentAcceptOnceFileListFilter;
+import org.springframework.integration.ftp.filters.FtpSimplePatternFileListFilter;
+import org.springframework.integration.metadata.SimpleMetadataStore;
+
+/**
+ * Lists a remote directory and filters the listing with the default chain of the source,
+ * a pattern filter followed by an accept-once filter, as the directory grows. Half of
+ * the files match the pattern, and the accept-once filter starts empty on each poll, so
+ * that every matching file goes through the metadata store.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListingBenchmark extends FtpServerBenchmarkSupport {
+
+	private static final String REMOTE_DIR = "listing";
+
+	@Param({ "10", "100", "1000", "10000" })
+	public int directorySize;
+
+	@Override
+	protected void prepare(File homeDirectory, File localDirectory) throws IOException {
+		File directory = new File(homeDirectory, REMOTE_DIR);
+		Files.createDirectories(directory.toPath());
+		for (int i = 0; i < this.directorySize; i++) {
+			String name = String.format("file-%06d.%s", i, i % 2 == 0 ? "txt" : "csv");
+			Files.write(new File(directory, name).toPath(), new byte[] { 'x' });
+		}
+	}
+
+	@Benchmark
+	public List<FTPFile> listAndFilter() throws IOException {
+		ChainFileListFilter<FTPFile> filter = new ChainFileListFilter<>();
+		filter.addFilter(new FtpSimplePatternFileListFilter("*.txt"));
+		filter.addFilter(new FtpPersistentAcceptOnceFileListFilter(new SimpleMetadataStore(), "ftpSource/"));
+		try (Session<FTPFile> session = this.sessionFactory.getSession()) {
+			return filter.filterFiles(session.list(REMOTE_DIR));
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.SpringBootConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.stream.app.ftp.sink.FtpSinkConfiguration;
+import org.springframework.cloud.stream.app.ftp.source.FtpSourceConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Starts the source or the sink app, with the test binder, once per fresh JVM, with and
+ * without {@code ftp.startup.lazy-initialization}; the score is the time until the
+ * context is ready, from a cold JVM since there is no warm-up iteration. The JVM options
+ * of a class data sharing archive can be added with {@code -jvmArgsAppend}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark extends FtpServerBenchmarkSupport {
+
+	private static final String REMOTE_DIR = "startup";
+
+	@Param({ "source", "sink" })
+	public String app;
+
+	@Param({ "false", "true" })
+	public boolean lazyInitialization;
+
+	private File localDirectory;
+
+	private ConfigurableApplicationContext context;
+
+	@Override
+	protected void prepare(File homeDirectory, File localDirectory) throws IOException {
+		Files.createDirectories(new File(homeDirectory, REMOTE_DIR).toPath());
+		this.localDirectory = localDirectory;
+	}
+
+	@Benchmark
+	public ConfigurableApplicationContext start() {
+		Class<?> application = "sink".equals(this.app) ? FtpSinkApplication.class : FtpSourceApplication.class;
+		this.context = new SpringApplicationBuilder(application)
+				.web(WebApplicationType.NONE)
+				.run("--spring.main.banner-mode=off",
+						"--ftp.factory.host=localhost",
+						"--ftp.factory.port=" + getPort(),
+						"--ftp.factory.username=foo",
+						"--ftp.factory.password=foo",
+						"--ftp.remote-dir=" + REMOTE_DIR,
+						"--ftp.local-dir=" + this.localDirectory.getAbsolutePath(),
+						"--ftp.startup.lazy-initialization=" + this.lazyInitialization);
+		return this.context;
+	}
+
+	@TearDown(Level.Iteration)
+	public void stopApp() {
+		if (this.context != null) {
+			this.context.close();
+			this.context = null;
+		}
+	}
+
+	@SpringBootConfiguration
+	@EnableAutoConfiguration
+	@Import(FtpSourceConfiguration.class)
+	public static class FtpSourceApplication {
+
+	}
+
+	@SpringBootConfiguration
+	@EnableAutoConfiguration
+	@Import(FtpSinkConfiguration.class)
+	public static class FtpSinkApplication {
+
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.expression.common.LiteralExpression;
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.integration.file.support.FileExistsMode;
+import org.springframework.integration.ftp.outbound.FtpMessageHandler;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+/**
+ * Uploads {@code byte[]} payloads with the outbound handler of the sink, replacing the
+ * existing files through a temporary file name as the sink does by default, from as many
+ * threads as there are cached sessions. The score is in files per second; multiply it by
+ * the payload size for the bytes per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UploadBenchmark extends FtpServerBenchmarkSupport {
+
+	private static final String REMOTE_DIR = "upload";
+
+	private static final int BATCH_SIZE = 32;
+
+	@Param({ "1024", "65536", "1048576" })
+	public int payloadSize;
+
+	@Param({ "1", "4", "8" })
+	public int sessions;
+
+	private final List<Message<byte[]>> messages = new ArrayList<>(BATCH_SIZE);
+
+	private FtpMessageHandler handler;
+
+	private ExecutorService executor;
+
+	@Override
+	protected void prepare(File homeDirectory, File localDirectory) throws IOException {
+		Files.createDirectories(new File(homeDirectory, REMOTE_DIR).toPath());
+		byte[] payload = new byte[this.payloadSize];
+		new Random(42).nextBytes(payload);
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			this.messages.add(MessageBuilder.withPayload(payload)
+					.setHeader(FileHeaders.FILENAME, String.format("file-%02d.bin", i))
+					.build());
+		}
+	}
+
+	@Override
+	protected void started() {
+		this.handler = new FtpMessageHandler(this.sessionFactory);
+		this.handler.setRemoteDirectoryExpression(new LiteralExpression(REMOTE_DIR));
+		this.handler.setFileNameGenerator(message -> message.getHeaders().get(FileHeaders.FILENAME, String.class));
+		this.handler.setFileExistsMode(FileExistsMode.REPLACE);
+		this.handler.afterPropertiesSet();
+		this.executor = Executors.newFixedThreadPool(this.sessions);
+	}
+
+	@Override
+	protected int sessionCacheSize() {
+		return this.sessions;
+	}
+
+	@TearDown(Level.Trial)
+	public void stopExecutor() {
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public void upload() throws Exception {
+		List<Future<?>> futures = new ArrayList<>(BATCH_SIZE);
+		for (Message<byte[]> message : this.messages) {
+			futures.add(this.executor.submit(() -> this.handler.handleMessage(message)));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} counting the bytes read from the target stream; it does not
+ * support {@code mark}, so that the count cannot go back.
+ */
+class CountingInputStream extends FilterInputStream {
+
+	private long count;
+
+	CountingInputStream(InputStream inputStream) {
+		super(inputStream);
+	}
+
+	long getCount() {
+		return this.count;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = this.in.read();
+		if (b >= 0) {
+			this.count++;
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int read = this.in.read(b, off, len);
+		if (read > 0) {
+			this.count += read;
+		}
+		return read;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = this.in.skip(n);
+		this.count += skipped;
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPReply;
+
+/**
+ * An {@link FTPClient} supporting the deflate transfer mode ({@code MODE Z}), which
+ * commons-net only negotiates: once enabled, the data connections are wrapped to inflate
+ * what is received and deflate what is sent.
+ */
+public class DeflateModeFtpClient extends FTPClient {
+
+	private volatile boolean deflate;
+
+	/**
+	 * Switch to the deflate transfer mode.
+	 * @return false if the server refused it, the transfers being left uncompressed.
+	 * @throws IOException if the command cannot be sent.
+	 */
+	public boolean enableDeflate() throws IOException {
+		this.deflate = FTPReply.isPositiveCompletion(sendCommand("MODE", "Z"));
+		return this.deflate;
+	}
+
+	public boolean isDeflate() {
+		return this.deflate;
+	}
+
+	@Override
+	protected Socket _openDataConnection_(String command, String arg) throws IOException {
+		Socket socket = super._openDataConnection_(command, arg);
+		return socket != null && this.deflate ? new DeflateSocket(socket) : socket;
+	}
+
+	@Override
+	public void disconnect() throws IOException {
+		this.deflate = false;
+		super.disconnect();
+	}
+
+	/**
+	 * A data connection socket compressing its streams, delegating everything else to the
+	 * connected socket. Like the data connection itself, it is only used by one thread, so
+	 * it is not synchronized, which would pin virtual threads while closing.
+	 */
+	private static final class DeflateSocket extends Socket {
+
+		private final Socket delegate;
+
+		private InputStream inputStream;
+
+		private OutputStream outputStream;
+
+		DeflateSocket(Socket delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			if (this.inputStream == null) {
+				this.inputStream = new InflaterInputStream(this.delegate.getInputStream());
+			}
+			return this.inputStream;
+		}
+
+		@Override
+		public OutputStream getOutputStream() throws IOException {
+			if (this.outputStream == null) {
+				this.outputStream = new DeflaterOutputStream(this.delegate.getOutputStream());
+			}
+			return this.outputStream;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				if (this.outputStream != null) {
+					this.outputStream.close();
+				}
+				if (this.inputStream != null) {
+					this.inputStream.close();
+				}
+			}
+			finally {
+				this.delegate.close();
+			}
+		}
+
+		@Override
+		public void shutdownInput() throws IOException {
+			this.delegate.shutdownInput();
+		}
+
+		@Override
+		public void shutdownOutput() throws IOException {
+			this.delegate.shutdownOutput();
+		}
+
+		@Override
+		public void setSoTimeout(int timeout) throws SocketException {
+			this.delegate.setSoTimeout(timeout);
+		}
+
+		@Override
+		public int getSoTimeout() throws SocketException {
+			return this.delegate.getSoTimeout();
+		}
+
+		@Override
+		public void setKeepAlive(boolean on) throws SocketException {
+			this.delegate.setKeepAlive(on);
+		}
+
+		@Override
+		public void setTcpNoDelay(boolean on) throws SocketException {
+			this.delegate.setTcpNoDelay(on);
+		}
+
+		@Override
+		public boolean isConnected() {
+			return this.delegate.isConnected();
+		}
+
+		@Override
+		public boolean isClosed() {
+			return this.delegate.isClosed();
+		}
+
+		@Override
+		public InetAddress getInetAddress() {
+			return this.delegate.getInetAddress();
+		}
+
+		@Override
+		public int getPort() {
+			return this.delegate.getPort();
+		}
+
+		@Override
+		public InetAddress getLocalAddress() {
+			return this.delegate.getLocalAddress();
+		}
+
+		@Override
+		public int getLocalPort() {
+			return this.delegate.getLocalPort();
+		}
+
+		@Override
+		public SocketAddress getRemoteSocketAddress() {
+			return this.delegate.getRemoteSocketAddress();
+		}
+
+		@Override
+		public SocketAddress getLocalSocketAddress() {
+			return this.delegate.getLocalSocketAddress();
+		}
+
+	}
+
+}
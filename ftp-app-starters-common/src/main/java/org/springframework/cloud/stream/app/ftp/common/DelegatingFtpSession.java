@@ -0,0 +1,187 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+
+import org.springframework.integration.file.remote.session.Session;
+
+/**
+ * A {@link Session} delegating to another one. The remote operations all go through
+ * {@link #execute(String, String, Operation)}, which subclasses can override to decorate
+ * them.
+ */
+public class DelegatingFtpSession implements Session<FTPFile> {
+
+	private final Session<FTPFile> delegate;
+
+	public DelegatingFtpSession(Session<FTPFile> delegate) {
+		this.delegate = delegate;
+	}
+
+	public Session<FTPFile> getDelegate() {
+		return this.delegate;
+	}
+
+	/**
+	 * Perform a remote operation.
+	 * @param operation the operation name, such as {@code list} or {@code read}.
+	 * @param path the remote path the operation applies to, null for {@code finalizeRaw}.
+	 * @param action the call to the delegate.
+	 * @param <T> the operation result type.
+	 * @return the operation result.
+	 * @throws IOException if the operation fails.
+	 */
+	protected <T> T execute(String operation, String path, Operation<T> action) throws IOException {
+		return action.run();
+	}
+
+	@Override
+	public boolean remove(String path) throws IOException {
+		return execute("remove", path, () -> this.delegate.remove(path));
+	}
+
+	@Override
+	public FTPFile[] list(String path) throws IOException {
+		return execute("list", path, () -> this.delegate.list(path));
+	}
+
+	@Override
+	public void read(String source, OutputStream outputStream) throws IOException {
+		execute("read", source, () -> {
+			this.delegate.read(source, outputStream);
+			return null;
+		});
+	}
+
+	@Override
+	public void write(InputStream inputStream, String destination) throws IOException {
+		execute("write", destination, () -> {
+			this.delegate.write(inputStream, destination);
+			return null;
+		});
+	}
+
+	@Override
+	public void append(InputStream inputStream, String destination) throws IOException {
+		execute("append", destination, () -> {
+			this.delegate.append(inputStream, destination);
+			return null;
+		});
+	}
+
+	@Override
+	public boolean mkdir(String directory) throws IOException {
+		return execute("mkdir", directory, () -> this.delegate.mkdir(directory));
+	}
+
+	@Override
+	public boolean rmdir(String directory) throws IOException {
+		return execute("rmdir", directory, () -> this.delegate.rmdir(directory));
+	}
+
+	@Override
+	public void rename(String pathFrom, String pathTo) throws IOException {
+		execute("rename", pathFrom, () -> {
+			this.delegate.rename(pathFrom, pathTo);
+			return null;
+		});
+	}
+
+	@Override
+	public boolean exists(String path) throws IOException {
+		return execute("exists", path, () -> this.delegate.exists(path));
+	}
+
+	@Override
+	public String[] listNames(String path) throws IOException {
+		return execute("listNames", path, () -> this.delegate.listNames(path));
+	}
+
+	@Override
+	public InputStream readRaw(String source) throws IOException {
+		return execute("readRaw", source, () -> this.delegate.readRaw(source));
+	}
+
+	@Override
+	public boolean finalizeRaw() throws IOException {
+		return execute("finalizeRaw", null, this.delegate::finalizeRaw);
+	}
+
+	/**
+	 * Mark the session as broken, so that it is discarded rather than reused once closed;
+	 * the client at the end of the chain is disconnected.
+	 */
+	public void invalidate() {
+		invalidate(this.delegate);
+	}
+
+	/**
+	 * Mark a session as broken, through {@link #invalidate()} when it is a delegating
+	 * session, by disconnecting its client otherwise, so that a cache sees it as stale.
+	 * @param session the session.
+	 */
+	public static void invalidate(Session<FTPFile> session) {
+		if (session instanceof DelegatingFtpSession) {
+			((DelegatingFtpSession) session).invalidate();
+		}
+		else if (session.getClientInstance() instanceof FTPClient) {
+			try {
+				((FTPClient) session.getClientInstance()).disconnect();
+			}
+			catch (IOException e) {
+				// the connection is already broken
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		this.delegate.close();
+	}
+
+	@Override
+	public boolean isOpen() {
+		return this.delegate.isOpen();
+	}
+
+	@Override
+	public boolean test() {
+		return this.delegate.test();
+	}
+
+	@Override
+	public Object getClientInstance() {
+		return this.delegate.getClientInstance();
+	}
+
+	/**
+	 * A remote operation on the delegate session.
+	 * @param <T> the operation result type.
+	 */
+	@FunctionalInterface
+	protected interface Operation<T> {
+
+		T run() throws IOException;
+
+	}
+
+}
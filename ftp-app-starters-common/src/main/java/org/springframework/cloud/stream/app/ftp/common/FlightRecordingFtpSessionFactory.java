@@ -0,0 +1,188 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.net.ftp.FTPFile;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+
+/**
+ * A {@link SessionFactory} emitting Java Flight Recorder events: an
+ * {@code org.springframework.cloud.stream.app.ftp.Session} event for each session it
+ * obtains, and, when it wraps the connecting factory, an
+ * {@code org.springframework.cloud.stream.app.ftp.Operation} event for each remote
+ * operation, with its command, path and transferred bytes.
+ * <p>
+ * The events are only built while a recording has them enabled, so the cost is a check
+ * per operation otherwise. This class must only be loaded when {@code jdk.jfr} is
+ * available, see {@link FtpMetrics#isFlightRecording()}.
+ */
+public class FlightRecordingFtpSessionFactory implements SessionFactory<FTPFile>, DisposableBean {
+
+	private final SessionFactory<FTPFile> targetFactory;
+
+	private final String host;
+
+	private final boolean pooled;
+
+	/**
+	 * Create an instance.
+	 * @param targetFactory the factory to obtain the sessions from.
+	 * @param host the label of the server.
+	 * @param pooled true if the target factory borrows the sessions from a pool, in which
+	 * case only the borrows are recorded, the operations being recorded by the factory of
+	 * the pool.
+	 */
+	public FlightRecordingFtpSessionFactory(SessionFactory<FTPFile> targetFactory, String host, boolean pooled) {
+		this.targetFactory = targetFactory;
+		this.host = host;
+		this.pooled = pooled;
+	}
+
+	@Override
+	public Session<FTPFile> getSession() {
+		FtpSessionEvent event = new FtpSessionEvent();
+		if (!event.isEnabled()) {
+			Session<FTPFile> session = this.targetFactory.getSession();
+			return this.pooled ? session : new FlightRecordingSession(session);
+		}
+		event.begin();
+		try {
+			Session<FTPFile> session = this.targetFactory.getSession();
+			event.succeeded = true;
+			return this.pooled ? session : new FlightRecordingSession(session);
+		}
+		finally {
+			event.end();
+			if (event.shouldCommit()) {
+				event.host = this.host;
+				event.kind = this.pooled ? "borrow" : "create";
+				event.commit();
+			}
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if (this.targetFactory instanceof DisposableBean) {
+			((DisposableBean) this.targetFactory).destroy();
+		}
+	}
+
+	private static String command(String operation) {
+		switch (operation) {
+			case "list":
+				return "LIST";
+			case "listNames":
+				return "NLST";
+			case "read":
+			case "readRaw":
+				return "RETR";
+			case "write":
+				return "STOR";
+			case "append":
+				return "APPE";
+			case "rename":
+				return "RNFR/RNTO";
+			case "remove":
+				return "DELE";
+			case "mkdir":
+				return "MKD";
+			case "rmdir":
+				return "RMD";
+			default:
+				return operation;
+		}
+	}
+
+	private final class FlightRecordingSession extends DelegatingFtpSession {
+
+		FlightRecordingSession(Session<FTPFile> delegate) {
+			super(delegate);
+		}
+
+		@Override
+		protected <T> T execute(String operation, String path, Operation<T> action) throws IOException {
+			return record(operation, path, action, null, null);
+		}
+
+		@Override
+		public void read(String source, OutputStream outputStream) throws IOException {
+			CountingOutputStream countingOutputStream = new CountingOutputStream(outputStream);
+			record("read", source, () -> {
+				getDelegate().read(source, countingOutputStream);
+				return null;
+			}, countingOutputStream, null);
+		}
+
+		@Override
+		public void write(InputStream inputStream, String destination) throws IOException {
+			CountingInputStream countingInputStream = new CountingInputStream(inputStream);
+			record("write", destination, () -> {
+				getDelegate().write(countingInputStream, destination);
+				return null;
+			}, null, countingInputStream);
+		}
+
+		@Override
+		public void append(InputStream inputStream, String destination) throws IOException {
+			CountingInputStream countingInputStream = new CountingInputStream(inputStream);
+			record("append", destination, () -> {
+				getDelegate().append(countingInputStream, destination);
+				return null;
+			}, null, countingInputStream);
+		}
+
+		private <T> T record(String operation, String path, Operation<T> action,
+				CountingOutputStream countingOutputStream, CountingInputStream countingInputStream)
+				throws IOException {
+
+			FtpOperationEvent event = new FtpOperationEvent();
+			if (!event.isEnabled()) {
+				return action.run();
+			}
+			event.begin();
+			try {
+				T result = action.run();
+				event.succeeded = true;
+				return result;
+			}
+			finally {
+				event.end();
+				if (event.shouldCommit()) {
+					event.host = FlightRecordingFtpSessionFactory.this.host;
+					event.command = command(operation);
+					event.path = path;
+					if (countingOutputStream != null) {
+						event.bytes = countingOutputStream.getCount();
+					}
+					else if (countingInputStream != null) {
+						event.bytes = countingInputStream.getCount();
+					}
+					event.commit();
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.io.IOException;
+
+import org.apache.commons.net.ftp.FTPClient;
+
+import org.springframework.integration.ftp.session.DefaultFtpSessionFactory;
+
+/**
+ * A {@link DefaultFtpSessionFactory} applying the {@link FtpTransportProperties} to its
+ * clients, which support the deflate transfer mode.
+ */
+public class FtpClientSessionFactory extends DefaultFtpSessionFactory {
+
+	private final FtpTransportConfigurer transportConfigurer;
+
+	public FtpClientSessionFactory(FtpTransportConfigurer transportConfigurer) {
+		this.transportConfigurer = transportConfigurer;
+		transportConfigurer.configure(this);
+	}
+
+	@Override
+	protected FTPClient createClientInstance() {
+		return new DeflateModeFtpClient();
+	}
+
+	@Override
+	protected void postProcessClientBeforeConnect(FTPClient client) throws IOException {
+		this.transportConfigurer.beforeConnect(client);
+	}
+
+	@Override
+	protected void postProcessClientAfterConnect(FTPClient client) throws IOException {
+		this.transportConfigurer.afterConnect(client);
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.commons.net.ftp.FTPFile;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.stream.app.ftp.FtpSessionFactoryProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.file.remote.session.CachingSessionFactory;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.ftp.session.AbstractFtpSessionFactory;
+
+/**
+ * Configures the {@link SessionFactory} shared by the flows of the FTP apps from the
+ * {@code ftp.factory} properties, including the transport and FTPS settings, with a
+ * bounded pool of sessions when {@code ftp.factory.pool.enabled} is set, and balanced over
+ * the {@code ftp.factory.hosts} when several mirrored servers are listed, or only the file
+ * reads with {@code ftp.factory.mirror-reads}. The sessions of each server are timed
+ * unless {@code ftp.metrics.enabled} is false, and emit Flight Recorder events with
+ * {@code ftp.metrics.jfr-events}. The time to startup is published, and the beans the
+ * flows do not need are created lazily with {@code ftp.startup.lazy-initialization}.
+ */
+@Configuration
+@EnableConfigurationProperties({ FtpSessionFactoryProperties.class, FtpSessionPoolProperties.class,
+		FtpTransportProperties.class, FtpSslProperties.class, FtpHostsProperties.class, FtpMetricsProperties.class,
+		FtpStartupProperties.class })
+public class FtpClientSessionFactoryConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean
+	public FtpMetrics ftpMetrics(FtpMetricsProperties metricsProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+		return new FtpMetrics(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), metricsProperties);
+	}
+
+	@Bean
+	@ConditionalOnProperty("ftp.startup.lazy-initialization")
+	public static LazyInitializationBeanFactoryPostProcessor ftpLazyInitialization() {
+		return new LazyInitializationBeanFactoryPostProcessor();
+	}
+
+	@Bean
+	public StartupTimeRecorder ftpStartupTimeRecorder(FtpMetrics ftpMetrics, FtpStartupProperties startupProperties) {
+		return new StartupTimeRecorder(ftpMetrics, startupProperties.isExitWhenReady());
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public SessionFactory<FTPFile> ftpSessionFactory(FtpSessionFactoryProperties properties,
+			FtpSessionPoolProperties poolProperties, FtpTransportProperties transportProperties,
+			FtpSslProperties sslProperties, FtpHostsProperties hostsProperties,
+			FtpMetrics ftpMetrics) {
+
+		FtpTransportConfigurer transportConfigurer = new FtpTransportConfigurer(transportProperties);
+		if (hostsProperties.getHosts().isEmpty()) {
+			return hostSessionFactory(properties.getHost(), properties.getPort(), properties.getHost(), properties,
+					poolProperties, sslProperties, transportConfigurer, ftpMetrics);
+		}
+		Map<String, SessionFactory<FTPFile>> hostSessionFactories = hostSessionFactories(hostsProperties, properties,
+				poolProperties, sslProperties, transportConfigurer, ftpMetrics);
+		if (hostsProperties.isMirrorReads()) {
+			String primary = properties.getHost() + ":" + properties.getPort();
+			SessionFactory<FTPFile> primarySessionFactory = hostSessionFactory(properties.getHost(),
+					properties.getPort(), primary, properties, poolProperties, sslProperties, transportConfigurer,
+					ftpMetrics);
+			return new MirrorReadingFtpSessionFactory(primary, primarySessionFactory, hostSessionFactories,
+					hostsProperties, ftpMetrics.getMeterRegistry());
+		}
+		return new LoadBalancingFtpSessionFactory(hostSessionFactories, hostsProperties,
+				ftpMetrics.getMeterRegistry());
+	}
+
+	private static Map<String, SessionFactory<FTPFile>> hostSessionFactories(FtpHostsProperties hostsProperties,
+			FtpSessionFactoryProperties properties, FtpSessionPoolProperties poolProperties,
+			FtpSslProperties sslProperties, FtpTransportConfigurer transportConfigurer, FtpMetrics ftpMetrics) {
+
+		Map<String, SessionFactory<FTPFile>> factories = new LinkedHashMap<>();
+		for (String hostAndPort : hostsProperties.getHosts()) {
+			String host = hostAndPort.trim();
+			int port = properties.getPort();
+			int index = host.lastIndexOf(':');
+			if (index > 0) {
+				port = Integer.parseInt(host.substring(index + 1));
+				host = host.substring(0, index);
+			}
+			String label = host + ":" + port;
+			factories.put(label, hostSessionFactory(host, port, label, properties, poolProperties, sslProperties,
+					transportConfigurer, ftpMetrics));
+		}
+		return factories;
+	}
+
+	private static SessionFactory<FTPFile> hostSessionFactory(String host, int port, String label,
+			FtpSessionFactoryProperties properties, FtpSessionPoolProperties poolProperties,
+			FtpSslProperties sslProperties, FtpTransportConfigurer transportConfigurer, FtpMetrics ftpMetrics) {
+
+		AbstractFtpSessionFactory<?> ftpSessionFactory = sslProperties.isEnabled()
+				? new FtpsClientSessionFactory(transportConfigurer, sslProperties)
+				: new FtpClientSessionFactory(transportConfigurer);
+		ftpSessionFactory.setHost(host);
+		ftpSessionFactory.setPort(port);
+		ftpSessionFactory.setUsername(properties.getUsername());
+		ftpSessionFactory.setPassword(properties.getPassword());
+		ftpSessionFactory.setClientMode(properties.getClientMode().getMode());
+		SessionFactory<FTPFile> sessionFactory = ftpSessionFactory;
+		if (ftpMetrics.isEnabled()) {
+			sessionFactory = new InstrumentedFtpSessionFactory(sessionFactory, label, ftpMetrics);
+		}
+		if (ftpMetrics.isFlightRecording()) {
+			sessionFactory = new FlightRecordingFtpSessionFactory(sessionFactory, label, false);
+		}
+		if (poolProperties.isEnabled()) {
+			PooledFtpSessionFactory pooledFactory = new PooledFtpSessionFactory(sessionFactory, poolProperties, label,
+					ftpMetrics.getMeterRegistry());
+			return ftpMetrics.isFlightRecording()
+					? new FlightRecordingFtpSessionFactory(pooledFactory, label, true)
+					: pooledFactory;
+		}
+		else if (Boolean.TRUE.equals(properties.getCacheSessions())) {
+			return new CachingSessionFactory<>(sessionFactory);
+		}
+		return sessionFactory;
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import javax.validation.constraints.Min;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Properties of the executor running the blocking FTP work of the apps: the source polls,
+ * and the processor fetches on virtual threads.
+ */
+@ConfigurationProperties("ftp.executor")
+@Validated
+public class FtpExecutorProperties {
+
+	/**
+	 * Set to true to run the source polls and the processor fetches on virtual threads, when
+	 * the JVM supports them, or on a pool of 'max-concurrency' platform threads otherwise.
+	 */
+	private boolean virtualThreads = false;
+
+	/**
+	 * The maximum number of polls running at the same time; once reached, the scheduler
+	 * thread waits for one of them to complete before starting the next one.
+	 */
+	private int maxConcurrency = 256;
+
+	public boolean isVirtualThreads() {
+		return this.virtualThreads;
+	}
+
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	@Min(1)
+	public int getMaxConcurrency() {
+		return this.maxConcurrency;
+	}
+
+	public void setMaxConcurrency(int maxConcurrency) {
+		this.maxConcurrency = maxConcurrency;
+	}
+
+}
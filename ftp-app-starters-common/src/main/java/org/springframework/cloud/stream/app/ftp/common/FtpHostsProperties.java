@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Properties of the FTP session factory balancing the sessions, or the file reads, over
+ * several mirrored servers.
+ */
+@ConfigurationProperties("ftp.factory")
+@Validated
+public class FtpHostsProperties {
+
+	/**
+	 * The mirrored servers to balance the sessions over, as 'host' or 'host:port'; the port
+	 * defaults to 'ftp.factory.port'. Takes precedence over 'ftp.factory.host' when set.
+	 */
+	private List<String> hosts = new ArrayList<>();
+
+	/**
+	 * How a server is selected for each session.
+	 */
+	private HostSelection hostSelection = HostSelection.LEAST_OUTSTANDING;
+
+	/**
+	 * Set to true to run the operations on 'ftp.factory.host' except the file reads, which
+	 * go to the server of 'ftp.factory.hosts' with the best measured throughput.
+	 */
+	private boolean mirrorReads = false;
+
+	/**
+	 * How long the throughput measured on a server is trusted before a read is sent to it
+	 * again to measure it, with 'mirror-reads'.
+	 */
+	private Duration throughputRefreshInterval = Duration.ofMinutes(1);
+
+	/**
+	 * Settings for ejecting the failing servers.
+	 */
+	private final Ejection ejection = new Ejection();
+
+	@NotNull
+	public List<String> getHosts() {
+		return this.hosts;
+	}
+
+	public void setHosts(List<String> hosts) {
+		this.hosts = hosts;
+	}
+
+	@NotNull
+	public HostSelection getHostSelection() {
+		return this.hostSelection;
+	}
+
+	public void setHostSelection(HostSelection hostSelection) {
+		this.hostSelection = hostSelection;
+	}
+
+	public boolean isMirrorReads() {
+		return this.mirrorReads;
+	}
+
+	public void setMirrorReads(boolean mirrorReads) {
+		this.mirrorReads = mirrorReads;
+	}
+
+	@NotNull
+	public Duration getThroughputRefreshInterval() {
+		return this.throughputRefreshInterval;
+	}
+
+	public void setThroughputRefreshInterval(Duration throughputRefreshInterval) {
+		this.throughputRefreshInterval = throughputRefreshInterval;
+	}
+
+	@Valid
+	public Ejection getEjection() {
+		return this.ejection;
+	}
+
+	/**
+	 * How a server is selected among the healthy ones.
+	 */
+	public enum HostSelection {
+
+		/**
+		 * Each server in turn.
+		 */
+		ROUND_ROBIN,
+
+		/**
+		 * The server with the fewest sessions in use.
+		 */
+		LEAST_OUTSTANDING
+
+	}
+
+	public static class Ejection {
+
+		/**
+		 * The number of consecutive failed connections or operations after which a server
+		 * is ejected.
+		 */
+		private int consecutiveFailures = 3;
+
+		/**
+		 * How long an ejected server is skipped before it is tried again.
+		 */
+		private Duration duration = Duration.ofSeconds(30);
+
+		@Min(1)
+		public int getConsecutiveFailures() {
+			return this.consecutiveFailures;
+		}
+
+		public void setConsecutiveFailures(int consecutiveFailures) {
+			this.consecutiveFailures = consecutiveFailures;
+		}
+
+		@NotNull
+		public Duration getDuration() {
+			return this.duration;
+		}
+
+		public void setDuration(Duration duration) {
+			this.duration = duration;
+		}
+
+	}
+
+}
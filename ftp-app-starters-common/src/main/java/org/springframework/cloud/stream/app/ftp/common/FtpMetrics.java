@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * Builds the counters, timers and summaries of the FTP apps according to the {@code ftp.metrics}
+ * properties: the histograms, when requested, only have the buckets within the expected
+ * range, and no percentile is computed in the app. When the metrics are disabled, the
+ * meters are registered in an empty composite registry, which does not record anything.
+ * <p>
+ * It also tells whether the Flight Recorder events are emitted: they need the
+ * {@code jdk.jfr} API, from Java 11 or from the Java 8 updates which backported it.
+ */
+public class FtpMetrics {
+
+	private static final boolean FLIGHT_RECORDER_PRESENT =
+			ClassUtils.isPresent("jdk.jfr.Event", FtpMetrics.class.getClassLoader());
+
+	private final MeterRegistry meterRegistry;
+
+	private final MeterRegistry timingRegistry;
+
+	private final FtpMetricsProperties properties;
+
+	public FtpMetrics(MeterRegistry meterRegistry, FtpMetricsProperties properties) {
+		this.meterRegistry = meterRegistry;
+		this.timingRegistry = properties.isEnabled() ? meterRegistry : new CompositeMeterRegistry();
+		this.properties = properties;
+	}
+
+	/**
+	 * Return the registry of the meters which are always registered, such as gauges.
+	 * @return the meter registry.
+	 */
+	public MeterRegistry getMeterRegistry() {
+		return this.meterRegistry;
+	}
+
+	public boolean isEnabled() {
+		return this.properties.isEnabled();
+	}
+
+	/**
+	 * Return the number of remote directories the session meters of a server are tagged
+	 * with, to bound their cardinality.
+	 * @return the maximum number of {@code remoteDir} tags.
+	 */
+	public int getMaxRemoteDirTags() {
+		return this.properties.getMaxRemoteDirTags();
+	}
+
+	/**
+	 * Return whether the Flight Recorder events are requested and supported by the JVM.
+	 * @return true to emit the events.
+	 */
+	public boolean isFlightRecording() {
+		return this.properties.isJfrEvents() && FLIGHT_RECORDER_PRESENT;
+	}
+
+	public Counter counter(String name, String description, Tags tags) {
+		return Counter.builder(name)
+				.description(description)
+				.tags(tags)
+				.register(this.timingRegistry);
+	}
+
+	public Timer timer(String name, String description, Tags tags) {
+		return Timer.builder(name)
+				.description(description)
+				.tags(tags)
+				.publishPercentileHistogram(this.properties.isPercentileHistograms())
+				.minimumExpectedValue(this.properties.getMinimumExpectedDuration())
+				.maximumExpectedValue(this.properties.getMaximumExpectedDuration())
+				.register(this.timingRegistry);
+	}
+
+	public DistributionSummary summary(String name, String description, String baseUnit, long minimumExpectedValue,
+			long maximumExpectedValue, Tags tags) {
+
+		return DistributionSummary.builder(name)
+				.description(description)
+				.baseUnit(baseUnit)
+				.tags(tags)
+				.publishPercentileHistogram(this.properties.isPercentileHistograms())
+				.minimumExpectedValue(minimumExpectedValue)
+				.maximumExpectedValue(maximumExpectedValue)
+				.register(this.timingRegistry);
+	}
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.time.Duration;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Properties of the Micrometer meters timing the remote operations and the flows of the
+ * FTP apps, and of their Flight Recorder events.
+ */
+@ConfigurationProperties("ftp.metrics")
+@Validated
+public class FtpMetricsProperties {
+
+	/**
+	 * Set to false to disable the timers and summaries of the remote operations and the flows.
+	 */
+	private boolean enabled = true;
+
+	/**
+	 * Set to true to publish the timers and summaries as histograms, with buckets bounded
+	 * by the minimum and maximum expected durations, for percentiles computed by the
+	 * monitoring system.
+	 */
+	private boolean percentileHistograms = false;
+
+	/**
+	 * The lowest duration the timer histograms have a bucket for.
+	 */
+	private Duration minimumExpectedDuration = Duration.ofMillis(1);
+
+	/**
+	 * The highest duration the timer histograms have a bucket for.
+	 */
+	private Duration maximumExpectedDuration = Duration.ofMinutes(5);
+
+	/**
+	 * The number of remote directories the remote operations are tagged with per server;
+	 * the operations on further directories are tagged with 'other'.
+	 */
+	private int maxRemoteDirTags = 10;
+
+	/**
+	 * Set to true to emit Java Flight Recorder events for the session creations and borrows
+	 * and the remote operations, when the JVM supports them; they are recorded while a
+	 * recording is running.
+	 */
+	private boolean jfrEvents = false;
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public boolean isPercentileHistograms() {
+		return this.percentileHistograms;
+	}
+
+	public void setPercentileHistograms(boolean percentileHistograms) {
+		this.percentileHistograms = percentileHistograms;
+	}
+
+	@NotNull
+	public Duration getMinimumExpectedDuration() {
+		return this.minimumExpectedDuration;
+	}
+
+	public void setMinimumExpectedDuration(Duration minimumExpectedDuration) {
+		this.minimumExpectedDuration = minimumExpectedDuration;
+	}
+
+	@NotNull
+	public Duration getMaximumExpectedDuration() {
+		return this.maximumExpectedDuration;
+	}
+
+	public void setMaximumExpectedDuration(Duration maximumExpectedDuration) {
+		this.maximumExpectedDuration = maximumExpectedDuration;
+	}
+
+	@Min(1)
+	public int getMaxRemoteDirTags() {
+		return this.maxRemoteDirTags;
+	}
+
+	public void setMaxRemoteDirTags(int maxRemoteDirTags) {
+		this.maxRemoteDirTags = maxRemoteDirTags;
+	}
+
+	public boolean isJfrEvents() {
+		return this.jfrEvents;
+	}
+
+	public void setJfrEvents(boolean jfrEvents) {
+		this.jfrEvents = jfrEvents;
+	}
+
+	@AssertTrue(message = "'minimumExpectedDuration' must be lower than 'maximumExpectedDuration'")
+	public boolean isExpectedDurationRangeValid() {
+		return this.minimumExpectedDuration == null || this.maximumExpectedDuration == null
+				|| this.minimumExpectedDuration.compareTo(this.maximumExpectedDuration) < 0;
+	}
+
+}
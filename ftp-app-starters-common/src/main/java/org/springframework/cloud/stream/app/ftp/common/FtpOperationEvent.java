@@ -0,0 +1,54 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a remote FTP operation.
+ */
+@Name("org.springframework.cloud.stream.app.ftp.Operation")
+@Label("FTP Operation")
+@Description("A command sent to an FTP server, with its transfer when it has one")
+@Category({ "Spring Cloud Stream", "FTP" })
+@StackTrace(false)
+class FtpOperationEvent extends Event {
+
+	@Label("Host")
+	String host;
+
+	@Label("Command")
+	@Description("The FTP command, such as LIST, RETR, STOR or RNFR/RNTO")
+	String command;
+
+	@Label("Path")
+	String path;
+
+	@Label("Bytes")
+	@Description("The bytes transferred, -1 for the commands without a transfer")
+	@DataAmount
+	long bytes = -1;
+
+	@Label("Succeeded")
+	boolean succeeded;
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+import org.apache.commons.net.ftp.FTPClient;
+
+/**
+ * A file hash computed either by the server, with the {@code HASH} or {@code XMD5}
+ * command, or locally with the same algorithm.
+ * <p>
+ * Only cryptographic digests are used, since an identical hash means identical content:
+ * {@code XCRC} and {@code CRC32} replies to {@code HASH} are ignored, as 32-bit checksums
+ * collide far too often for that.
+ */
+public final class FtpServerHash {
+
+	private static final String[] COMMANDS = { "HASH", "XMD5" };
+
+	private final String algorithm;
+
+	private final String value;
+
+	private FtpServerHash(String algorithm, String value) {
+		this.algorithm = algorithm.toUpperCase(Locale.ROOT);
+		this.value = value.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * The algorithm, such as {@code SHA-256} or {@code MD5}.
+	 * @return the algorithm name.
+	 */
+	public String getAlgorithm() {
+		return this.algorithm;
+	}
+
+	/**
+	 * The hash as lower case hex digits.
+	 * @return the hash.
+	 */
+	public String getValue() {
+		return this.value;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof FtpServerHash)) {
+			return false;
+		}
+		FtpServerHash that = (FtpServerHash) other;
+		return this.algorithm.equals(that.algorithm) && this.value.equals(that.value);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * this.algorithm.hashCode() + this.value.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return this.algorithm + ":" + this.value;
+	}
+
+	/**
+	 * Determine the first hash command the server advertises in its {@code FEAT} reply.
+	 * @param client the connected client.
+	 * @return the command, or an empty string when the server supports none.
+	 * @throws IOException if the {@code FEAT} command fails.
+	 */
+	public static String supportedCommand(FTPClient client) throws IOException {
+		if (client.features()) {
+			for (String command : COMMANDS) {
+				if (client.hasFeature(command)) {
+					return command;
+				}
+			}
+		}
+		return "";
+	}
+
+	/**
+	 * Let the server compute the hash of a remote file.
+	 * @param client the connected client.
+	 * @param command the hash command, as returned by {@link #supportedCommand(FTPClient)}.
+	 * @param path the remote file path.
+	 * @return the hash, or null if the server did not return one, or only a checksum.
+	 * @throws IOException if the command cannot be sent.
+	 */
+	public static FtpServerHash remote(FTPClient client, String command, String path) throws IOException {
+		client.sendCommand(command, path);
+		if (client.getReplyCode() / 100 != 2) {
+			return null;
+		}
+		String[] tokens = client.getReplyString().trim().split("\\s+");
+		if ("HASH".equals(command)) {
+			// 213 <algorithm> <range> <hash> <path>
+			if (tokens.length < 4 || tokens[1].toUpperCase(Locale.ROOT).startsWith("CRC")) {
+				return null;
+			}
+			return new FtpServerHash(tokens[1], tokens[3]);
+		}
+		return new FtpServerHash("MD5", tokens[tokens.length - 1]);
+	}
+
+	/**
+	 * Compute the hash of some content locally.
+	 * @param algorithm the algorithm.
+	 * @param content the content; it is read to the end but not closed.
+	 * @return the hash, or null if the algorithm is not available.
+	 * @throws IOException if the content cannot be read.
+	 */
+	public static FtpServerHash local(String algorithm, InputStream content) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(algorithm.toUpperCase(Locale.ROOT));
+		}
+		catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = content.read(buffer)) >= 0) {
+			digest.update(buffer, 0, read);
+		}
+		StringBuilder value = new StringBuilder();
+		for (byte b : digest.digest()) {
+			value.append(String.format("%02x", b));
+		}
+		return new FtpServerHash(algorithm, value.toString());
+	}
+
+}
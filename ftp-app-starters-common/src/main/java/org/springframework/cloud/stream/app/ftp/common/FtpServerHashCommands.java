@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.net.ftp.FTPClient;
+
+/**
+ * The hash commands supported by the servers, probed with {@code FEAT} once per server:
+ * the sessions of a component may come from several balanced or mirrored servers, which
+ * do not necessarily support the same commands.
+ */
+public class FtpServerHashCommands {
+
+	private final ConcurrentMap<String, String> commands = new ConcurrentHashMap<>();
+
+	/**
+	 * Return the first hash command the server of a client advertises.
+	 * @param client the connected client.
+	 * @return the command, or an empty string when the server supports none.
+	 * @throws IOException if the {@code FEAT} command fails.
+	 * @see FtpServerHash#supportedCommand(FTPClient)
+	 */
+	public String supportedCommand(FTPClient client) throws IOException {
+		String server = server(client);
+		String command = this.commands.get(server);
+		if (command == null) {
+			command = FtpServerHash.supportedCommand(client);
+			this.commands.put(server, command);
+		}
+		return command;
+	}
+
+	private static String server(FTPClient client) {
+		InetAddress address = client.getRemoteAddress();
+		return address != null ? address.getHostAddress() + ':' + client.getRemotePort() : "";
+	}
+
+}
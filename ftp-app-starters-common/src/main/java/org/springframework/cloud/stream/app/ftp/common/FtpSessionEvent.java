@@ -0,0 +1,45 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for the creation of an FTP session, or its borrow from the pool.
+ */
+@Name("org.springframework.cloud.stream.app.ftp.Session")
+@Label("FTP Session")
+@Description("The connection of an FTP session, or its borrow from the pool")
+@Category({ "Spring Cloud Stream", "FTP" })
+@StackTrace(false)
+class FtpSessionEvent extends Event {
+
+	@Label("Host")
+	String host;
+
+	@Label("Kind")
+	@Description("'create' for a new connection, 'borrow' for a pooled session")
+	String kind;
+
+	@Label("Succeeded")
+	boolean succeeded;
+
+}
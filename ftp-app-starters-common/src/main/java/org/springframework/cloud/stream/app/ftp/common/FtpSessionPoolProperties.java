@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.time.Duration;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Properties of the pool of FTP sessions shared by the flows of an app.
+ */
+@ConfigurationProperties("ftp.factory.pool")
+@Validated
+public class FtpSessionPoolProperties {
+
+	/**
+	 * Set to true to borrow the sessions from a bounded pool instead of opening them on
+	 * demand; takes precedence over 'ftp.factory.cache-sessions'.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * The maximum number of open sessions.
+	 */
+	private int maxSize = 8;
+
+	/**
+	 * The number of idle sessions the pool keeps open.
+	 */
+	private int minIdle = 0;
+
+	/**
+	 * How long to wait for a session when all of them are in use.
+	 */
+	private Duration borrowTimeout = Duration.ofSeconds(30);
+
+	/**
+	 * Set to false to skip the NOOP sent to check a session before it is borrowed.
+	 */
+	private boolean testOnBorrow = true;
+
+	/**
+	 * The interval of the NOOP keep-alive sent on the idle sessions, which also evicts the
+	 * dead and expired ones.
+	 */
+	private Duration keepAliveInterval = Duration.ofSeconds(30);
+
+	/**
+	 * How long a session can stay idle before it is closed, above the minimum idle count.
+	 */
+	private Duration idleTimeout = Duration.ofMinutes(5);
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	@Min(1)
+	public int getMaxSize() {
+		return this.maxSize;
+	}
+
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	@Min(0)
+	public int getMinIdle() {
+		return this.minIdle;
+	}
+
+	public void setMinIdle(int minIdle) {
+		this.minIdle = minIdle;
+	}
+
+	@NotNull
+	public Duration getBorrowTimeout() {
+		return this.borrowTimeout;
+	}
+
+	public void setBorrowTimeout(Duration borrowTimeout) {
+		this.borrowTimeout = borrowTimeout;
+	}
+
+	public boolean isTestOnBorrow() {
+		return this.testOnBorrow;
+	}
+
+	public void setTestOnBorrow(boolean testOnBorrow) {
+		this.testOnBorrow = testOnBorrow;
+	}
+
+	@NotNull
+	public Duration getKeepAliveInterval() {
+		return this.keepAliveInterval;
+	}
+
+	public void setKeepAliveInterval(Duration keepAliveInterval) {
+		this.keepAliveInterval = keepAliveInterval;
+	}
+
+	@NotNull
+	public Duration getIdleTimeout() {
+		return this.idleTimeout;
+	}
+
+	public void setIdleTimeout(Duration idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	@AssertTrue(message = "'minIdle' cannot be greater than 'maxSize'")
+	public boolean isMinIdleWithinMaxSize() {
+		return this.minIdle <= this.maxSize;
+	}
+
+}
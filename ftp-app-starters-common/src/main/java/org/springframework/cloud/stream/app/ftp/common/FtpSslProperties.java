@@ -0,0 +1,196 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Pattern;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * FTPS (FTP over TLS) settings of the FTP session factory.
+ */
+@ConfigurationProperties("ftp.factory.ssl")
+@Validated
+public class FtpSslProperties {
+
+	/**
+	 * Set to true to connect with FTPS.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Set to true for implicit FTPS, where the connection starts with the TLS handshake;
+	 * otherwise the connection is secured with AUTH TLS.
+	 */
+	private boolean implicit = false;
+
+	/**
+	 * The protocol of the SSL context.
+	 */
+	private String protocol = "TLS";
+
+	/**
+	 * The TLS protocol versions enabled on the sockets; the JVM defaults when not set.
+	 */
+	private String[] enabledProtocols;
+
+	/**
+	 * The data channel protection level: 'P' (private) to encrypt the data connections,
+	 * 'C' (clear) to only encrypt the control connection.
+	 */
+	private String dataProtection = "P";
+
+	/**
+	 * Set to false to negotiate a new TLS session for each data connection instead of
+	 * resuming the session of the control connection.
+	 */
+	private boolean sessionReuse = true;
+
+	/**
+	 * The trust store with the certificates of the trusted servers; the JVM trust store
+	 * when not set.
+	 */
+	private Resource trustStore;
+
+	/**
+	 * The trust store password.
+	 */
+	private String trustStorePassword;
+
+	/**
+	 * The trust store type.
+	 */
+	private String trustStoreType = "JKS";
+
+	/**
+	 * The key store with the client certificate, when the server requires one.
+	 */
+	private Resource keyStore;
+
+	/**
+	 * The key store password.
+	 */
+	private String keyStorePassword;
+
+	/**
+	 * The key store type.
+	 */
+	private String keyStoreType = "JKS";
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public boolean isImplicit() {
+		return this.implicit;
+	}
+
+	public void setImplicit(boolean implicit) {
+		this.implicit = implicit;
+	}
+
+	@NotBlank
+	public String getProtocol() {
+		return this.protocol;
+	}
+
+	public void setProtocol(String protocol) {
+		this.protocol = protocol;
+	}
+
+	public String[] getEnabledProtocols() {
+		return this.enabledProtocols;
+	}
+
+	public void setEnabledProtocols(String[] enabledProtocols) {
+		this.enabledProtocols = enabledProtocols;
+	}
+
+	@Pattern(regexp = "[PC]")
+	public String getDataProtection() {
+		return this.dataProtection;
+	}
+
+	public void setDataProtection(String dataProtection) {
+		this.dataProtection = dataProtection;
+	}
+
+	public boolean isSessionReuse() {
+		return this.sessionReuse;
+	}
+
+	public void setSessionReuse(boolean sessionReuse) {
+		this.sessionReuse = sessionReuse;
+	}
+
+	public Resource getTrustStore() {
+		return this.trustStore;
+	}
+
+	public void setTrustStore(Resource trustStore) {
+		this.trustStore = trustStore;
+	}
+
+	public String getTrustStorePassword() {
+		return this.trustStorePassword;
+	}
+
+	public void setTrustStorePassword(String trustStorePassword) {
+		this.trustStorePassword = trustStorePassword;
+	}
+
+	@NotBlank
+	public String getTrustStoreType() {
+		return this.trustStoreType;
+	}
+
+	public void setTrustStoreType(String trustStoreType) {
+		this.trustStoreType = trustStoreType;
+	}
+
+	public Resource getKeyStore() {
+		return this.keyStore;
+	}
+
+	public void setKeyStore(Resource keyStore) {
+		this.keyStore = keyStore;
+	}
+
+	public String getKeyStorePassword() {
+		return this.keyStorePassword;
+	}
+
+	public void setKeyStorePassword(String keyStorePassword) {
+		this.keyStorePassword = keyStorePassword;
+	}
+
+	@NotBlank
+	public String getKeyStoreType() {
+		return this.keyStoreType;
+	}
+
+	public void setKeyStoreType(String keyStoreType) {
+		this.keyStoreType = keyStoreType;
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties shortening the startup of the FTP apps which are started for short batch
+ * windows.
+ */
+@ConfigurationProperties("ftp.startup")
+public class FtpStartupProperties {
+
+	/**
+	 * Set to true to create only the beans the flows need, the others on first use.
+	 */
+	private boolean lazyInitialization = false;
+
+	/**
+	 * Set to true to exit once the app is ready, for the training run recording a class data
+	 * sharing archive.
+	 */
+	private boolean exitWhenReady = false;
+
+	public boolean isLazyInitialization() {
+		return this.lazyInitialization;
+	}
+
+	public void setLazyInitialization(boolean lazyInitialization) {
+		this.lazyInitialization = lazyInitialization;
+	}
+
+	public boolean isExitWhenReady() {
+		return this.exitWhenReady;
+	}
+
+	public void setExitWhenReady(boolean exitWhenReady) {
+		this.exitWhenReady = exitWhenReady;
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * A {@link TaskExecutor} running each task on its own virtual thread, or on a pool of
+ * platform threads when the JVM does not support virtual threads. The number of running
+ * tasks is bounded: {@link #execute(Runnable)} blocks until one of them completes.
+ * <p>
+ * Virtual threads are created through reflection, so that the apps still run on the JVMs
+ * without them.
+ */
+public class FtpTaskExecutor implements TaskExecutor, DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(FtpTaskExecutor.class);
+
+	private final ExecutorService executorService;
+
+	private final Semaphore permits;
+
+	private final boolean virtual;
+
+	public FtpTaskExecutor(String threadNamePrefix, int maxConcurrency) {
+		this(threadNamePrefix, maxConcurrency, true);
+	}
+
+	/**
+	 * Create an instance.
+	 * @param threadNamePrefix the prefix of the thread names.
+	 * @param maxConcurrency the maximum number of running tasks.
+	 * @param virtualThreads false to always use platform threads.
+	 */
+	public FtpTaskExecutor(String threadNamePrefix, int maxConcurrency, boolean virtualThreads) {
+		ExecutorService virtualThreadExecutor = virtualThreads ? virtualThreadExecutor(threadNamePrefix) : null;
+		this.virtual = virtualThreadExecutor != null;
+		if (this.virtual) {
+			this.executorService = virtualThreadExecutor;
+		}
+		else {
+			if (virtualThreads && logger.isWarnEnabled()) {
+				logger.warn("Virtual threads are not supported by this JVM; using " + maxConcurrency
+						+ " platform threads");
+			}
+			this.executorService =
+					Executors.newFixedThreadPool(maxConcurrency, new CustomizableThreadFactory(threadNamePrefix));
+		}
+		this.permits = new Semaphore(maxConcurrency);
+	}
+
+	/**
+	 * Whether the tasks run on virtual threads.
+	 * @return true for virtual threads.
+	 */
+	public boolean isVirtual() {
+		return this.virtual;
+	}
+
+	/**
+	 * Run the task, first waiting for one of the running tasks to complete when the maximum
+	 * concurrency is reached. The caller is blocked meanwhile, on purpose: for a poller,
+	 * the scheduler thread stops triggering polls until the running ones catch up, which
+	 * also delays the other endpoints sharing that scheduler thread.
+	 * @param task the task.
+	 * @throws TaskRejectedException if interrupted while waiting, or after {@link #destroy()}.
+	 */
+	@Override
+	public void execute(Runnable task) {
+		try {
+			this.permits.acquire();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TaskRejectedException("Interrupted while waiting to run " + task, e);
+		}
+		try {
+			this.executorService.execute(() -> {
+				try {
+					task.run();
+				}
+				finally {
+					this.permits.release();
+				}
+			});
+		}
+		catch (RejectedExecutionException e) {
+			this.permits.release();
+			throw new TaskRejectedException("Executor rejected " + task, e);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		this.executorService.shutdown();
+	}
+
+	private static ExecutorService virtualThreadExecutor(String threadNamePrefix) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+			builder = builderType.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 1L);
+			ThreadFactory threadFactory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+			Method newThreadPerTaskExecutor =
+					Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+		}
+		catch (ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+
+}
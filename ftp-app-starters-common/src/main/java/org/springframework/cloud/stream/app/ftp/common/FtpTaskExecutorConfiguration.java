@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configures the {@link FtpTaskExecutor} when {@code ftp.executor.virtual-threads} is set.
+ */
+@Configuration
+@EnableConfigurationProperties(FtpExecutorProperties.class)
+public class FtpTaskExecutorConfiguration {
+
+	@Bean
+	@ConditionalOnProperty("ftp.executor.virtual-threads")
+	public FtpTaskExecutor ftpTaskExecutor(FtpExecutorProperties properties) {
+		return new FtpTaskExecutor("ftp-", properties.getMaxConcurrency());
+	}
+
+}
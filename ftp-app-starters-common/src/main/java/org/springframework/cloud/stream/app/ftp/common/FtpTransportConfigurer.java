@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+import javax.net.SocketFactory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.commons.net.ftp.FTPClient;
+
+import org.springframework.integration.ftp.session.AbstractFtpSessionFactory;
+
+/**
+ * Applies the {@link FtpTransportProperties} to a session factory and to the clients it
+ * creates.
+ */
+public class FtpTransportConfigurer {
+
+	private static final Log logger = LogFactory.getLog(FtpTransportConfigurer.class);
+
+	private final FtpTransportProperties properties;
+
+	private volatile boolean transferCompressionRefused;
+
+	public FtpTransportConfigurer(FtpTransportProperties properties) {
+		this.properties = properties;
+	}
+
+	/**
+	 * Apply the settings which the session factory applies itself to its clients.
+	 * @param sessionFactory the session factory.
+	 */
+	public void configure(AbstractFtpSessionFactory<?> sessionFactory) {
+		sessionFactory.setBufferSize(this.properties.getBufferSize());
+		sessionFactory.setFileType(this.properties.getFileType().getType());
+	}
+
+	/**
+	 * Apply the socket settings, before the client connects.
+	 * @param client the client.
+	 */
+	public void beforeConnect(FTPClient client) {
+		if (this.properties.getSendBufferSize() != null) {
+			client.setSendDataSocketBufferSize(this.properties.getSendBufferSize());
+		}
+		if (this.properties.getReceiveBufferSize() != null) {
+			client.setReceieveDataSocketBufferSize(this.properties.getReceiveBufferSize());
+		}
+		if (this.properties.isTcpNoDelay()) {
+			client.setSocketFactory(new TcpNoDelaySocketFactory(SocketFactory.getDefault()));
+		}
+	}
+
+	/**
+	 * Negotiate the deflate transfer mode, once the client is logged in; only a
+	 * {@link DeflateModeFtpClient} can use it.
+	 * @param client the client.
+	 * @throws IOException if the command cannot be sent.
+	 */
+	public void afterConnect(FTPClient client) throws IOException {
+		if (this.properties.isTransferCompression() && !this.transferCompressionRefused
+				&& client instanceof DeflateModeFtpClient) {
+
+			if (!((DeflateModeFtpClient) client).enableDeflate()) {
+				this.transferCompressionRefused = true;
+				if (logger.isWarnEnabled()) {
+					logger.warn("The server refused MODE Z (" + client.getReplyString().trim()
+							+ "); transferring uncompressed");
+				}
+			}
+		}
+	}
+
+	/**
+	 * A {@link SocketFactory} enabling {@code TCP_NODELAY} on the sockets it creates.
+	 */
+	private static final class TcpNoDelaySocketFactory extends SocketFactory {
+
+		private final SocketFactory delegate;
+
+		TcpNoDelaySocketFactory(SocketFactory delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Socket createSocket() throws IOException {
+			return noDelay(this.delegate.createSocket());
+		}
+
+		@Override
+		public Socket createSocket(String host, int port) throws IOException {
+			return noDelay(this.delegate.createSocket(host, port));
+		}
+
+		@Override
+		public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+			return noDelay(this.delegate.createSocket(host, port, localHost, localPort));
+		}
+
+		@Override
+		public Socket createSocket(InetAddress host, int port) throws IOException {
+			return noDelay(this.delegate.createSocket(host, port));
+		}
+
+		@Override
+		public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+				throws IOException {
+
+			return noDelay(this.delegate.createSocket(address, port, localAddress, localPort));
+		}
+
+		private static Socket noDelay(Socket socket) throws IOException {
+			socket.setTcpNoDelay(true);
+			return socket;
+		}
+
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.net.ftp.FTP;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Transport settings applied to the FTP client, next to the connection settings of
+ * {@code FtpSessionFactoryProperties}.
+ */
+@ConfigurationProperties("ftp.factory")
+@Validated
+public class FtpTransportProperties {
+
+	/**
+	 * The buffer size used for the data transfers, in bytes.
+	 */
+	private int bufferSize = 64 * 1024;
+
+	/**
+	 * The send buffer size of the data connection sockets, in bytes; the system default
+	 * when not set.
+	 */
+	private Integer sendBufferSize;
+
+	/**
+	 * The receive buffer size of the data connection sockets, in bytes; the system default
+	 * when not set. Set it before the connection is opened so that large TCP windows are
+	 * negotiated on high bandwidth-delay links.
+	 */
+	private Integer receiveBufferSize;
+
+	/**
+	 * Set to true to disable Nagle's algorithm (TCP_NODELAY) on the control and passive
+	 * data connections.
+	 */
+	private boolean tcpNoDelay = false;
+
+	/**
+	 * The file type of the transfers.
+	 */
+	private FileType fileType = FileType.BINARY;
+
+	/**
+	 * Set to true to negotiate deflate compressed transfers (MODE Z); the transfers are
+	 * left uncompressed when the server refuses it.
+	 */
+	private boolean transferCompression = false;
+
+	@Min(1)
+	public int getBufferSize() {
+		return this.bufferSize;
+	}
+
+	public void setBufferSize(int bufferSize) {
+		this.bufferSize = bufferSize;
+	}
+
+	@Min(1)
+	public Integer getSendBufferSize() {
+		return this.sendBufferSize;
+	}
+
+	public void setSendBufferSize(Integer sendBufferSize) {
+		this.sendBufferSize = sendBufferSize;
+	}
+
+	@Min(1)
+	public Integer getReceiveBufferSize() {
+		return this.receiveBufferSize;
+	}
+
+	public void setReceiveBufferSize(Integer receiveBufferSize) {
+		this.receiveBufferSize = receiveBufferSize;
+	}
+
+	public boolean isTcpNoDelay() {
+		return this.tcpNoDelay;
+	}
+
+	public void setTcpNoDelay(boolean tcpNoDelay) {
+		this.tcpNoDelay = tcpNoDelay;
+	}
+
+	@NotNull
+	public FileType getFileType() {
+		return this.fileType;
+	}
+
+	public void setFileType(FileType fileType) {
+		this.fileType = fileType;
+	}
+
+	public boolean isTransferCompression() {
+		return this.transferCompression;
+	}
+
+	public void setTransferCompression(boolean transferCompression) {
+		this.transferCompression = transferCompression;
+	}
+
+	public enum FileType {
+
+		BINARY(FTP.BINARY_FILE_TYPE),
+
+		ASCII(FTP.ASCII_FILE_TYPE);
+
+		private final int type;
+
+		FileType(int type) {
+			this.type = type;
+		}
+
+		public int getType() {
+			return this.type;
+		}
+
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.apache.commons.net.ftp.FTPSClient;
+
+import org.springframework.core.io.Resource;
+import org.springframework.integration.ftp.session.DefaultFtpsSessionFactory;
+
+/**
+ * A {@link DefaultFtpsSessionFactory} configured from the {@link FtpSslProperties},
+ * creating {@link SessionReusingFtpsClient}s and applying the
+ * {@link FtpTransportProperties} to them.
+ */
+public class FtpsClientSessionFactory extends DefaultFtpsSessionFactory {
+
+	private final FtpTransportConfigurer transportConfigurer;
+
+	private final FtpSslProperties sslProperties;
+
+	private final SSLContext sslContext;
+
+	public FtpsClientSessionFactory(FtpTransportConfigurer transportConfigurer, FtpSslProperties sslProperties) {
+		this.transportConfigurer = transportConfigurer;
+		this.sslProperties = sslProperties;
+		this.sslContext = createSslContext(sslProperties);
+		setImplicit(sslProperties.isImplicit());
+		setProt(sslProperties.getDataProtection());
+		if (sslProperties.getEnabledProtocols() != null) {
+			setProtocols(sslProperties.getEnabledProtocols());
+		}
+		transportConfigurer.configure(this);
+	}
+
+	@Override
+	protected FTPSClient createClientInstance() {
+		return new SessionReusingFtpsClient(this.sslProperties.isImplicit(), this.sslContext,
+				this.sslProperties.isSessionReuse(), this.sslProperties.getEnabledProtocols());
+	}
+
+	@Override
+	protected void postProcessClientBeforeConnect(FTPSClient client) throws IOException {
+		super.postProcessClientBeforeConnect(client);
+		this.transportConfigurer.beforeConnect(client);
+	}
+
+	@Override
+	protected void postProcessClientAfterConnect(FTPSClient client) throws IOException {
+		super.postProcessClientAfterConnect(client);
+		this.transportConfigurer.afterConnect(client);
+	}
+
+	private static SSLContext createSslContext(FtpSslProperties properties) {
+		try {
+			KeyManager[] keyManagers = null;
+			if (properties.getKeyStore() != null) {
+				KeyManagerFactory keyManagerFactory =
+						KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+				keyManagerFactory.init(loadKeyStore(properties.getKeyStore(), properties.getKeyStoreType(),
+						properties.getKeyStorePassword()), password(properties.getKeyStorePassword()));
+				keyManagers = keyManagerFactory.getKeyManagers();
+			}
+			TrustManager[] trustManagers = null;
+			if (properties.getTrustStore() != null) {
+				TrustManagerFactory trustManagerFactory =
+						TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+				trustManagerFactory.init(loadKeyStore(properties.getTrustStore(), properties.getTrustStoreType(),
+						properties.getTrustStorePassword()));
+				trustManagers = trustManagerFactory.getTrustManagers();
+			}
+			SSLContext sslContext = SSLContext.getInstance(properties.getProtocol());
+			sslContext.init(keyManagers, trustManagers, null);
+			return sslContext;
+		}
+		catch (GeneralSecurityException | IOException e) {
+			throw new IllegalStateException("Failed to initialize the FTPS SSL context", e);
+		}
+	}
+
+	private static KeyStore loadKeyStore(Resource resource, String type, String password)
+			throws GeneralSecurityException, IOException {
+
+		KeyStore keyStore = KeyStore.getInstance(type);
+		try (InputStream inputStream = resource.getInputStream()) {
+			keyStore.load(inputStream, password(password));
+		}
+		return keyStore;
+	}
+
+	private static char[] password(String password) {
+		return password != null ? password.toCharArray() : null;
+	}
+
+}
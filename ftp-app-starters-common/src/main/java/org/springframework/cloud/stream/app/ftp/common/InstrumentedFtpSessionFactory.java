@@ -0,0 +1,207 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.net.ftp.FTPFile;
+
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+
+/**
+ * A {@link SessionFactory} timing the sessions of one server: the time to open a session,
+ * which the pools and caches only do for new connections, and each remote operation,
+ * tagged with the operation, the remote directory and the outcome. The bytes transferred
+ * by the {@code read}, {@code write} and {@code append} operations, and their rate, are
+ * recorded in summaries; the streams of {@code readRaw} are not measured.
+ * <p>
+ * As the paths come from the listings and the messages, only the first
+ * {@link FtpMetrics#getMaxRemoteDirTags()} directories are tagged with their name, and
+ * the operations on the other directories are tagged with {@code other}, so that the
+ * number of meters stays bounded.
+ * <p>
+ * The meters are {@code ftp.session.connect}, {@code ftp.session.operation},
+ * {@code ftp.session.transfer.bytes} and {@code ftp.session.transfer.rate}, all tagged
+ * with the {@code host}.
+ */
+public class InstrumentedFtpSessionFactory implements SessionFactory<FTPFile> {
+
+	private static final long KILOBYTE = 1024;
+
+	private static final long GIGABYTE = 1024 * 1024 * 1024;
+
+	private static final String OTHER_DIRECTORIES = "other";
+
+	private final SessionFactory<FTPFile> targetFactory;
+
+	private final String host;
+
+	private final FtpMetrics metrics;
+
+	private final Timer connectTimer;
+
+	private final ConcurrentMap<String, Timer> operationTimers = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, DistributionSummary[]> transferSummaries = new ConcurrentHashMap<>();
+
+	private final Set<String> directories = ConcurrentHashMap.newKeySet();
+
+	public InstrumentedFtpSessionFactory(SessionFactory<FTPFile> targetFactory, String host, FtpMetrics metrics) {
+		this.targetFactory = targetFactory;
+		this.host = host;
+		this.metrics = metrics;
+		this.connectTimer = metrics.timer("ftp.session.connect", "The time spent opening an FTP session",
+				Tags.of("host", host));
+	}
+
+	public SessionFactory<FTPFile> getTargetFactory() {
+		return this.targetFactory;
+	}
+
+	@Override
+	public Session<FTPFile> getSession() {
+		long start = System.nanoTime();
+		try {
+			return new InstrumentedSession(this.targetFactory.getSession());
+		}
+		finally {
+			this.connectTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private Timer operationTimer(String operation, String directory, String outcome) {
+		return this.operationTimers.computeIfAbsent(operation + '\0' + directory + '\0' + outcome,
+				key -> this.metrics.timer("ftp.session.operation", "The time spent in the remote FTP operations",
+						Tags.of("host", this.host, "operation", operation, "remoteDir", directory,
+								"outcome", outcome)));
+	}
+
+	private DistributionSummary[] transferSummaries(String operation, String directory) {
+		return this.transferSummaries.computeIfAbsent(operation + '\0' + directory, key -> {
+			Tags tags = Tags.of("host", this.host, "operation", operation, "remoteDir", directory);
+			return new DistributionSummary[] {
+					this.metrics.summary("ftp.session.transfer.bytes", "The bytes of the FTP transfers", "bytes",
+							KILOBYTE, GIGABYTE, tags),
+					this.metrics.summary("ftp.session.transfer.rate", "The bytes per second of the FTP transfers",
+							"bytes", KILOBYTE, GIGABYTE, tags)
+			};
+		});
+	}
+
+	private void transferred(String operation, String path, long bytes, long nanos) {
+		DistributionSummary[] summaries = transferSummaries(operation, directoryTag(operation, path));
+		summaries[0].record(bytes);
+		if (bytes > 0 && nanos > 0) {
+			summaries[1].record(bytes * 1_000_000_000.0 / nanos);
+		}
+	}
+
+	/**
+	 * The {@code remoteDir} tag of an operation: its directory, or {@code other} once the
+	 * maximum number of directories is tagged.
+	 */
+	private String directoryTag(String operation, String path) {
+		String directory = directory(operation, path);
+		if (this.directories.contains(directory)) {
+			return directory;
+		}
+		synchronized (this.directories) {
+			if (this.directories.size() < this.metrics.getMaxRemoteDirTags()) {
+				this.directories.add(directory);
+				return directory;
+			}
+		}
+		return OTHER_DIRECTORIES;
+	}
+
+	/**
+	 * The directory an operation applies to: the path itself for the directory operations,
+	 * its parent otherwise.
+	 */
+	private static String directory(String operation, String path) {
+		if (path == null) {
+			return "none";
+		}
+		switch (operation) {
+			case "list":
+			case "listNames":
+			case "mkdir":
+			case "rmdir":
+				return path.isEmpty() ? "." : path;
+			default:
+				int index = path.lastIndexOf('/');
+				return index > 0 ? path.substring(0, index) : index == 0 ? "/" : ".";
+		}
+	}
+
+	private final class InstrumentedSession extends DelegatingFtpSession {
+
+		InstrumentedSession(Session<FTPFile> delegate) {
+			super(delegate);
+		}
+
+		@Override
+		protected <T> T execute(String operation, String path, Operation<T> action) throws IOException {
+			String directory = directoryTag(operation, path);
+			long start = System.nanoTime();
+			String outcome = "failure";
+			try {
+				T result = action.run();
+				outcome = "success";
+				return result;
+			}
+			finally {
+				operationTimer(operation, directory, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			}
+		}
+
+		@Override
+		public void read(String source, OutputStream outputStream) throws IOException {
+			CountingOutputStream countingOutputStream = new CountingOutputStream(outputStream);
+			long start = System.nanoTime();
+			super.read(source, countingOutputStream);
+			transferred("read", source, countingOutputStream.getCount(), System.nanoTime() - start);
+		}
+
+		@Override
+		public void write(InputStream inputStream, String destination) throws IOException {
+			CountingInputStream countingInputStream = new CountingInputStream(inputStream);
+			long start = System.nanoTime();
+			super.write(countingInputStream, destination);
+			transferred("write", destination, countingInputStream.getCount(), System.nanoTime() - start);
+		}
+
+		@Override
+		public void append(InputStream inputStream, String destination) throws IOException {
+			CountingInputStream countingInputStream = new CountingInputStream(inputStream);
+			long start = System.nanoTime();
+			super.append(countingInputStream, destination);
+			transferred("append", destination, countingInputStream.getCount(), System.nanoTime() - start);
+		}
+
+	}
+
+}
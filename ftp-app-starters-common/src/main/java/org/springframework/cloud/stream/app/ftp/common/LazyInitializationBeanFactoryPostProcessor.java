@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.Lifecycle;
+import org.springframework.context.annotation.ConfigurationClassPostProcessor;
+import org.springframework.core.Conventions;
+import org.springframework.core.Ordered;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.integration.annotation.Aggregator;
+import org.springframework.integration.annotation.BridgeFrom;
+import org.springframework.integration.annotation.BridgeTo;
+import org.springframework.integration.annotation.Filter;
+import org.springframework.integration.annotation.InboundChannelAdapter;
+import org.springframework.integration.annotation.Router;
+import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.integration.annotation.Splitter;
+import org.springframework.integration.annotation.Transformer;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Makes the application beans lazy, so that the beans nothing asks for are never created
+ * and the startup of short-lived apps is shorter. The beans which make the app run stay
+ * eager: the configuration classes, the integration flows and the endpoints declared with
+ * the messaging annotations, the lifecycle beans, the smart singletons and the
+ * infrastructure beans.
+ */
+public class LazyInitializationBeanFactoryPostProcessor implements BeanFactoryPostProcessor, Ordered {
+
+	private static final String CONFIGURATION_CLASS_ATTRIBUTE =
+			Conventions.getQualifiedAttributeName(ConfigurationClassPostProcessor.class, "configurationClass");
+
+	private static final List<String> ENDPOINT_ANNOTATIONS = Collections.unmodifiableList(Arrays.asList(
+			ServiceActivator.class.getName(), InboundChannelAdapter.class.getName(),
+			Transformer.class.getName(), Filter.class.getName(), Splitter.class.getName(),
+			Router.class.getName(), Aggregator.class.getName(), BridgeFrom.class.getName(),
+			BridgeTo.class.getName()));
+
+	private static final List<Class<?>> EAGER_TYPES = Collections.unmodifiableList(Arrays.asList(
+			IntegrationFlow.class, Lifecycle.class, SmartInitializingSingleton.class));
+
+	@Override
+	public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+		for (String beanName : beanFactory.getBeanDefinitionNames()) {
+			BeanDefinition beanDefinition = beanFactory.getBeanDefinition(beanName);
+			if (!beanDefinition.isLazyInit() && !isEager(beanDefinition, beanFactory.getBeanClassLoader())) {
+				beanDefinition.setLazyInit(true);
+			}
+		}
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+
+	private static boolean isEager(BeanDefinition beanDefinition, ClassLoader classLoader) {
+		if (beanDefinition.getRole() == BeanDefinition.ROLE_INFRASTRUCTURE
+				|| beanDefinition.getAttribute(CONFIGURATION_CLASS_ATTRIBUTE) != null
+				|| beanDefinition.isAbstract()) {
+			return true;
+		}
+		String typeName = beanDefinition.getBeanClassName();
+		if (beanDefinition instanceof AnnotatedBeanDefinition) {
+			MethodMetadata factoryMethod = ((AnnotatedBeanDefinition) beanDefinition).getFactoryMethodMetadata();
+			if (factoryMethod != null) {
+				if (ENDPOINT_ANNOTATIONS.stream().anyMatch(factoryMethod::isAnnotated)) {
+					return true;
+				}
+				typeName = factoryMethod.getReturnTypeName();
+			}
+		}
+		if (typeName == null) {
+			return true;
+		}
+		try {
+			Class<?> type = ClassUtils.forName(typeName, classLoader);
+			return EAGER_TYPES.stream().anyMatch(eagerType -> eagerType.isAssignableFrom(type));
+		}
+		catch (ClassNotFoundException | LinkageError e) {
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.commons.net.ftp.FTPFile;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link SessionFactory} balancing the sessions over the factories of several mirrored
+ * servers, with round-robin or least-outstanding selection. A server is ejected after a
+ * number of consecutive failed connections or operations, and tried again once the
+ * ejection has elapsed; a connection failure is retried on the other servers.
+ * <p>
+ * A thread can instead pin its sessions to one server with an affinity key, which is
+ * hashed over all the servers, healthy or not, so that a given key always lands on the
+ * same server; a component opening sessions from several threads for the same key gets
+ * the factory of that server once with {@link #getAffineSessionFactory(String)}.
+ * <p>
+ * The servers are exposed with the {@code ftp.session.host.outstanding} and
+ * {@code ftp.session.host.healthy} gauges and the {@code ftp.session.host.ejections}
+ * counter, tagged with the host.
+ */
+public class LoadBalancingFtpSessionFactory implements SessionFactory<FTPFile>, DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(LoadBalancingFtpSessionFactory.class);
+
+	private final ThreadLocal<String> affinityKey = new ThreadLocal<>();
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	private final List<Member> members = new ArrayList<>();
+
+	private final FtpHostsProperties.HostSelection hostSelection;
+
+	private final int consecutiveFailures;
+
+	private final long ejectionDuration;
+
+	/**
+	 * Create an instance.
+	 * @param factories the session factories, by host, in order.
+	 * @param properties the balancing properties.
+	 * @param meterRegistry the registry of the meters.
+	 */
+	public LoadBalancingFtpSessionFactory(Map<String, SessionFactory<FTPFile>> factories,
+			FtpHostsProperties properties, MeterRegistry meterRegistry) {
+
+		this.hostSelection = properties.getHostSelection();
+		this.consecutiveFailures = properties.getEjection().getConsecutiveFailures();
+		this.ejectionDuration = properties.getEjection().getDuration().toMillis();
+		Assert.notEmpty(factories, "At least one session factory is required");
+		factories.forEach((host, factory) -> this.members.add(new Member(host, factory, meterRegistry)));
+	}
+
+	/**
+	 * Pin the sessions obtained by the current thread to the server the key hashes to,
+	 * until {@link #clearAffinityKey()}.
+	 * @param key the affinity key, such as a file name.
+	 */
+	public void setAffinityKey(String key) {
+		this.affinityKey.set(key);
+	}
+
+	public void clearAffinityKey() {
+		this.affinityKey.remove();
+	}
+
+	/**
+	 * Return a factory opening all its sessions on the server the key hashes to, whatever
+	 * the thread.
+	 * @param key the affinity key, such as a file name.
+	 * @return the session factory of that server.
+	 */
+	public SessionFactory<FTPFile> getAffineSessionFactory(String key) {
+		return affine(key)::open;
+	}
+
+	@Override
+	public Session<FTPFile> getSession() {
+		String key = this.affinityKey.get();
+		if (key != null) {
+			return affine(key).open();
+		}
+		List<Member> tried = new ArrayList<>();
+		RuntimeException failure = null;
+		Member member;
+		while ((member = select(tried)) != null) {
+			try {
+				return member.open();
+			}
+			catch (RuntimeException e) {
+				tried.add(member);
+				if (failure == null) {
+					failure = e;
+				}
+				else {
+					failure.addSuppressed(e);
+				}
+			}
+		}
+		throw failure;
+	}
+
+	/**
+	 * Whether a server is currently healthy.
+	 * @param host the host, as given to the constructor.
+	 * @return false when the server is ejected.
+	 */
+	public boolean isHealthy(String host) {
+		return this.members.stream()
+				.anyMatch(member -> member.host.equals(host) && !member.isEjected(System.currentTimeMillis()));
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		for (Member member : this.members) {
+			if (member.factory instanceof DisposableBean) {
+				((DisposableBean) member.factory).destroy();
+			}
+		}
+	}
+
+	/**
+	 * Select a server not tried yet: a healthy one when there is one, otherwise the one
+	 * whose ejection ends first.
+	 */
+	private Member select(List<Member> tried) {
+		long now = System.currentTimeMillis();
+		List<Member> candidates = new ArrayList<>();
+		Member leastEjected = null;
+		for (Member member : this.members) {
+			if (tried.contains(member)) {
+				continue;
+			}
+			if (!member.isEjected(now)) {
+				candidates.add(member);
+			}
+			else if (leastEjected == null || member.ejectedUntil < leastEjected.ejectedUntil) {
+				leastEjected = member;
+			}
+		}
+		if (candidates.isEmpty()) {
+			return leastEjected;
+		}
+		int start = Math.floorMod(this.next.getAndIncrement(), candidates.size());
+		Member selected = candidates.get(start);
+		if (this.hostSelection == FtpHostsProperties.HostSelection.LEAST_OUTSTANDING) {
+			for (int i = 1; i < candidates.size(); i++) {
+				Member candidate = candidates.get((start + i) % candidates.size());
+				if (candidate.outstanding.get() < selected.outstanding.get()) {
+					selected = candidate;
+				}
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * The server with the highest rendezvous hash of the key.
+	 */
+	private Member affine(String key) {
+		Member selected = null;
+		long selectedWeight = -1;
+		for (Member member : this.members) {
+			CRC32 crc = new CRC32();
+			crc.update((member.host + '/' + key).getBytes(StandardCharsets.UTF_8));
+			long weight = crc.getValue();
+			if (weight > selectedWeight) {
+				selected = member;
+				selectedWeight = weight;
+			}
+		}
+		return selected;
+	}
+
+	private final class Member {
+
+		private final String host;
+
+		private final SessionFactory<FTPFile> factory;
+
+		private final AtomicInteger outstanding = new AtomicInteger();
+
+		private final AtomicInteger failures = new AtomicInteger();
+
+		private final Counter ejections;
+
+		private volatile long ejectedUntil;
+
+		Member(String host, SessionFactory<FTPFile> factory, MeterRegistry meterRegistry) {
+			this.host = host;
+			this.factory = factory;
+			Gauge.builder("ftp.session.host.outstanding", this.outstanding, AtomicInteger::get)
+					.description("The FTP sessions in use on the host")
+					.tag("host", host)
+					.register(meterRegistry);
+			Gauge.builder("ftp.session.host.healthy", this,
+					member -> member.isEjected(System.currentTimeMillis()) ? 0 : 1)
+					.description("Whether the host is selected for new sessions")
+					.tag("host", host)
+					.register(meterRegistry);
+			this.ejections = Counter.builder("ftp.session.host.ejections")
+					.description("The times the host was ejected after consecutive failures")
+					.tag("host", host)
+					.register(meterRegistry);
+		}
+
+		boolean isEjected(long now) {
+			return now < this.ejectedUntil;
+		}
+
+		Session<FTPFile> open() {
+			Session<FTPFile> session;
+			try {
+				session = this.factory.getSession();
+			}
+			catch (RuntimeException e) {
+				failed(e);
+				throw e;
+			}
+			this.outstanding.incrementAndGet();
+			return new BalancedSession(session, this);
+		}
+
+		void succeeded() {
+			this.failures.set(0);
+			if (this.ejectedUntil != 0) {
+				this.ejectedUntil = 0;
+				if (logger.isInfoEnabled()) {
+					logger.info("Re-admitted the FTP host " + this.host);
+				}
+			}
+		}
+
+		void failed(Exception e) {
+			long now = System.currentTimeMillis();
+			if (this.failures.incrementAndGet() >= LoadBalancingFtpSessionFactory.this.consecutiveFailures
+					&& !isEjected(now)) {
+
+				this.ejectedUntil = now + LoadBalancingFtpSessionFactory.this.ejectionDuration;
+				this.ejections.increment();
+				if (logger.isWarnEnabled()) {
+					logger.warn("Ejected the FTP host " + this.host + " for "
+							+ LoadBalancingFtpSessionFactory.this.ejectionDuration + "ms after "
+							+ this.failures.get() + " consecutive failures", e);
+				}
+			}
+		}
+
+	}
+
+	private static final class BalancedSession extends DelegatingFtpSession {
+
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private final Member member;
+
+		BalancedSession(Session<FTPFile> delegate, Member member) {
+			super(delegate);
+			this.member = member;
+		}
+
+		@Override
+		protected <T> T execute(String operation, String path, Operation<T> action) throws IOException {
+			try {
+				T result = action.run();
+				this.member.succeeded();
+				return result;
+			}
+			catch (IOException | RuntimeException e) {
+				this.member.failed(e);
+				throw e;
+			}
+		}
+
+		@Override
+		public void close() {
+			if (this.released.compareAndSet(false, true)) {
+				this.member.outstanding.decrementAndGet();
+			}
+			super.close();
+		}
+
+	}
+
+}
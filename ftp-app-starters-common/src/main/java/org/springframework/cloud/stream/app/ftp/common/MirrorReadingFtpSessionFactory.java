@@ -0,0 +1,374 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.commons.net.ftp.FTPFile;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+
+/**
+ * A {@link SessionFactory} whose sessions run the operations on a primary server, except
+ * the file reads, which go to the mirror with the best measured throughput. A mirror is
+ * measured again once its measurement is older than the refresh interval, and a read
+ * which fails before any byte is received falls back to the next mirror, then to the
+ * primary server; a mirror is skipped for a while after consecutive failures.
+ * <p>
+ * A mirror may lag behind the primary server: before reading from a mirror, the size of
+ * its copy is compared with the size listed by the primary server, taken from the last
+ * listing of the session or listed for the occasion, and a different copy falls back to
+ * the next server. A read which ends with another number of bytes fails, as its bytes
+ * were already written, so that the caller rolls the file back and fetches it again.
+ * <p>
+ * The servers are exposed with the {@code ftp.session.mirror.latency} timer (time to the
+ * first byte), the {@code ftp.session.mirror.throughput} gauge (moving average, in bytes
+ * per second) and the {@code ftp.session.mirror.fallbacks} counter, tagged with the host.
+ */
+public class MirrorReadingFtpSessionFactory implements SessionFactory<FTPFile>, DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(MirrorReadingFtpSessionFactory.class);
+
+	/**
+	 * The weight of the last measurement in the throughput moving average.
+	 */
+	private static final double SMOOTHING = 0.3;
+
+	private final SessionFactory<FTPFile> primaryFactory;
+
+	private final Mirror primary;
+
+	private final List<Mirror> mirrors = new ArrayList<>();
+
+	private final long refreshInterval;
+
+	private final int consecutiveFailures;
+
+	private final long backoff;
+
+	/**
+	 * Create an instance.
+	 * @param primaryHost the host of the primary server.
+	 * @param primaryFactory the session factory of the primary server.
+	 * @param mirrorFactories the session factories of the mirrors, by host.
+	 * @param properties the hosts properties.
+	 * @param meterRegistry the registry of the meters.
+	 */
+	public MirrorReadingFtpSessionFactory(String primaryHost, SessionFactory<FTPFile> primaryFactory,
+			Map<String, SessionFactory<FTPFile>> mirrorFactories, FtpHostsProperties properties,
+			MeterRegistry meterRegistry) {
+
+		this.primaryFactory = primaryFactory;
+		this.primary = new Mirror(primaryHost, primaryFactory, meterRegistry);
+		mirrorFactories.forEach((host, factory) -> this.mirrors.add(new Mirror(host, factory, meterRegistry)));
+		this.refreshInterval = properties.getThroughputRefreshInterval().toMillis();
+		this.consecutiveFailures = properties.getEjection().getConsecutiveFailures();
+		this.backoff = properties.getEjection().getDuration().toMillis();
+	}
+
+	@Override
+	public Session<FTPFile> getSession() {
+		return new MirrorReadingSession(this.primaryFactory.getSession());
+	}
+
+	/**
+	 * The moving average of the throughput measured on a server.
+	 * @param host the host, as given to the constructor.
+	 * @return the throughput in bytes per second, 0 when not measured yet.
+	 */
+	public double getThroughput(String host) {
+		return this.mirrors.stream()
+				.filter(mirror -> mirror.host.equals(host))
+				.mapToDouble(mirror -> mirror.throughput)
+				.findFirst()
+				.orElse(this.primary.host.equals(host) ? this.primary.throughput : 0);
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if (this.primaryFactory instanceof DisposableBean) {
+			((DisposableBean) this.primaryFactory).destroy();
+		}
+		for (Mirror mirror : this.mirrors) {
+			if (mirror.factory instanceof DisposableBean) {
+				((DisposableBean) mirror.factory).destroy();
+			}
+		}
+	}
+
+	/**
+	 * The mirrors to read from, in order: the ones to measure again first, then the others
+	 * by decreasing throughput; the mirrors backing off after failures are left out.
+	 */
+	private List<Mirror> candidates() {
+		long now = System.currentTimeMillis();
+		List<Mirror> candidates = new ArrayList<>();
+		for (Mirror mirror : this.mirrors) {
+			if (now >= mirror.backoffUntil) {
+				candidates.add(mirror);
+			}
+		}
+		candidates.sort(Comparator.comparing((Mirror mirror) -> now - mirror.measuredAt < this.refreshInterval)
+				.thenComparing(Comparator.comparingDouble((Mirror mirror) -> mirror.throughput).reversed()));
+		return candidates;
+	}
+
+	private final class Mirror {
+
+		private final String host;
+
+		private final SessionFactory<FTPFile> factory;
+
+		private final Timer latency;
+
+		private final Counter fallbacks;
+
+		private final AtomicInteger failures = new AtomicInteger();
+
+		private volatile double throughput;
+
+		private volatile long measuredAt;
+
+		private volatile long backoffUntil;
+
+		Mirror(String host, SessionFactory<FTPFile> factory, MeterRegistry meterRegistry) {
+			this.host = host;
+			this.factory = factory;
+			this.latency = Timer.builder("ftp.session.mirror.latency")
+					.description("The time to the first byte of the file reads")
+					.tag("host", host)
+					.register(meterRegistry);
+			Gauge.builder("ftp.session.mirror.throughput", this, mirror -> mirror.throughput)
+					.description("The moving average of the read throughput")
+					.baseUnit("bytes")
+					.tag("host", host)
+					.register(meterRegistry);
+			this.fallbacks = Counter.builder("ftp.session.mirror.fallbacks")
+					.description("The reads which failed on the host and were retried on another one")
+					.tag("host", host)
+					.register(meterRegistry);
+		}
+
+		/**
+		 * Read a file.
+		 * @param session the session on this server.
+		 * @param source the remote path.
+		 * @param outputStream the target stream.
+		 * @param expectedSize the size listed by the primary server, -1 if unknown or
+		 * when reading from the primary server itself.
+		 */
+		void read(Session<FTPFile> session, String source, OutputStream outputStream, long expectedSize)
+				throws IOException {
+
+			MeasuringOutputStream measuringOutputStream = new MeasuringOutputStream(outputStream);
+			try {
+				if (expectedSize >= 0) {
+					FTPFile[] files = session.list(source);
+					long size = files != null && files.length == 1 && files[0] != null ? files[0].getSize() : -1;
+					if (size != expectedSize) {
+						throw new IOException("The copy of " + source + " on " + this.host + " has " + size
+								+ " bytes instead of " + expectedSize);
+					}
+				}
+				session.read(source, measuringOutputStream);
+			}
+			catch (IOException | RuntimeException e) {
+				failed();
+				if (measuringOutputStream.count > 0) {
+					throw e;
+				}
+				throw new FallbackException(e);
+			}
+			if (expectedSize >= 0 && measuringOutputStream.count != expectedSize) {
+				failed();
+				throw new IOException("Read " + measuringOutputStream.count + " bytes of " + source + " from "
+						+ this.host + " instead of " + expectedSize);
+			}
+			this.failures.set(0);
+			long elapsed = System.nanoTime() - measuringOutputStream.start;
+			if (measuringOutputStream.firstByte > 0) {
+				this.latency.record(measuringOutputStream.firstByte - measuringOutputStream.start, TimeUnit.NANOSECONDS);
+			}
+			double measured = measuringOutputStream.count * 1e9 / Math.max(elapsed, 1);
+			this.throughput = this.measuredAt == 0 ? measured : SMOOTHING * measured + (1 - SMOOTHING) * this.throughput;
+			this.measuredAt = System.currentTimeMillis();
+		}
+
+		void failed() {
+			if (this.failures.incrementAndGet() >= MirrorReadingFtpSessionFactory.this.consecutiveFailures) {
+				this.backoffUntil = System.currentTimeMillis() + MirrorReadingFtpSessionFactory.this.backoff;
+			}
+		}
+
+	}
+
+	private final class MirrorReadingSession extends DelegatingFtpSession {
+
+		/**
+		 * The sizes of the files of the last listing on the primary server, by name.
+		 */
+		private final Map<String, Long> listedSizes = new HashMap<>();
+
+		MirrorReadingSession(Session<FTPFile> delegate) {
+			super(delegate);
+		}
+
+		@Override
+		public FTPFile[] list(String path) throws IOException {
+			FTPFile[] files = super.list(path);
+			this.listedSizes.clear();
+			if (files != null) {
+				for (FTPFile file : files) {
+					if (file != null && file.isFile()) {
+						this.listedSizes.put(fileName(file.getName()), file.getSize());
+					}
+				}
+			}
+			return files;
+		}
+
+		@Override
+		public void read(String source, OutputStream outputStream) throws IOException {
+			List<Throwable> failures = new ArrayList<>();
+			List<Mirror> candidates = candidates();
+			long expectedSize = candidates.isEmpty() ? -1 : expectedSize(source);
+			for (Mirror mirror : candidates) {
+				Session<FTPFile> session;
+				try {
+					session = mirror.factory.getSession();
+				}
+				catch (RuntimeException e) {
+					mirror.failed();
+					fallback(mirror, source, e, failures);
+					continue;
+				}
+				try {
+					mirror.read(session, source, outputStream, expectedSize);
+					return;
+				}
+				catch (FallbackException e) {
+					fallback(mirror, source, e.getCause(), failures);
+				}
+				finally {
+					session.close();
+				}
+			}
+			try {
+				MirrorReadingFtpSessionFactory.this.primary.read(getDelegate(), source, outputStream, -1);
+			}
+			catch (FallbackException e) {
+				IOException failure = e.getCause() instanceof IOException
+						? (IOException) e.getCause()
+						: new IOException("Failed to read " + source, e.getCause());
+				failures.forEach(failure::addSuppressed);
+				throw failure;
+			}
+		}
+
+		private long expectedSize(String source) throws IOException {
+			Long size = this.listedSizes.get(fileName(source));
+			if (size == null) {
+				FTPFile[] files = getDelegate().list(source);
+				return files != null && files.length == 1 && files[0] != null && files[0].isFile()
+						? files[0].getSize()
+						: -1;
+			}
+			return size;
+		}
+
+		private void fallback(Mirror mirror, String source, Throwable cause, List<Throwable> failures) {
+			mirror.fallbacks.increment();
+			failures.add(cause);
+			if (logger.isWarnEnabled()) {
+				logger.warn("Failed to read " + source + " from " + mirror.host + "; falling back", cause);
+			}
+		}
+
+	}
+
+	private static String fileName(String path) {
+		return path.substring(path.lastIndexOf('/') + 1);
+	}
+
+	/**
+	 * A read failure before any byte was written to the target stream, which can thus be
+	 * retried on another server.
+	 */
+	@SuppressWarnings("serial")
+	private static final class FallbackException extends IOException {
+
+		FallbackException(Throwable cause) {
+			super(cause);
+		}
+
+	}
+
+	private static final class MeasuringOutputStream extends FilterOutputStream {
+
+		private final long start = System.nanoTime();
+
+		private long firstByte;
+
+		private long count;
+
+		MeasuringOutputStream(OutputStream outputStream) {
+			super(outputStream);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			received(1);
+			this.out.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			received(len);
+			this.out.write(b, off, len);
+		}
+
+		@Override
+		public void close() {
+			// the target stream is owned by the caller
+		}
+
+		private void received(int length) {
+			if (this.firstByte == 0) {
+				this.firstByte = System.nanoTime();
+			}
+			this.count += length;
+		}
+
+	}
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+
+/**
+ * A {@link SessionFactory} borrowing the sessions from a bounded pool. The idle sessions
+ * are kept alive with a {@code NOOP} and closed once they have been idle for too long; a
+ * session which failed an operation is closed instead of being returned to the pool.
+ * <p>
+ * The pool is exposed with the {@code ftp.session.pool.active}, {@code idle} and
+ * {@code waiters} gauges, and the {@code ftp.session.pool.borrow} timer.
+ */
+public class PooledFtpSessionFactory implements SessionFactory<FTPFile>, DisposableBean {
+
+	private final GenericObjectPool<Session<FTPFile>> pool;
+
+	private final long borrowTimeout;
+
+	private final Timer borrowTimer;
+
+	public PooledFtpSessionFactory(SessionFactory<FTPFile> targetFactory, FtpSessionPoolProperties properties,
+			String host, MeterRegistry meterRegistry) {
+
+		GenericObjectPoolConfig<Session<FTPFile>> config = new GenericObjectPoolConfig<>();
+		config.setMaxTotal(properties.getMaxSize());
+		config.setMaxIdle(properties.getMaxSize());
+		config.setMinIdle(properties.getMinIdle());
+		config.setTestOnBorrow(properties.isTestOnBorrow());
+		config.setTestWhileIdle(true);
+		config.setTimeBetweenEvictionRunsMillis(properties.getKeepAliveInterval().toMillis());
+		config.setNumTestsPerEvictionRun(-1);
+		config.setSoftMinEvictableIdleTimeMillis(properties.getIdleTimeout().toMillis());
+		config.setMinEvictableIdleTimeMillis(-1);
+		config.setJmxEnabled(false);
+		this.pool = new GenericObjectPool<>(new SessionPooledObjectFactory(targetFactory), config);
+		this.borrowTimeout = properties.getBorrowTimeout().toMillis();
+
+		Gauge.builder("ftp.session.pool.active", this.pool, GenericObjectPool::getNumActive)
+				.description("The FTP sessions in use")
+				.tag("host", host)
+				.register(meterRegistry);
+		Gauge.builder("ftp.session.pool.idle", this.pool, GenericObjectPool::getNumIdle)
+				.description("The idle FTP sessions")
+				.tag("host", host)
+				.register(meterRegistry);
+		Gauge.builder("ftp.session.pool.waiters", this.pool, GenericObjectPool::getNumWaiters)
+				.description("The threads waiting for an FTP session")
+				.tag("host", host)
+				.register(meterRegistry);
+		this.borrowTimer = Timer.builder("ftp.session.pool.borrow")
+				.description("The time spent waiting for an FTP session")
+				.tag("host", host)
+				.register(meterRegistry);
+	}
+
+	@Override
+	public Session<FTPFile> getSession() {
+		long start = System.nanoTime();
+		try {
+			return new PooledSession(this.pool.borrowObject(this.borrowTimeout));
+		}
+		catch (NoSuchElementException e) {
+			throw new IllegalStateException("Timed out after " + this.borrowTimeout
+					+ "ms waiting for an FTP session; " + this.pool.getNumActive() + " are in use", e);
+		}
+		catch (RuntimeException e) {
+			throw e;
+		}
+		catch (Exception e) {
+			throw new IllegalStateException("Failed to obtain an FTP session", e);
+		}
+		finally {
+			this.borrowTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	public int getActiveCount() {
+		return this.pool.getNumActive();
+	}
+
+	public int getIdleCount() {
+		return this.pool.getNumIdle();
+	}
+
+	@Override
+	public void destroy() {
+		this.pool.close();
+	}
+
+	private static final class SessionPooledObjectFactory extends BasePooledObjectFactory<Session<FTPFile>> {
+
+		private final SessionFactory<FTPFile> targetFactory;
+
+		SessionPooledObjectFactory(SessionFactory<FTPFile> targetFactory) {
+			this.targetFactory = targetFactory;
+		}
+
+		@Override
+		public Session<FTPFile> create() {
+			return this.targetFactory.getSession();
+		}
+
+		@Override
+		public PooledObject<Session<FTPFile>> wrap(Session<FTPFile> session) {
+			return new DefaultPooledObject<>(session);
+		}
+
+		@Override
+		public boolean validateObject(PooledObject<Session<FTPFile>> pooledObject) {
+			FTPClient client = (FTPClient) pooledObject.getObject().getClientInstance();
+			try {
+				return client.isConnected() && client.sendNoOp();
+			}
+			catch (IOException e) {
+				return false;
+			}
+		}
+
+		@Override
+		public void destroyObject(PooledObject<Session<FTPFile>> pooledObject) {
+			pooledObject.getObject().close();
+		}
+
+	}
+
+	private final class PooledSession extends DelegatingFtpSession {
+
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private volatile boolean dirty;
+
+		PooledSession(Session<FTPFile> delegate) {
+			super(delegate);
+		}
+
+		@Override
+		protected <T> T execute(String operation, String path, Operation<T> action) throws IOException {
+			try {
+				return action.run();
+			}
+			catch (IOException | RuntimeException e) {
+				this.dirty = true;
+				throw e;
+			}
+		}
+
+		@Override
+		public void invalidate() {
+			this.dirty = true;
+			super.invalidate();
+		}
+
+		@Override
+		public void close() {
+			if (this.released.compareAndSet(false, true)) {
+				if (this.dirty) {
+					try {
+						PooledFtpSessionFactory.this.pool.invalidateObject(getDelegate());
+					}
+					catch (Exception e) {
+						getDelegate().close();
+					}
+				}
+				else {
+					PooledFtpSessionFactory.this.pool.returnObject(getDelegate());
+				}
+			}
+		}
+
+		@Override
+		public boolean isOpen() {
+			return !this.released.get() && super.isOpen();
+		}
+
+	}
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Arrays;
+
+import javax.net.ServerSocketFactory;
+import javax.net.SocketFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+
+import org.apache.commons.net.ftp.FTPSClient;
+
+/**
+ * An {@link FTPSClient} resuming the TLS session of the control connection on the data
+ * connections, as required by servers such as vsftpd with {@code require_ssl_reuse}, and
+ * to avoid a full handshake per transfer.
+ * <p>
+ * {@link FTPSClient} opens the private data connections with TLS sockets connected to the
+ * data port, so the JSSE session cache, keyed by peer host and port, never finds the
+ * control session. Here the data connections are opened in clear and layered with TLS
+ * under the peer host and port of the control session, so that the handshake resumes it.
+ */
+public class SessionReusingFtpsClient extends FTPSClient {
+
+	private final SSLContext sslContext;
+
+	private final boolean sessionReuse;
+
+	private final String[] enabledProtocols;
+
+	private boolean protectData;
+
+	private long dataConnections;
+
+	private long resumedDataConnections;
+
+	public SessionReusingFtpsClient(boolean implicit, SSLContext sslContext, boolean sessionReuse,
+			String[] enabledProtocols) {
+
+		super(implicit, sslContext);
+		this.sslContext = sslContext;
+		this.sessionReuse = sessionReuse;
+		this.enabledProtocols = enabledProtocols;
+	}
+
+	@Override
+	public void execPROT(String prot) throws SSLException, IOException {
+		SocketFactory socketFactory = this._socketFactory_;
+		ServerSocketFactory serverSocketFactory = this._serverSocketFactory_;
+		super.execPROT(prot);
+		this.protectData = "P".equals(prot);
+		if (!this.protectData || this.sessionReuse) {
+			setSocketFactory(socketFactory);
+			setServerSocketFactory(serverSocketFactory);
+		}
+	}
+
+	@Override
+	protected Socket _openDataConnection_(String command, String arg) throws IOException {
+		Socket socket = super._openDataConnection_(command, arg);
+		if (socket == null || socket instanceof SSLSocket || !this.protectData || !this.sessionReuse) {
+			return socket;
+		}
+		SSLSession controlSession = ((SSLSocket) this._socket_).getSession();
+		SSLSocket sslSocket = null;
+		try {
+			sslSocket = (SSLSocket) this.sslContext.getSocketFactory()
+					.createSocket(socket, controlSession.getPeerHost(), controlSession.getPeerPort(), true);
+			sslSocket.setUseClientMode(true);
+			if (this.enabledProtocols != null) {
+				sslSocket.setEnabledProtocols(this.enabledProtocols);
+			}
+			sslSocket.startHandshake();
+		}
+		catch (IOException e) {
+			(sslSocket != null ? sslSocket : socket).close();
+			throw e;
+		}
+		this.dataConnections++;
+		if (Arrays.equals(controlSession.getId(), sslSocket.getSession().getId())) {
+			this.resumedDataConnections++;
+		}
+		return sslSocket;
+	}
+
+	/**
+	 * The number of private data connections opened by this client.
+	 * @return the data connection count.
+	 */
+	public long getDataConnections() {
+		return this.dataConnections;
+	}
+
+	/**
+	 * The number of private data connections which resumed the control session.
+	 * @return the resumed data connection count.
+	 */
+	public long getResumedDataConnections() {
+		return this.resumedDataConnections;
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.TimeGauge;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+
+/**
+ * Publishes the time from the start of the JVM until the app is ready as the
+ * {@code ftp.app.startup} gauge and, for the training runs which record the classes of a
+ * class data sharing archive, exits the app once it is ready.
+ */
+public class StartupTimeRecorder implements ApplicationListener<ApplicationReadyEvent> {
+
+	private static final Log logger = LogFactory.getLog(StartupTimeRecorder.class);
+
+	private final FtpMetrics ftpMetrics;
+
+	private final boolean exitWhenReady;
+
+	private volatile long startupTime = -1;
+
+	public StartupTimeRecorder(FtpMetrics ftpMetrics, boolean exitWhenReady) {
+		this.ftpMetrics = ftpMetrics;
+		this.exitWhenReady = exitWhenReady;
+	}
+
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		if (this.startupTime < 0) {
+			this.startupTime = ManagementFactory.getRuntimeMXBean().getUptime();
+			TimeGauge.builder("ftp.app.startup", this, TimeUnit.MILLISECONDS, StartupTimeRecorder::getStartupTime)
+					.description("The time from the start of the JVM until the app was ready")
+					.register(this.ftpMetrics.getMeterRegistry());
+			if (logger.isInfoEnabled()) {
+				logger.info("Ready " + this.startupTime + "ms after the start of the JVM");
+			}
+		}
+		if (this.exitWhenReady) {
+			logger.info("Exiting after the startup, as requested by 'ftp.startup.exit-when-ready'");
+			System.exit(SpringApplication.exit(event.getApplicationContext()));
+		}
+	}
+
+	public long getStartupTime() {
+		return this.startupTime;
+	}
+
+}
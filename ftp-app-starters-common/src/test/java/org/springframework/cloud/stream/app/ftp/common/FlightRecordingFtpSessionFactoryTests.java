@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+
+public class FlightRecordingFtpSessionFactoryTests {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void operationsAreRecorded() throws Exception {
+		Session<FTPFile> session = mock(Session.class);
+		when(session.list(anyString())).thenReturn(new FTPFile[0]);
+		doAnswer(read -> {
+			((OutputStream) read.getArguments()[1]).write(new byte[512]);
+			return null;
+		}).when(session).read(eq("/in/data.bin"), any(OutputStream.class));
+		SessionFactory<FTPFile> targetFactory = mock(SessionFactory.class);
+		when(targetFactory.getSession()).thenReturn(session);
+		FlightRecordingFtpSessionFactory factory =
+				new FlightRecordingFtpSessionFactory(targetFactory, "localhost:21", false);
+
+		Path dump = this.temporaryFolder.newFile("ftp.jfr").toPath();
+		try (Recording recording = new Recording()) {
+			recording.enable("org.springframework.cloud.stream.app.ftp.Operation");
+			recording.enable("org.springframework.cloud.stream.app.ftp.Session");
+			recording.start();
+			try (Session<FTPFile> ftpSession = factory.getSession()) {
+				ftpSession.list("/in");
+				ftpSession.read("/in/data.bin", new ByteArrayOutputStream());
+			}
+			recording.stop();
+			recording.dump(dump);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(dump).stream()
+				.filter(event -> event.getEventType().getName().startsWith("org.springframework.cloud.stream.app.ftp"))
+				.collect(Collectors.toList());
+		assertEquals(3, events.size());
+		assertEquals("create", events.get(0).getString("kind"));
+		assertEquals("LIST", events.get(1).getString("command"));
+		assertEquals(-1, events.get(1).getLong("bytes"));
+		assertEquals("RETR", events.get(2).getString("command"));
+		assertEquals("/in/data.bin", events.get(2).getString("path"));
+		assertEquals(512, events.get(2).getLong("bytes"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void sessionsAreNotWrappedWhenPooled() throws IOException {
+		Session<FTPFile> session = mock(Session.class);
+		SessionFactory<FTPFile> targetFactory = mock(SessionFactory.class);
+		when(targetFactory.getSession()).thenReturn(session);
+		FlightRecordingFtpSessionFactory factory =
+				new FlightRecordingFtpSessionFactory(targetFactory, "localhost:21", true);
+		assertEquals(session, factory.getSession());
+	}
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.InetAddress;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.junit.Test;
+
+public class FtpServerHashCommandsTests {
+
+	private final FtpServerHashCommands commands = new FtpServerHashCommands();
+
+	@Test
+	public void commandsAreProbedOncePerServer() throws Exception {
+		FTPClient withHash = client("10.0.0.1", "HASH");
+		FTPClient withoutHash = client("10.0.0.2", null);
+
+		assertThat(this.commands.supportedCommand(withHash), equalTo("HASH"));
+		assertThat(this.commands.supportedCommand(withoutHash), equalTo(""));
+		assertThat(this.commands.supportedCommand(withHash), equalTo("HASH"));
+		assertThat(this.commands.supportedCommand(withoutHash), equalTo(""));
+
+		verify(withHash, times(1)).features();
+		verify(withoutHash, times(1)).features();
+	}
+
+	private static FTPClient client(String address, String feature) throws Exception {
+		FTPClient client = mock(FTPClient.class);
+		when(client.getRemoteAddress()).thenReturn(InetAddress.getByName(address));
+		when(client.getRemotePort()).thenReturn(21);
+		when(client.features()).thenReturn(true);
+		if (feature != null) {
+			when(client.hasFeature(feature)).thenReturn(true);
+		}
+		return client;
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.util.ClassUtils;
+
+public class FtpTaskExecutorTests {
+
+	private final FtpTaskExecutor taskExecutor = new FtpTaskExecutor("ftp-test-", 2);
+
+	@After
+	public void tearDown() {
+		this.taskExecutor.destroy();
+	}
+
+	@Test
+	public void usesVirtualThreadsWhenSupported() {
+		assertEquals(ClassUtils.hasMethod(Thread.class, "ofVirtual"), this.taskExecutor.isVirtual());
+	}
+
+	@Test
+	public void concurrencyIsBounded() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(2);
+		AtomicInteger completed = new AtomicInteger();
+		Runnable task = () -> {
+			started.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			completed.incrementAndGet();
+		};
+		this.taskExecutor.execute(task);
+		this.taskExecutor.execute(task);
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+
+		CountDownLatch submitted = new CountDownLatch(1);
+		Thread submitter = new Thread(() -> {
+			this.taskExecutor.execute(completed::incrementAndGet);
+			submitted.countDown();
+		});
+		submitter.start();
+		assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+
+		release.countDown();
+		assertTrue(submitted.await(10, TimeUnit.SECONDS));
+		submitter.join(10_000);
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (completed.get() < 3 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(3, completed.get());
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.util.StreamUtils;
+
+public class InstrumentedFtpSessionFactoryTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final FtpMetricsProperties properties = new FtpMetricsProperties();
+
+	private SessionFactory<FTPFile> targetFactory;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setup() throws IOException {
+		Session<FTPFile> session = mock(Session.class);
+		when(session.list(anyString())).thenReturn(new FTPFile[0]);
+		when(session.list("/missing")).thenThrow(new IOException("No such directory"));
+		doAnswer(read -> {
+			((OutputStream) read.getArguments()[1]).write(new byte[2048]);
+			return null;
+		}).when(session).read(eq("/in/data.bin"), any(OutputStream.class));
+		doAnswer(write -> {
+			StreamUtils.copyToByteArray((InputStream) write.getArguments()[0]);
+			return null;
+		}).when(session).write(any(InputStream.class), eq("/out/data.bin"));
+		this.targetFactory = mock(SessionFactory.class);
+		when(this.targetFactory.getSession()).thenReturn(session);
+	}
+
+	@Test
+	public void operationsAreTimed() throws IOException {
+		InstrumentedFtpSessionFactory factory = new InstrumentedFtpSessionFactory(this.targetFactory, "localhost:21",
+				new FtpMetrics(this.meterRegistry, this.properties));
+		try (Session<FTPFile> session = factory.getSession()) {
+			session.list("/in");
+			try {
+				session.list("/missing");
+				fail("IOException expected");
+			}
+			catch (IOException e) {
+				assertEquals("No such directory", e.getMessage());
+			}
+			session.read("/in/data.bin", new ByteArrayOutputStream());
+			session.write(new ByteArrayInputStream(new byte[100]), "/out/data.bin");
+		}
+
+		assertEquals(1, this.meterRegistry.get("ftp.session.connect").tag("host", "localhost:21").timer().count());
+		assertEquals(1, this.meterRegistry.get("ftp.session.operation").tag("operation", "list")
+				.tag("remoteDir", "/in").tag("outcome", "success").timer().count());
+		assertEquals(1, this.meterRegistry.get("ftp.session.operation").tag("operation", "list")
+				.tag("remoteDir", "/missing").tag("outcome", "failure").timer().count());
+		assertEquals(1, this.meterRegistry.get("ftp.session.operation").tag("operation", "read")
+				.tag("remoteDir", "/in").timer().count());
+		assertEquals(2048, this.meterRegistry.get("ftp.session.transfer.bytes").tag("operation", "read")
+				.summary().totalAmount(), 0);
+		assertEquals(100, this.meterRegistry.get("ftp.session.transfer.bytes").tag("operation", "write")
+				.tag("remoteDir", "/out").summary().totalAmount(), 0);
+		assertEquals(1, this.meterRegistry.get("ftp.session.transfer.rate").tag("operation", "read")
+				.summary().count());
+	}
+
+	@Test
+	public void remoteDirTagsAreBounded() throws IOException {
+		this.properties.setMaxRemoteDirTags(2);
+		InstrumentedFtpSessionFactory factory = new InstrumentedFtpSessionFactory(this.targetFactory, "localhost:21",
+				new FtpMetrics(this.meterRegistry, this.properties));
+		try (Session<FTPFile> session = factory.getSession()) {
+			for (int i = 0; i < 5; i++) {
+				session.list("/in/" + i);
+			}
+			session.list("/in/0");
+		}
+
+		assertEquals(2, this.meterRegistry.get("ftp.session.operation").tag("remoteDir", "/in/0").timer().count());
+		assertEquals(1, this.meterRegistry.get("ftp.session.operation").tag("remoteDir", "/in/1").timer().count());
+		assertEquals(3, this.meterRegistry.get("ftp.session.operation").tag("remoteDir", "other").timer().count());
+		assertEquals(3, this.meterRegistry.get("ftp.session.operation").timers().size());
+	}
+
+	@Test
+	public void disabledMetricsAreNotRecorded() throws IOException {
+		this.properties.setEnabled(false);
+		InstrumentedFtpSessionFactory factory = new InstrumentedFtpSessionFactory(this.targetFactory, "localhost:21",
+				new FtpMetrics(this.meterRegistry, this.properties));
+		try (Session<FTPFile> session = factory.getSession()) {
+			session.list("/in");
+		}
+		assertNull(this.meterRegistry.find("ftp.session.operation").timer());
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.messaging.MessageHandler;
+
+public class LazyInitializationBeanFactoryPostProcessorTests {
+
+	private static final AtomicBoolean created = new AtomicBoolean();
+
+	private final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+
+	@After
+	public void tearDown() {
+		this.context.close();
+	}
+
+	@Test
+	public void onlyTheBeansTheAppNeedsAreEager() {
+		created.set(false);
+		this.context.register(Conf.class);
+		this.context.refresh();
+		ConfigurableListableBeanFactory beanFactory = this.context.getBeanFactory();
+		assertTrue(beanFactory.getBeanDefinition("plain").isLazyInit());
+		assertFalse(beanFactory.getBeanDefinition("lifecycle").isLazyInit());
+		assertFalse(beanFactory.getBeanDefinition("handler").isLazyInit());
+		assertFalse(beanFactory.getBeanDefinition("lazyInitializationBeanFactoryPostProcessorTests.Conf")
+				.isLazyInit());
+		assertFalse(created.get());
+		this.context.getBean("plain");
+		assertTrue(created.get());
+	}
+
+	@Configuration
+	static class Conf {
+
+		@Bean
+		static LazyInitializationBeanFactoryPostProcessor lazyInitialization() {
+			return new LazyInitializationBeanFactoryPostProcessor();
+		}
+
+		@Bean
+		Object plain() {
+			created.set(true);
+			return new Object();
+		}
+
+		@Bean
+		SmartLifecycle lifecycle() {
+			return new SmartLifecycle() {
+
+				private volatile boolean running;
+
+				@Override
+				public void start() {
+					this.running = true;
+				}
+
+				@Override
+				public void stop() {
+					this.running = false;
+				}
+
+				@Override
+				public boolean isRunning() {
+					return this.running;
+				}
+
+			};
+		}
+
+		@Bean
+		@ServiceActivator(inputChannel = "input")
+		MessageHandler handler() {
+			return message -> { };
+		}
+
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+
+public class LoadBalancingFtpSessionFactoryTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final Map<String, SessionFactory<FTPFile>> factories = new LinkedHashMap<>();
+
+	private final FtpHostsProperties properties = new FtpHostsProperties();
+
+	@Before
+	public void setup() throws IOException {
+		for (String host : new String[] { "mirror1:21", "mirror2:21", "mirror3:21" }) {
+			this.factories.put(host, sessionFactory(host));
+		}
+		this.properties.getEjection().setConsecutiveFailures(2);
+		this.properties.getEjection().setDuration(Duration.ofMillis(200));
+	}
+
+	@Test
+	public void roundRobin() {
+		this.properties.setHostSelection(FtpHostsProperties.HostSelection.ROUND_ROBIN);
+		LoadBalancingFtpSessionFactory factory = factory();
+		assertEquals("mirror1:21", open(factory));
+		assertEquals("mirror2:21", open(factory));
+		assertEquals("mirror3:21", open(factory));
+		assertEquals("mirror1:21", open(factory));
+	}
+
+	@Test
+	public void leastOutstanding() {
+		LoadBalancingFtpSessionFactory factory = factory();
+		Session<FTPFile> first = factory.getSession();
+		Session<FTPFile> second = factory.getSession();
+		Session<FTPFile> third = factory.getSession();
+		assertEquals(1, this.meterRegistry.get("ftp.session.host.outstanding").tag("host", "mirror2:21").gauge()
+				.value(), 0);
+		second.close();
+		second.close();
+		assertEquals(second.getClientInstance(), factory.getSession().getClientInstance());
+		first.close();
+		third.close();
+	}
+
+	@Test
+	public void failingHostIsEjectedAndReadmitted() throws Exception {
+		this.properties.setHostSelection(FtpHostsProperties.HostSelection.ROUND_ROBIN);
+		SessionFactory<FTPFile> failing = this.factories.get("mirror1:21");
+		when(failing.getSession()).thenThrow(new IllegalStateException("Connection refused"));
+		LoadBalancingFtpSessionFactory factory = factory();
+		for (int i = 0; i < 10 && factory.isHealthy("mirror1:21"); i++) {
+			assertNotEquals("mirror1:21", open(factory));
+		}
+		assertFalse(factory.isHealthy("mirror1:21"));
+		assertEquals(1, this.meterRegistry.get("ftp.session.host.ejections").tag("host", "mirror1:21").counter()
+				.count(), 0);
+		for (int i = 0; i < 6; i++) {
+			assertNotEquals("mirror1:21", open(factory));
+		}
+		Thread.sleep(300);
+		assertTrue(factory.isHealthy("mirror1:21"));
+	}
+
+	@Test
+	public void affinityKeyAlwaysSelectsTheSameHost() {
+		LoadBalancingFtpSessionFactory factory = factory();
+		factory.setAffinityKey("data.csv");
+		String host = open(factory);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(host, open(factory));
+		}
+		factory.clearAffinityKey();
+	}
+
+	@Test
+	public void failedOperationsEjectTheHost() throws IOException {
+		LoadBalancingFtpSessionFactory factory = factory();
+		factory.setAffinityKey("data.csv");
+		String host = open(factory);
+		for (int i = 0; i < 2; i++) {
+			try (Session<FTPFile> session = factory.getSession()) {
+				session.list("/");
+				fail("IOException expected");
+			}
+			catch (IOException e) {
+				// expected
+			}
+		}
+		assertFalse(factory.isHealthy(host));
+		assertEquals(host, open(factory));
+	}
+
+	private LoadBalancingFtpSessionFactory factory() {
+		return new LoadBalancingFtpSessionFactory(this.factories, this.properties, this.meterRegistry);
+	}
+
+	private static String open(LoadBalancingFtpSessionFactory factory) {
+		try (Session<FTPFile> session = factory.getSession()) {
+			return (String) session.getClientInstance();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static SessionFactory<FTPFile> sessionFactory(String host) throws IOException {
+		SessionFactory<FTPFile> sessionFactory = mock(SessionFactory.class);
+		when(sessionFactory.getSession()).thenAnswer(invocation -> {
+			Session<FTPFile> session = mock(Session.class);
+			when(session.getClientInstance()).thenReturn(host);
+			when(session.list(anyString())).thenThrow(new IOException("Connection reset"));
+			return session;
+		});
+		return sessionFactory;
+	}
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.Test;
+
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+
+public class MirrorReadingFtpSessionFactoryTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final List<String> reads = new ArrayList<>();
+
+	private final List<String> lists = new ArrayList<>();
+
+	@Test
+	public void readsGoToTheFastestMirror() throws IOException {
+		Map<String, SessionFactory<FTPFile>> mirrors = new LinkedHashMap<>();
+		mirrors.put("slow:21", sessionFactory("slow:21", 50, false));
+		mirrors.put("fast:21", sessionFactory("fast:21", 0, false));
+		MirrorReadingFtpSessionFactory factory = factory(mirrors);
+
+		for (int i = 0; i < 4; i++) {
+			assertEquals("content", read(factory));
+		}
+		assertEquals("[slow:21, fast:21, fast:21, fast:21]", this.reads.toString());
+		assertTrue(factory.getThroughput("fast:21") > factory.getThroughput("slow:21"));
+		assertEquals(1, this.meterRegistry.get("ftp.session.mirror.latency").tag("host", "slow:21").timer().count());
+
+		try (Session<FTPFile> session = factory.getSession()) {
+			session.list("/");
+		}
+		assertEquals("primary:21", this.lists.get(this.lists.size() - 1));
+	}
+
+	@Test
+	public void failedReadsFallBack() throws IOException {
+		Map<String, SessionFactory<FTPFile>> mirrors = new LinkedHashMap<>();
+		mirrors.put("failing:21", sessionFactory("failing:21", 0, true));
+		MirrorReadingFtpSessionFactory factory = factory(mirrors);
+
+		assertEquals("content", read(factory));
+		assertEquals("[failing:21, primary:21]", this.reads.toString());
+		assertEquals(1, this.meterRegistry.get("ftp.session.mirror.fallbacks").tag("host", "failing:21").counter()
+				.count(), 0);
+	}
+
+	@Test
+	public void laggingMirrorsFallBack() throws IOException {
+		Map<String, SessionFactory<FTPFile>> mirrors = new LinkedHashMap<>();
+		mirrors.put("lagging:21", sessionFactory("lagging:21", 0, false, "cont"));
+		MirrorReadingFtpSessionFactory factory = factory(mirrors);
+
+		assertEquals("content", read(factory));
+		assertEquals("[primary:21]", this.reads.toString());
+		assertEquals("[primary:21, lagging:21]", this.lists.toString());
+		assertEquals(1, this.meterRegistry.get("ftp.session.mirror.fallbacks").tag("host", "lagging:21").counter()
+				.count(), 0);
+	}
+
+	@Test
+	public void truncatedMirrorReadsFail() throws IOException {
+		Map<String, SessionFactory<FTPFile>> mirrors = new LinkedHashMap<>();
+		mirrors.put("truncating:21", sessionFactory("truncating:21", 0, false, "content", "cont"));
+		MirrorReadingFtpSessionFactory factory = factory(mirrors);
+		try {
+			read(factory);
+			fail("IOException expected");
+		}
+		catch (IOException e) {
+			assertEquals("[truncating:21]", this.reads.toString());
+		}
+	}
+
+	@Test
+	public void sizesComeFromTheLastListing() throws IOException {
+		Map<String, SessionFactory<FTPFile>> mirrors = new LinkedHashMap<>();
+		mirrors.put("fast:21", sessionFactory("fast:21", 0, false));
+		MirrorReadingFtpSessionFactory factory = factory(mirrors);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (Session<FTPFile> session = factory.getSession()) {
+			session.list("/");
+			session.read("/data.csv", outputStream);
+		}
+		assertEquals("content", new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+		assertEquals("[primary:21, fast:21]", this.lists.toString());
+	}
+
+	@Test
+	public void unavailableMirrorsFallBack() throws IOException {
+		SessionFactory<FTPFile> unavailable = sessionFactory("unavailable:21", 0, false);
+		when(unavailable.getSession()).thenThrow(new IllegalStateException("Connection refused"));
+		Map<String, SessionFactory<FTPFile>> mirrors = new LinkedHashMap<>();
+		mirrors.put("unavailable:21", unavailable);
+		mirrors.put("fast:21", sessionFactory("fast:21", 0, false));
+		MirrorReadingFtpSessionFactory factory = factory(mirrors);
+
+		assertEquals("content", read(factory));
+		assertEquals("[fast:21]", this.reads.toString());
+	}
+
+	@Test
+	public void primaryFailureIsReported() throws IOException {
+		Map<String, SessionFactory<FTPFile>> mirrors = new LinkedHashMap<>();
+		mirrors.put("failing:21", sessionFactory("failing:21", 0, true));
+		MirrorReadingFtpSessionFactory factory = new MirrorReadingFtpSessionFactory("primary:21",
+				sessionFactory("primary:21", 0, true), mirrors, new FtpHostsProperties(), this.meterRegistry);
+		try {
+			read(factory);
+			fail("IOException expected");
+		}
+		catch (IOException e) {
+			assertEquals(1, e.getSuppressed().length);
+		}
+	}
+
+	private MirrorReadingFtpSessionFactory factory(Map<String, SessionFactory<FTPFile>> mirrors) throws IOException {
+		return new MirrorReadingFtpSessionFactory("primary:21", sessionFactory("primary:21", 0, false), mirrors,
+				new FtpHostsProperties(), this.meterRegistry);
+	}
+
+	private static String read(MirrorReadingFtpSessionFactory factory) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (Session<FTPFile> session = factory.getSession()) {
+			session.read("/data.csv", outputStream);
+		}
+		return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private SessionFactory<FTPFile> sessionFactory(String host, long delay, boolean failing) throws IOException {
+		return sessionFactory(host, delay, failing, "content");
+	}
+
+	private SessionFactory<FTPFile> sessionFactory(String host, long delay, boolean failing, String content)
+			throws IOException {
+
+		return sessionFactory(host, delay, failing, content, content);
+	}
+
+	@SuppressWarnings("unchecked")
+	private SessionFactory<FTPFile> sessionFactory(String host, long delay, boolean failing, String listed,
+			String content) throws IOException {
+
+		SessionFactory<FTPFile> sessionFactory = mock(SessionFactory.class);
+		when(sessionFactory.getSession()).thenAnswer(invocation -> {
+			Session<FTPFile> session = mock(Session.class);
+			doAnswer(read -> {
+				this.reads.add(host);
+				if (failing) {
+					throw new IOException("550 No such file");
+				}
+				Thread.sleep(delay);
+				((OutputStream) read.getArguments()[1]).write(content.getBytes(StandardCharsets.UTF_8));
+				return null;
+			}).when(session).read(anyString(), any(OutputStream.class));
+			when(session.list(anyString())).thenAnswer(list -> {
+				this.lists.add(host);
+				FTPFile file = new FTPFile();
+				file.setType(FTPFile.FILE_TYPE);
+				file.setName("data.csv");
+				file.setSize(listed.length());
+				return new FTPFile[] { file };
+			});
+			return session;
+		});
+		return sessionFactory;
+	}
+
+}
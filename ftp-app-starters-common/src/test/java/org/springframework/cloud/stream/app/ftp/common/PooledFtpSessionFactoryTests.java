@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+
+public class PooledFtpSessionFactoryTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private SessionFactory<FTPFile> targetFactory;
+
+	private PooledFtpSessionFactory pooledFactory;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setup() throws IOException {
+		this.targetFactory = mock(SessionFactory.class);
+		when(this.targetFactory.getSession()).thenAnswer(invocation -> {
+			FTPClient client = mock(FTPClient.class);
+			when(client.isConnected()).thenReturn(true);
+			when(client.sendNoOp()).thenReturn(true);
+			Session<FTPFile> session = mock(Session.class);
+			when(session.getClientInstance()).thenReturn(client);
+			when(session.list(anyString())).thenThrow(new IOException("Connection reset"));
+			return session;
+		});
+		FtpSessionPoolProperties properties = new FtpSessionPoolProperties();
+		properties.setMaxSize(2);
+		properties.setBorrowTimeout(Duration.ofMillis(100));
+		this.pooledFactory = new PooledFtpSessionFactory(this.targetFactory, properties, "localhost",
+				this.meterRegistry);
+	}
+
+	@After
+	public void tearDown() {
+		this.pooledFactory.destroy();
+	}
+
+	@Test
+	public void sessionsAreReused() {
+		Session<FTPFile> first = this.pooledFactory.getSession();
+		Object client = first.getClientInstance();
+		first.close();
+		first.close();
+		Session<FTPFile> second = this.pooledFactory.getSession();
+		assertSame(client, second.getClientInstance());
+		assertEquals(1, this.pooledFactory.getActiveCount());
+		second.close();
+		verify(this.targetFactory, times(1)).getSession();
+		assertEquals(1, this.meterRegistry.get("ftp.session.pool.idle").gauge().value(), 0);
+	}
+
+	@Test
+	public void failedSessionsAreDiscarded() {
+		Session<FTPFile> session = this.pooledFactory.getSession();
+		try {
+			session.list("/");
+			fail("IOException expected");
+		}
+		catch (IOException e) {
+			session.close();
+		}
+		assertEquals(0, this.pooledFactory.getIdleCount());
+		this.pooledFactory.getSession().close();
+		verify(this.targetFactory, times(2)).getSession();
+	}
+
+	@Test
+	public void invalidatedSessionsAreDiscarded() throws IOException {
+		Session<FTPFile> session = this.pooledFactory.getSession();
+		FTPClient client = (FTPClient) session.getClientInstance();
+		DelegatingFtpSession.invalidate(session);
+		session.close();
+		verify(client).disconnect();
+		assertEquals(0, this.pooledFactory.getIdleCount());
+		this.pooledFactory.getSession().close();
+		verify(this.targetFactory, times(2)).getSession();
+	}
+
+	@Test
+	public void borrowTimesOutWhenExhausted() {
+		this.pooledFactory.getSession();
+		this.pooledFactory.getSession();
+		try {
+			this.pooledFactory.getSession();
+			fail("IllegalStateException expected");
+		}
+		catch (IllegalStateException e) {
+			assertEquals(2, this.pooledFactory.getActiveCount());
+		}
+		assertEquals(3, this.meterRegistry.get("ftp.session.pool.borrow").timer().count());
+	}
+
+}
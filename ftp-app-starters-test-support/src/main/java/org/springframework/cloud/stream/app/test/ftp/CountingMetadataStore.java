@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.test.ftp;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.integration.metadata.ConcurrentMetadataStore;
+import org.springframework.integration.metadata.SimpleMetadataStore;
+
+/**
+ * A {@link ConcurrentMetadataStore} in memory which counts its operations, to check how
+ * many of them the filters of a source perform per poll.
+ */
+public class CountingMetadataStore implements ConcurrentMetadataStore {
+
+	private final ConcurrentMetadataStore delegate;
+
+	private final AtomicLong reads = new AtomicLong();
+
+	private final AtomicLong writes = new AtomicLong();
+
+	public CountingMetadataStore() {
+		this(new SimpleMetadataStore());
+	}
+
+	public CountingMetadataStore(ConcurrentMetadataStore delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void put(String key, String value) {
+		this.writes.incrementAndGet();
+		this.delegate.put(key, value);
+	}
+
+	@Override
+	public String get(String key) {
+		this.reads.incrementAndGet();
+		return this.delegate.get(key);
+	}
+
+	@Override
+	public String remove(String key) {
+		this.writes.incrementAndGet();
+		return this.delegate.remove(key);
+	}
+
+	@Override
+	public String putIfAbsent(String key, String value) {
+		this.writes.incrementAndGet();
+		return this.delegate.putIfAbsent(key, value);
+	}
+
+	@Override
+	public boolean replace(String key, String oldValue, String newValue) {
+		this.writes.incrementAndGet();
+		return this.delegate.replace(key, oldValue, newValue);
+	}
+
+	public long getReads() {
+		return this.reads.get();
+	}
+
+	public long getWrites() {
+		return this.writes.get();
+	}
+
+	public long getOperations() {
+		return getReads() + getWrites();
+	}
+
+}
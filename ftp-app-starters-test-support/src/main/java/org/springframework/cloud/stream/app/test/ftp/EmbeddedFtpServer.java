@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.test.ftp;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.Arrays;
+
+import org.apache.ftpserver.ConnectionConfigFactory;
+import org.apache.ftpserver.FtpServer;
+import org.apache.ftpserver.FtpServerFactory;
+import org.apache.ftpserver.ftplet.Authentication;
+import org.apache.ftpserver.ftplet.FtpException;
+import org.apache.ftpserver.ftplet.User;
+import org.apache.ftpserver.ftplet.UserManager;
+import org.apache.ftpserver.listener.ListenerFactory;
+import org.apache.ftpserver.usermanager.impl.BaseUser;
+import org.apache.ftpserver.usermanager.impl.ConcurrentLoginPermission;
+import org.apache.ftpserver.usermanager.impl.WritePermission;
+
+/**
+ * An embedded FTP Server on a random port, outside of any test lifecycle, for the
+ * benchmarks and other harnesses which manage the server themselves. Any user name and
+ * password is accepted, and the transfers are not rate limited, unlike with
+ * {@link FtpTestSupport}.
+ */
+public final class EmbeddedFtpServer implements Closeable {
+
+	private final FtpServer server;
+
+	private final File homeDirectory;
+
+	private final int port;
+
+	private EmbeddedFtpServer(FtpServer server, File homeDirectory, int port) {
+		this.server = server;
+		this.homeDirectory = homeDirectory;
+		this.port = port;
+	}
+
+	/**
+	 * Start a server serving the given directory.
+	 * @param homeDirectory the root directory of the server.
+	 * @return the started server.
+	 * @throws FtpException if the server cannot be started.
+	 */
+	public static EmbeddedFtpServer start(File homeDirectory) throws FtpException {
+		FtpServerFactory serverFactory = new FtpServerFactory();
+		serverFactory.setUserManager(new UnlimitedUserManager(homeDirectory.getAbsolutePath()));
+		ConnectionConfigFactory connectionConfigFactory = new ConnectionConfigFactory();
+		connectionConfigFactory.setMaxLogins(1024);
+		serverFactory.setConnectionConfig(connectionConfigFactory.createConnectionConfig());
+		ListenerFactory listenerFactory = new ListenerFactory();
+		listenerFactory.setPort(0);
+		serverFactory.addListener("default", listenerFactory.createListener());
+		FtpServer server = serverFactory.createServer();
+		server.start();
+		return new EmbeddedFtpServer(server, homeDirectory, serverFactory.getListener("default").getPort());
+	}
+
+	public File getHomeDirectory() {
+		return this.homeDirectory;
+	}
+
+	public int getPort() {
+		return this.port;
+	}
+
+	@Override
+	public void close() {
+		this.server.stop();
+	}
+
+	private static final class UnlimitedUserManager implements UserManager {
+
+		private final BaseUser user;
+
+		private UnlimitedUserManager(String homeDirectory) {
+			this.user = new BaseUser();
+			this.user.setAuthorities(Arrays.asList(new ConcurrentLoginPermission(1024, 1024),
+					new WritePermission()));
+			this.user.setHomeDirectory(homeDirectory);
+			this.user.setName("TEST_USER");
+		}
+
+		@Override
+		public User getUserByName(String s) {
+			return this.user;
+		}
+
+		@Override
+		public String[] getAllUserNames() {
+			return new String[] { "TEST_USER" };
+		}
+
+		@Override
+		public void delete(String s) {
+		}
+
+		@Override
+		public void save(User user) {
+		}
+
+		@Override
+		public boolean doesExist(String s) {
+			return true;
+		}
+
+		@Override
+		public User authenticate(Authentication authentication) {
+			return this.user;
+		}
+
+		@Override
+		public String getAdminName() {
+			return "admin";
+		}
+
+		@Override
+		public boolean isAdmin(String s) {
+			return "admin".equals(s);
+		}
+
+	}
+
+}
@@ -16,6 +16,10 @@
 package org.springframework.cloud.stream.app.test.ftp;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 
 import org.apache.ftpserver.FtpServer;
@@ -26,6 +30,8 @@ import org.apache.ftpserver.ftplet.FtpException;
 import org.apache.ftpserver.ftplet.User;
 import org.apache.ftpserver.ftplet.UserManager;
 import org.apache.ftpserver.listener.ListenerFactory;
+import org.apache.ftpserver.ssl.SslConfiguration;
+import org.apache.ftpserver.ssl.SslConfigurationFactory;
 import org.apache.ftpserver.usermanager.impl.BaseUser;
 import org.apache.ftpserver.usermanager.impl.ConcurrentLoginPermission;
 import org.apache.ftpserver.usermanager.impl.TransferRatePermission;
@@ -48,6 +54,8 @@ public class FtpTestSupport extends RemoteFileTestSupport {
 
 	private static volatile FtpServer server;
 
+	private static volatile NetworkShapingFtpProxy proxy;
+
 	public String getTargetLocalDirectoryName() {
 		return targetLocalDirectory.getAbsolutePath() + File.separator;
 	}
@@ -60,9 +68,16 @@ public class FtpTestSupport extends RemoteFileTestSupport {
 		factory.setPort(0);
 		serverFactory.addListener("default", factory.createListener());
 
+		ListenerFactory ftpsFactory = new ListenerFactory();
+		ftpsFactory.setPort(0);
+		ftpsFactory.setSslConfiguration(sslConfiguration());
+		ftpsFactory.setImplicitSsl(false);
+		serverFactory.addListener("ftps", ftpsFactory.createListener());
+
 		server = serverFactory.createServer();
 		server.start();
 		System.setProperty("ftp.factory.port", String.valueOf(serverFactory.getListener("default").getPort()));
+		System.setProperty("ftps.port", String.valueOf(serverFactory.getListener("ftps").getPort()));
 		System.setProperty("ftp.localDir",
 				localTemporaryFolder.getRoot().getAbsolutePath() + File.separator + "localTarget");
 	}
@@ -70,11 +85,50 @@ public class FtpTestSupport extends RemoteFileTestSupport {
 
 	@AfterClass
 	public static void stopServer() throws Exception {
+		if (proxy != null) {
+			proxy.close();
+			proxy = null;
+		}
 		server.stop();
 		System.clearProperty("ftp.factory.port");
+		System.clearProperty("ftps.port");
 		System.clearProperty("ftp.localDir");
 	}
 
+	/**
+	 * Put a {@link NetworkShapingFtpProxy} in front of the plain FTP listener and point the
+	 * {@code ftp.factory.port} system property to it; to be called from a
+	 * {@code @BeforeClass} method of the test case. The server still caps the transfers of
+	 * each session at 1024 bytes per second.
+	 * @param conditions the initial conditions of the control and data connections.
+	 * @return the proxy, closed with the server.
+	 * @throws IOException if the proxy cannot be started.
+	 */
+	protected static NetworkShapingFtpProxy shapeNetwork(NetworkConditions conditions) throws IOException {
+		proxy = NetworkShapingFtpProxy.start("localhost", serverFactory.getListener("default").getPort(), conditions);
+		System.setProperty("ftp.factory.port", String.valueOf(proxy.getPort()));
+		return proxy;
+	}
+
+	/**
+	 * The explicit FTPS listener, whose port is in the {@code ftps.port} system property,
+	 * uses the {@code ftps/test-keystore.jks} key store; the matching trust store for the
+	 * clients is {@code classpath:ftps/test-truststore.jks}, with the {@code secret}
+	 * password.
+	 */
+	private static SslConfiguration sslConfiguration() throws IOException {
+		File keyStore = File.createTempFile("ftps-test-keystore", ".jks");
+		keyStore.deleteOnExit();
+		try (InputStream inputStream = FtpTestSupport.class.getResourceAsStream("/ftps/test-keystore.jks")) {
+			Files.copy(inputStream, keyStore.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		SslConfigurationFactory sslConfigurationFactory = new SslConfigurationFactory();
+		sslConfigurationFactory.setKeystoreFile(keyStore);
+		sslConfigurationFactory.setKeystorePassword("secret");
+		sslConfigurationFactory.setKeyPassword("secret");
+		return sslConfigurationFactory.createSslConfiguration();
+	}
+
 	@Override
 	protected String prefix() {
 		return "ftp";
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.test.ftp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+import org.springframework.util.Assert;
+
+/**
+ * Generates remote directories with a large number of entries for the scale tests. The
+ * files are sparse, so that their size shows in the listings without using the disk, and
+ * the existing ones are kept, so that a directory is only generated once per machine.
+ */
+public final class LargeRemoteDirectory {
+
+	private LargeRemoteDirectory() {
+	}
+
+	/**
+	 * Generate a directory with the given number of files, named {@code file-0000000.dat}
+	 * and so on.
+	 * @param directory the directory, created if needed.
+	 * @param entries the number of files.
+	 * @param fileSize the apparent size of each file.
+	 * @return the directory.
+	 * @throws IOException if the files cannot be created.
+	 */
+	public static File generate(File directory, int entries, long fileSize) throws IOException {
+		Assert.isTrue(entries >= 0, "'entries' must not be negative");
+		Assert.isTrue(fileSize >= 0, "'fileSize' must not be negative");
+		Files.createDirectories(directory.toPath());
+		for (int i = 0; i < entries; i++) {
+			File file = new File(directory, fileName(i));
+			if (!file.exists() || file.length() != fileSize) {
+				try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+					randomAccessFile.setLength(fileSize);
+				}
+			}
+		}
+		return directory;
+	}
+
+	public static String fileName(int index) {
+		return String.format("file-%07d.dat", index);
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.test.ftp;
+
+import java.time.Duration;
+
+import org.springframework.util.Assert;
+
+/**
+ * The conditions a {@link NetworkShapingFtpProxy} imposes on the traffic of a channel:
+ * a one-way latency, a bandwidth cap per connection and direction, random stalls and
+ * random connection drops. The probabilities apply to each chunk of at most 8 KiB read
+ * from a connection.
+ */
+public final class NetworkConditions {
+
+	/**
+	 * Conditions which let the traffic through untouched.
+	 */
+	public static final NetworkConditions NONE = builder().build();
+
+	private final Duration latency;
+
+	private final long bandwidth;
+
+	private final double stallProbability;
+
+	private final Duration stallDuration;
+
+	private final double dropProbability;
+
+	private NetworkConditions(Builder builder) {
+		this.latency = builder.latency;
+		this.bandwidth = builder.bandwidth;
+		this.stallProbability = builder.stallProbability;
+		this.stallDuration = builder.stallDuration;
+		this.dropProbability = builder.dropProbability;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public Duration getLatency() {
+		return this.latency;
+	}
+
+	public long getBandwidth() {
+		return this.bandwidth;
+	}
+
+	public double getStallProbability() {
+		return this.stallProbability;
+	}
+
+	public Duration getStallDuration() {
+		return this.stallDuration;
+	}
+
+	public double getDropProbability() {
+		return this.dropProbability;
+	}
+
+	@Override
+	public String toString() {
+		return "NetworkConditions [latency=" + this.latency + ", bandwidth=" + this.bandwidth
+				+ ", stallProbability=" + this.stallProbability + ", stallDuration=" + this.stallDuration
+				+ ", dropProbability=" + this.dropProbability + "]";
+	}
+
+	public static final class Builder {
+
+		private Duration latency = Duration.ZERO;
+
+		private long bandwidth;
+
+		private double stallProbability;
+
+		private Duration stallDuration = Duration.ZERO;
+
+		private double dropProbability;
+
+		private Builder() {
+		}
+
+		/**
+		 * Delay the bytes by this latency in each direction.
+		 * @param latency the one-way latency.
+		 * @return the builder.
+		 */
+		public Builder latency(Duration latency) {
+			Assert.isTrue(latency != null && !latency.isNegative(), "'latency' must not be negative");
+			this.latency = latency;
+			return this;
+		}
+
+		/**
+		 * Delay the bytes by half of this round trip time in each direction.
+		 * @param roundTripTime the round trip time.
+		 * @return the builder.
+		 */
+		public Builder roundTripTime(Duration roundTripTime) {
+			Assert.notNull(roundTripTime, "'roundTripTime' must not be null");
+			return latency(roundTripTime.dividedBy(2));
+		}
+
+		/**
+		 * Cap the throughput of each connection, in each direction.
+		 * @param bytesPerSecond the bandwidth; 0 for no cap.
+		 * @return the builder.
+		 */
+		public Builder bandwidth(long bytesPerSecond) {
+			Assert.isTrue(bytesPerSecond >= 0, "'bytesPerSecond' must not be negative");
+			this.bandwidth = bytesPerSecond;
+			return this;
+		}
+
+		/**
+		 * Stall the connections at random.
+		 * @param probability the probability that a chunk is stalled.
+		 * @param duration how long the chunk is stalled.
+		 * @return the builder.
+		 */
+		public Builder stalls(double probability, Duration duration) {
+			Assert.isTrue(probability >= 0 && probability <= 1, "'probability' must be between 0 and 1");
+			Assert.isTrue(duration != null && !duration.isNegative(), "'duration' must not be negative");
+			this.stallProbability = probability;
+			this.stallDuration = duration;
+			return this;
+		}
+
+		/**
+		 * Reset the connections at random.
+		 * @param probability the probability that the connection is reset instead of
+		 * forwarding a chunk.
+		 * @return the builder.
+		 */
+		public Builder drops(double probability) {
+			Assert.isTrue(probability >= 0 && probability <= 1, "'probability' must be between 0 and 1");
+			this.dropProbability = probability;
+			return this;
+		}
+
+		public NetworkConditions build() {
+			return new NetworkConditions(this);
+		}
+
+	}
+
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.test.ftp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+/**
+ * A TCP proxy in front of an FTP server which shapes the traffic of the control and data
+ * connections with {@link NetworkConditions}, so that latency, bandwidth, stalls and drops
+ * can be simulated offline.
+ * <p>
+ * The {@code PASV} and {@code EPSV} replies of the server are rewritten so that the data
+ * connections go through the proxy as well; the active mode is not supported. Each
+ * connection to the proxy costs one round trip before it is forwarded, and the conditions
+ * can be changed at any time, the new ones applying to the following chunks.
+ * <pre class="code">
+ * NetworkShapingFtpProxy proxy = NetworkShapingFtpProxy.start("localhost", serverPort,
+ * 		NetworkConditions.builder()
+ * 				.roundTripTime(Duration.ofMillis(80))
+ * 				.bandwidth(1024 * 1024)
+ * 				.build());
+ * </pre>
+ */
+public final class NetworkShapingFtpProxy implements Closeable {
+
+	private static final Log logger = LogFactory.getLog(NetworkShapingFtpProxy.class);
+
+	private static final Pattern PASV_REPLY = Pattern.compile("^(227[ -][^(]*)\\((\\d+,){4}(\\d+),(\\d+)\\)(.*)$",
+			Pattern.DOTALL);
+
+	private static final Pattern EPSV_REPLY = Pattern.compile("^(229[ -][^(]*)\\((.)\\2\\2(\\d+)\\2\\)(.*)$",
+			Pattern.DOTALL);
+
+	private static final int CHUNK_SIZE = 8192;
+
+	private static final int DATA_ACCEPT_TIMEOUT = 30_000;
+
+	private static final byte[] END = new byte[0];
+
+	private final String upstreamHost;
+
+	private final int upstreamPort;
+
+	private final InetAddress address = InetAddress.getLoopbackAddress();
+
+	private final ServerSocket controlServerSocket;
+
+	private final ExecutorService executor;
+
+	private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+
+	private final Set<ServerSocket> dataServerSockets = ConcurrentHashMap.newKeySet();
+
+	private final AtomicLong drops = new AtomicLong();
+
+	private volatile NetworkConditions controlConditions;
+
+	private volatile NetworkConditions dataConditions;
+
+	private volatile boolean closed;
+
+	private NetworkShapingFtpProxy(String upstreamHost, int upstreamPort, NetworkConditions conditions)
+			throws IOException {
+
+		this.upstreamHost = upstreamHost;
+		this.upstreamPort = upstreamPort;
+		this.controlConditions = conditions;
+		this.dataConditions = conditions;
+		this.controlServerSocket = new ServerSocket(0, 50, this.address);
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ftp-proxy-");
+		threadFactory.setDaemon(true);
+		this.executor = Executors.newCachedThreadPool(threadFactory);
+		this.executor.execute(this::acceptControlConnections);
+	}
+
+	/**
+	 * Start a proxy on a random loopback port.
+	 * @param upstreamHost the host of the FTP server.
+	 * @param upstreamPort the control port of the FTP server.
+	 * @param conditions the conditions of both the control and data connections.
+	 * @return the started proxy.
+	 * @throws IOException if the proxy cannot listen.
+	 */
+	public static NetworkShapingFtpProxy start(String upstreamHost, int upstreamPort, NetworkConditions conditions)
+			throws IOException {
+
+		Assert.hasText(upstreamHost, "'upstreamHost' must not be empty");
+		Assert.notNull(conditions, "'conditions' must not be null");
+		return new NetworkShapingFtpProxy(upstreamHost, upstreamPort, conditions);
+	}
+
+	/**
+	 * The port the FTP clients must connect to.
+	 * @return the control port of the proxy.
+	 */
+	public int getPort() {
+		return this.controlServerSocket.getLocalPort();
+	}
+
+	public void setConditions(NetworkConditions conditions) {
+		setControlConditions(conditions);
+		setDataConditions(conditions);
+	}
+
+	public void setControlConditions(NetworkConditions controlConditions) {
+		Assert.notNull(controlConditions, "'controlConditions' must not be null");
+		this.controlConditions = controlConditions;
+	}
+
+	public void setDataConditions(NetworkConditions dataConditions) {
+		Assert.notNull(dataConditions, "'dataConditions' must not be null");
+		this.dataConditions = dataConditions;
+	}
+
+	/**
+	 * The number of connections reset by the proxy, at random or through
+	 * {@link #dropConnections()}.
+	 * @return the number of dropped connections.
+	 */
+	public long getDroppedConnections() {
+		return this.drops.get();
+	}
+
+	/**
+	 * Reset all the open control and data connections.
+	 */
+	public void dropConnections() {
+		this.connections.forEach(Connection::drop);
+	}
+
+	@Override
+	public void close() {
+		this.closed = true;
+		closeQuietly(this.controlServerSocket);
+		this.dataServerSockets.forEach(NetworkShapingFtpProxy::closeQuietly);
+		this.connections.forEach(Connection::close);
+		this.executor.shutdownNow();
+	}
+
+	private void acceptControlConnections() {
+		while (!this.closed) {
+			try {
+				Socket client = this.controlServerSocket.accept();
+				this.executor.execute(() -> forward(client, this.upstreamPort, true));
+			}
+			catch (IOException e) {
+				if (!this.closed) {
+					logger.error("Failed to accept a control connection", e);
+				}
+			}
+		}
+	}
+
+	private void forward(Socket client, int port, boolean control) {
+		try {
+			sleep(conditions(control).getLatency().toNanos() * 2);
+			Socket server = new Socket(this.upstreamHost, port);
+			new Connection(client, server, control).start();
+		}
+		catch (IOException e) {
+			logger.error("Failed to connect to " + this.upstreamHost + ":" + port, e);
+			closeQuietly(client);
+		}
+	}
+
+	private NetworkConditions conditions(boolean control) {
+		return control ? this.controlConditions : this.dataConditions;
+	}
+
+	/**
+	 * Rewrite a passive mode reply of the server to a data port of the proxy.
+	 */
+	private String rewrite(String reply) throws IOException {
+		Matcher matcher = PASV_REPLY.matcher(reply);
+		if (matcher.matches()) {
+			int port = Integer.parseInt(matcher.group(3)) * 256 + Integer.parseInt(matcher.group(4));
+			int proxyPort = openDataChannel(port);
+			String address = this.address.getHostAddress().replace('.', ',');
+			return matcher.group(1) + "(" + address + "," + (proxyPort >> 8) + "," + (proxyPort & 0xff) + ")"
+					+ matcher.group(5);
+		}
+		matcher = EPSV_REPLY.matcher(reply);
+		if (matcher.matches()) {
+			int proxyPort = openDataChannel(Integer.parseInt(matcher.group(3)));
+			String delimiter = matcher.group(2);
+			return matcher.group(1) + "(" + delimiter + delimiter + delimiter + proxyPort + delimiter + ")"
+					+ matcher.group(4);
+		}
+		return reply;
+	}
+
+	private int openDataChannel(int upstreamDataPort) throws IOException {
+		ServerSocket serverSocket = new ServerSocket(0, 1, this.address);
+		serverSocket.setSoTimeout(DATA_ACCEPT_TIMEOUT);
+		this.dataServerSockets.add(serverSocket);
+		this.executor.execute(() -> {
+			try {
+				forward(serverSocket.accept(), upstreamDataPort, false);
+			}
+			catch (SocketTimeoutException e) {
+				logger.warn("No data connection to the proxy port " + serverSocket.getLocalPort());
+			}
+			catch (IOException e) {
+				if (!this.closed) {
+					logger.error("Failed to accept a data connection", e);
+				}
+			}
+			finally {
+				this.dataServerSockets.remove(serverSocket);
+				closeQuietly(serverSocket);
+			}
+		});
+		return serverSocket.getLocalPort();
+	}
+
+	private static void sleep(long nanos) {
+		if (nanos > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(nanos);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		}
+		catch (IOException e) {
+			// ignore
+		}
+	}
+
+	/**
+	 * A proxied connection, with a reader and a writer per direction; the readers shape the
+	 * traffic and the writers apply the latency.
+	 */
+	private final class Connection {
+
+		private final Socket client;
+
+		private final Socket server;
+
+		private final boolean control;
+
+		private final AtomicInteger openDirections = new AtomicInteger(2);
+
+		Connection(Socket client, Socket server, boolean control) {
+			this.client = client;
+			this.server = server;
+			this.control = control;
+		}
+
+		void start() {
+			NetworkShapingFtpProxy.this.connections.add(this);
+			if (NetworkShapingFtpProxy.this.closed) {
+				close();
+				return;
+			}
+			pipe(this.client, this.server, false);
+			pipe(this.server, this.client, this.control);
+		}
+
+		private void pipe(Socket from, Socket to, boolean rewriteReplies) {
+			BlockingQueue<Chunk> queue = new LinkedBlockingQueue<>();
+			NetworkShapingFtpProxy.this.executor.execute(() -> read(from, queue, rewriteReplies));
+			NetworkShapingFtpProxy.this.executor.execute(() -> write(queue, to));
+		}
+
+		private void read(Socket from, BlockingQueue<Chunk> queue, boolean rewriteReplies) {
+			long next = System.nanoTime();
+			try {
+				InputStream inputStream = from.getInputStream();
+				byte[] buffer = new byte[CHUNK_SIZE];
+				ByteArrayOutputStream line = new ByteArrayOutputStream();
+				while (true) {
+					NetworkConditions conditions = conditions(this.control);
+					long bandwidth = conditions.getBandwidth();
+					int length = bandwidth > 0 ? (int) Math.max(1, Math.min(CHUNK_SIZE, bandwidth / 20)) : CHUNK_SIZE;
+					int count = inputStream.read(buffer, 0, length);
+					if (count < 0) {
+						if (line.size() > 0) {
+							queue.add(new Chunk(line.toByteArray(), System.nanoTime() + conditions.getLatency().toNanos()));
+						}
+						break;
+					}
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					if (random.nextDouble() < conditions.getDropProbability()) {
+						drop();
+						break;
+					}
+					if (random.nextDouble() < conditions.getStallProbability()) {
+						sleep(conditions.getStallDuration().toNanos());
+					}
+					if (bandwidth > 0) {
+						long now = System.nanoTime();
+						next = Math.max(now, next) + count * TimeUnit.SECONDS.toNanos(1) / bandwidth;
+						sleep(next - now);
+					}
+					long deliverAt = System.nanoTime() + conditions.getLatency().toNanos();
+					if (rewriteReplies) {
+						for (int i = 0; i < count; i++) {
+							line.write(buffer[i]);
+							if (buffer[i] == '\n') {
+								String reply = new String(line.toByteArray(), StandardCharsets.ISO_8859_1);
+								queue.add(new Chunk(rewrite(reply).getBytes(StandardCharsets.ISO_8859_1), deliverAt));
+								line.reset();
+							}
+						}
+					}
+					else {
+						queue.add(new Chunk(Arrays.copyOf(buffer, count), deliverAt));
+					}
+				}
+			}
+			catch (IOException e) {
+				close();
+			}
+			finally {
+				queue.add(new Chunk(END, System.nanoTime() + conditions(this.control).getLatency().toNanos()));
+			}
+		}
+
+		private void write(BlockingQueue<Chunk> queue, Socket to) {
+			try {
+				OutputStream outputStream = to.getOutputStream();
+				while (true) {
+					Chunk chunk = queue.take();
+					sleep(chunk.deliverAt - System.nanoTime());
+					if (chunk.data == END) {
+						if (!to.isClosed()) {
+							to.shutdownOutput();
+						}
+						break;
+					}
+					outputStream.write(chunk.data);
+					outputStream.flush();
+				}
+				if (this.openDirections.decrementAndGet() == 0) {
+					close();
+				}
+			}
+			catch (IOException e) {
+				close();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				close();
+			}
+		}
+
+		void drop() {
+			if (NetworkShapingFtpProxy.this.connections.remove(this)) {
+				NetworkShapingFtpProxy.this.drops.incrementAndGet();
+				try {
+					this.client.setSoLinger(true, 0);
+					this.server.setSoLinger(true, 0);
+				}
+				catch (IOException e) {
+					// closed already
+				}
+				close();
+			}
+		}
+
+		void close() {
+			NetworkShapingFtpProxy.this.connections.remove(this);
+			closeQuietly(this.client);
+			closeQuietly(this.server);
+		}
+
+	}
+
+	private static final class Chunk {
+
+		private final byte[] data;
+
+		private final long deliverAt;
+
+		Chunk(byte[] data, long deliverAt) {
+			this.data = data;
+			this.deliverAt = deliverAt;
+		}
+
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.test.ftp;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.util.Assert;
+
+/**
+ * Records the cost of an operation for increasing numbers of entries and fails when it
+ * grows super-linearly: the cost per entry of each size must stay within
+ * {@code tolerance} times the cost per entry of the smallest size.
+ */
+public class ScalingCheck {
+
+	private final String metric;
+
+	private final double tolerance;
+
+	private final Map<Integer, Double> costs = new TreeMap<>();
+
+	/**
+	 * @param metric the name of the measured cost, for the failure message.
+	 * @param tolerance the accepted growth of the cost per entry, 1 for strictly linear.
+	 */
+	public ScalingCheck(String metric, double tolerance) {
+		Assert.isTrue(tolerance >= 1, "'tolerance' must be at least 1");
+		this.metric = metric;
+		this.tolerance = tolerance;
+	}
+
+	public void record(int entries, double cost) {
+		Assert.isTrue(entries > 0, "'entries' must be positive");
+		this.costs.put(entries, cost);
+	}
+
+	/**
+	 * @throws AssertionError if the cost per entry grows beyond the tolerance.
+	 */
+	public void assertNotSuperLinear() {
+		if (this.costs.isEmpty()) {
+			return;
+		}
+		Map.Entry<Integer, Double> smallest = this.costs.entrySet().iterator().next();
+		double baseline = smallest.getValue() / smallest.getKey();
+		for (Map.Entry<Integer, Double> entry : this.costs.entrySet()) {
+			double perEntry = entry.getValue() / entry.getKey();
+			if (perEntry > baseline * this.tolerance) {
+				throw new AssertionError(String.format(
+						"%s grows super-linearly: %.3f per entry for %d entries, %.3f per entry for %d entries "
+								+ "(tolerance %.1f); all costs: %s",
+						this.metric, perEntry, entry.getKey(), baseline, smallest.getKey(), this.tolerance,
+						this.costs));
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return this.metric + " " + this.costs;
+	}
+
+}
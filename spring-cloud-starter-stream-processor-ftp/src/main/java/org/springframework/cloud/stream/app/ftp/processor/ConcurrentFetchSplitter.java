@@ -0,0 +1,144 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.processor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.integration.core.MessagingTemplate;
+import org.springframework.integration.splitter.AbstractMessageSplitter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.MessagingException;
+
+/**
+ * Splits a message naming a remote path into the fetched files, like the
+ * {@link RemoteGlobSplitter} followed by the {@code GET} gateway, but with the matching
+ * files fetched at the same time on a {@link TaskExecutor}.
+ * <p>
+ * The calling thread waits for all the fetches before emitting the files, in the
+ * listing order: the incoming message is only acknowledged once its files are fetched,
+ * and a failed fetch fails it, after the files fetched for it are deleted. The fetches
+ * not started yet are then skipped, and the running ones are waited for, even when the
+ * calling thread is interrupted, so that their files are deleted as well.
+ */
+class ConcurrentFetchSplitter extends AbstractMessageSplitter {
+
+	private final MessagingTemplate messagingTemplate = new MessagingTemplate();
+
+	private final RemoteGlobSplitter globSplitter;
+
+	private final MessageChannel fetchChannel;
+
+	private final TaskExecutor taskExecutor;
+
+	ConcurrentFetchSplitter(RemoteGlobSplitter globSplitter, MessageChannel fetchChannel,
+			TaskExecutor taskExecutor) {
+
+		this.globSplitter = globSplitter;
+		this.fetchChannel = fetchChannel;
+		this.taskExecutor = taskExecutor;
+	}
+
+	@Override
+	protected void onInit() {
+		super.onInit();
+		this.globSplitter.setBeanFactory(getBeanFactory());
+		this.globSplitter.afterPropertiesSet();
+	}
+
+	@Override
+	protected Object splitMessage(Message<?> message) {
+		Collection<?> remotePaths = (Collection<?>) this.globSplitter.splitMessage(message);
+		// once set, the fetches not started yet are skipped
+		AtomicBoolean failed = new AtomicBoolean();
+		List<Future<Message<?>>> fetches = new ArrayList<>(remotePaths.size());
+		Throwable failure = null;
+		for (Object remotePath : remotePaths) {
+			Message<?> request = getMessageBuilderFactory()
+					.withPayload(remotePath)
+					.copyHeaders(message.getHeaders())
+					.build();
+			FutureTask<Message<?>> fetch = new FutureTask<>(() -> failed.get()
+					? null
+					: this.messagingTemplate.sendAndReceive(this.fetchChannel, request));
+			try {
+				this.taskExecutor.execute(fetch);
+			}
+			catch (RuntimeException e) {
+				failed.set(true);
+				failure = e;
+				break;
+			}
+			fetches.add(fetch);
+		}
+		List<Message<?>> replies = new ArrayList<>(fetches.size());
+		boolean interrupted = false;
+		for (Future<Message<?>> fetch : fetches) {
+			while (true) {
+				try {
+					replies.add(fetch.get());
+					break;
+				}
+				catch (ExecutionException e) {
+					failed.set(true);
+					failure = failure == null ? e.getCause() : failure;
+					break;
+				}
+				catch (InterruptedException e) {
+					// keep waiting for the running fetches, so that their files are deleted
+					failed.set(true);
+					interrupted = true;
+					failure = failure == null ? e : failure;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			for (Message<?> reply : replies) {
+				if (reply != null && reply.getPayload() instanceof File) {
+					((File) reply.getPayload()).delete();
+				}
+			}
+			if (failure instanceof MessagingException) {
+				throw (MessagingException) failure;
+			}
+			throw new MessageHandlingException(message, "Failed to fetch the remote files", failure);
+		}
+		List<Message<?>> fetched = new ArrayList<>(replies.size());
+		for (Message<?> reply : replies) {
+			// the replies carry the temporary reply channel of the template
+			fetched.add(getMessageBuilderFactory()
+					.fromMessage(reply)
+					.setHeader(MessageHeaders.REPLY_CHANNEL, message.getHeaders().getReplyChannel())
+					.setHeader(MessageHeaders.ERROR_CHANNEL, message.getHeaders().getErrorChannel())
+					.build());
+		}
+		return fetched;
+	}
+
+}
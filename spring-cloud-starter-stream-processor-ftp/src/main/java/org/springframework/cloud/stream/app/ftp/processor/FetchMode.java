@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.processor;
+
+/**
+ * How the FTP processor emits the content of the fetched files.
+ */
+public enum FetchMode {
+
+	/**
+	 * One message per file, with the content as a {@code byte[]}.
+	 */
+	BYTES,
+
+	/**
+	 * One message per line, with the line as a {@code String}.
+	 */
+	LINES,
+
+	/**
+	 * One message per chunk of the file, with the chunk as a {@code byte[]}.
+	 */
+	CHUNKS
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.processor;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.integration.splitter.AbstractMessageSplitter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandlingException;
+
+/**
+ * Splits a fetched local file into lines or fixed size chunks, as a stream, and deletes the
+ * file once it is read.
+ */
+class FetchedFileSplitter extends AbstractMessageSplitter {
+
+	private static final Log logger = LogFactory.getLog(FetchedFileSplitter.class);
+
+	private final FetchMode mode;
+
+	private final int chunkSize;
+
+	private final Charset charset;
+
+	FetchedFileSplitter(FetchMode mode, int chunkSize, Charset charset) {
+		this.mode = mode;
+		this.chunkSize = chunkSize;
+		this.charset = charset;
+	}
+
+	@Override
+	protected Object splitMessage(Message<?> message) {
+		File file = (File) message.getPayload();
+		try {
+			InputStream inputStream = new FileInputStream(file);
+			return this.mode == FetchMode.LINES
+					? new FileContentIterator(file, inputStream,
+							new BufferedReader(new InputStreamReader(inputStream, this.charset)))
+					: new FileContentIterator(file, inputStream, null);
+		}
+		catch (IOException e) {
+			throw new MessageHandlingException(message, "Failed to read " + file, e);
+		}
+	}
+
+	private final class FileContentIterator implements Iterator<Object>, Closeable {
+
+		private final File file;
+
+		private final InputStream inputStream;
+
+		private final BufferedReader reader;
+
+		private Object next;
+
+		private boolean done;
+
+		FileContentIterator(File file, InputStream inputStream, BufferedReader reader) {
+			this.file = file;
+			this.inputStream = inputStream;
+			this.reader = reader;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (this.next == null && !this.done) {
+				advance();
+			}
+			return this.next != null;
+		}
+
+		@Override
+		public Object next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Object result = this.next;
+			this.next = null;
+			return result;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (this.done) {
+				return;
+			}
+			this.done = true;
+			try {
+				this.inputStream.close();
+			}
+			finally {
+				if (!this.file.delete() && logger.isWarnEnabled()) {
+					logger.warn("Failed to delete the fetched file " + this.file);
+				}
+			}
+		}
+
+		private void advance() {
+			try {
+				if (this.reader != null) {
+					this.next = this.reader.readLine();
+				}
+				else {
+					byte[] chunk = new byte[FetchedFileSplitter.this.chunkSize];
+					int read = 0;
+					int count;
+					while (read < chunk.length && (count = this.inputStream.read(chunk, read, chunk.length - read)) >= 0) {
+						read += count;
+					}
+					this.next = read > 0 ? Arrays.copyOf(chunk, read) : null;
+				}
+				if (this.next == null) {
+					close();
+				}
+			}
+			catch (IOException e) {
+				try {
+					close();
+				}
+				catch (IOException ex) {
+					e.addSuppressed(ex);
+				}
+				throw new UncheckedIOException(e);
+			}
+		}
+
+	}
+
+}
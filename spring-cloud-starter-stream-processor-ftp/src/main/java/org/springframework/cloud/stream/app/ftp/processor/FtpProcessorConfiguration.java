@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.processor;
+
+import java.nio.charset.Charset;
+
+import org.apache.commons.net.ftp.FTPFile;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.stream.annotation.EnableBinding;
+import org.springframework.cloud.stream.app.ftp.common.FtpClientSessionFactoryConfiguration;
+import org.springframework.cloud.stream.app.ftp.common.FtpExecutorProperties;
+import org.springframework.cloud.stream.app.ftp.common.FtpTaskExecutor;
+import org.springframework.cloud.stream.messaging.Processor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.dsl.IntegrationFlowBuilder;
+import org.springframework.integration.dsl.IntegrationFlows;
+import org.springframework.integration.file.remote.gateway.AbstractRemoteFileOutboundGateway;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.file.support.FileExistsMode;
+import org.springframework.integration.file.transformer.FileToByteArrayTransformer;
+import org.springframework.integration.ftp.dsl.Ftp;
+import org.springframework.integration.transformer.MessageTransformingHandler;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+
+/**
+ * Fetches the remote files named by the incoming messages and emits their content.
+ */
+@EnableBinding(Processor.class)
+@EnableConfigurationProperties({ FtpProcessorProperties.class, FtpExecutorProperties.class })
+@Import(FtpClientSessionFactoryConfiguration.class)
+public class FtpProcessorConfiguration {
+
+	@Autowired
+	private Processor processor;
+
+	@Bean
+	public FtpTaskExecutor ftpFetchExecutor(FtpProcessorProperties properties,
+			FtpExecutorProperties executorProperties) {
+
+		return new FtpTaskExecutor("ftp-fetch-", properties.getConcurrency(), executorProperties.isVirtualThreads());
+	}
+
+	@Bean
+	public MessageChannel ftpFetchRequestChannel() {
+		return new DirectChannel();
+	}
+
+	/**
+	 * Fetches the remote path of each request to the local directory, replying with the
+	 * local file.
+	 */
+	@Bean
+	public IntegrationFlow ftpGetFlow(SessionFactory<FTPFile> ftpSessionFactory, FtpProcessorProperties properties) {
+		return IntegrationFlows.from(ftpFetchRequestChannel())
+				.handle(Ftp.outboundGateway(ftpSessionFactory, AbstractRemoteFileOutboundGateway.Command.GET,
+						"payload")
+						.remoteFileSeparator(properties.getRemoteFileSeparator())
+						.localDirectory(properties.getLocalDir())
+						.autoCreateLocalDirectory(true)
+						.localFilenameExpression("headers.id + '-' + #remoteFileName")
+						.fileExistsMode(FileExistsMode.REPLACE))
+				.get();
+	}
+
+	@Bean
+	public IntegrationFlow ftpFetchFlow(SessionFactory<FTPFile> ftpSessionFactory, FtpProcessorProperties properties,
+			FtpExecutorProperties executorProperties, FtpTaskExecutor ftpFetchExecutor) {
+
+		RemoteGlobSplitter globSplitter = new RemoteGlobSplitter(ftpSessionFactory,
+				properties.getRemotePathExpression(), properties.getRemoteFileSeparator());
+		IntegrationFlowBuilder flowBuilder = IntegrationFlows.from(Processor.INPUT);
+		if (properties.getConcurrency() > 1 || executorProperties.isVirtualThreads()) {
+			flowBuilder.split(new ConcurrentFetchSplitter(globSplitter, ftpFetchRequestChannel(), ftpFetchExecutor));
+		}
+		else {
+			flowBuilder.split(globSplitter)
+					.gateway(ftpFetchRequestChannel());
+		}
+
+		if (properties.getMode() == FetchMode.BYTES) {
+			FileToByteArrayTransformer transformer = new FileToByteArrayTransformer();
+			transformer.setDeleteFiles(true);
+			flowBuilder.handle(new MessageTransformingHandler(transformer));
+		}
+		else {
+			flowBuilder.split(new FetchedFileSplitter(properties.getMode(), (int) properties.getChunkSize().toBytes(),
+					Charset.forName(properties.getCharset())));
+		}
+		String contentType = properties.getMode() == FetchMode.LINES ? "text/plain" : "application/octet-stream";
+		return flowBuilder
+				.enrichHeaders(headers -> headers.header(MessageHeaders.CONTENT_TYPE, contentType, true))
+				.channel(this.processor.output())
+				.get();
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.processor;
+
+import java.io.File;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties("ftp")
+@Validated
+public class FtpProcessorProperties {
+
+	/**
+	 * A SpEL expression evaluating to the remote path to fetch; the last segment may be a
+	 * pattern with '*' and '?' wildcards, to fetch all the matching files.
+	 */
+	private Expression remotePathExpression = new SpelExpressionParser().parseExpression("payload");
+
+	/**
+	 * The remote file separator.
+	 */
+	private String remoteFileSeparator = "/";
+
+	/**
+	 * The local directory the files are fetched to, until they are emitted.
+	 */
+	private File localDir = new File(System.getProperty("java.io.tmpdir"), "ftp-processor");
+
+	/**
+	 * How the content of the files is emitted.
+	 */
+	private FetchMode mode = FetchMode.BYTES;
+
+	/**
+	 * The size of the chunks in CHUNKS mode.
+	 */
+	private DataSize chunkSize = DataSize.ofKilobytes(64);
+
+	/**
+	 * The charset of the files in LINES mode.
+	 */
+	private String charset = "UTF-8";
+
+	/**
+	 * The maximum number of files fetched at the same time.
+	 */
+	private int concurrency = 1;
+
+	@NotNull
+	public Expression getRemotePathExpression() {
+		return this.remotePathExpression;
+	}
+
+	public void setRemotePathExpression(Expression remotePathExpression) {
+		this.remotePathExpression = remotePathExpression;
+	}
+
+	@NotBlank
+	public String getRemoteFileSeparator() {
+		return this.remoteFileSeparator;
+	}
+
+	public void setRemoteFileSeparator(String remoteFileSeparator) {
+		this.remoteFileSeparator = remoteFileSeparator;
+	}
+
+	@NotNull
+	public File getLocalDir() {
+		return this.localDir;
+	}
+
+	public void setLocalDir(File localDir) {
+		this.localDir = localDir;
+	}
+
+	@NotNull
+	public FetchMode getMode() {
+		return this.mode;
+	}
+
+	public void setMode(FetchMode mode) {
+		this.mode = mode;
+	}
+
+	@NotNull
+	public DataSize getChunkSize() {
+		return this.chunkSize;
+	}
+
+	public void setChunkSize(DataSize chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	@NotBlank
+	public String getCharset() {
+		return this.charset;
+	}
+
+	public void setCharset(String charset) {
+		this.charset = charset;
+	}
+
+	@Min(1)
+	public int getConcurrency() {
+		return this.concurrency;
+	}
+
+	public void setConcurrency(int concurrency) {
+		this.concurrency = concurrency;
+	}
+
+	@AssertTrue(message = "chunkSize must be between 1 byte and 2GB")
+	public boolean isChunkSizeInRange() {
+		return this.chunkSize == null
+				|| (this.chunkSize.toBytes() > 0 && this.chunkSize.toBytes() <= Integer.MAX_VALUE);
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.processor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.net.ftp.FTPFile;
+
+import org.springframework.expression.Expression;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.splitter.AbstractMessageSplitter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+
+/**
+ * Splits a message naming a remote path into the paths of the files to fetch: the path
+ * itself, or, when its last segment has '*' or '?' wildcards, the paths of the matching
+ * files of the remote directory, in name order.
+ */
+class RemoteGlobSplitter extends AbstractMessageSplitter {
+
+	private final AntPathMatcher matcher = new AntPathMatcher();
+
+	private final SessionFactory<FTPFile> sessionFactory;
+
+	private final Expression remotePathExpression;
+
+	private final String remoteFileSeparator;
+
+	RemoteGlobSplitter(SessionFactory<FTPFile> sessionFactory, Expression remotePathExpression,
+			String remoteFileSeparator) {
+
+		this.sessionFactory = sessionFactory;
+		this.remotePathExpression = remotePathExpression;
+		this.remoteFileSeparator = remoteFileSeparator;
+	}
+
+	@Override
+	protected Object splitMessage(Message<?> message) {
+		Object value = this.remotePathExpression.getValue(getEvaluationContext(), message);
+		String remotePath = value instanceof byte[]
+				? new String((byte[]) value, StandardCharsets.UTF_8)
+				: value != null ? value.toString() : null;
+		if (!StringUtils.hasText(remotePath)) {
+			throw new MessageHandlingException(message, "The remote path expression evaluated to no path");
+		}
+		remotePath = remotePath.trim();
+		int index = remotePath.lastIndexOf(this.remoteFileSeparator);
+		String pattern = remotePath.substring(index + 1);
+		if (pattern.indexOf('*') < 0 && pattern.indexOf('?') < 0) {
+			return Collections.singletonList(remotePath);
+		}
+		String remoteDirectory = index < 0 ? "" : remotePath.substring(0, index + 1);
+		List<String> remotePaths = new ArrayList<>();
+		try (Session<FTPFile> session = this.sessionFactory.getSession()) {
+			FTPFile[] files = session.list(remoteDirectory);
+			if (files != null) {
+				for (FTPFile file : files) {
+					if (file != null && file.isFile() && this.matcher.match(pattern, file.getName())) {
+						remotePaths.add(remoteDirectory + file.getName());
+					}
+				}
+			}
+		}
+		catch (IOException e) {
+			throw new MessageHandlingException(message, "Failed to list '" + remoteDirectory + "'", e);
+		}
+		Collections.sort(remotePaths);
+		return remotePaths;
+	}
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.processor;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.support.GenericMessage;
+
+public class ConcurrentFetchSplitterTests {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+	@After
+	public void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void runningFetchesAreDeletedWhenAnotherFails() throws Exception {
+		File second = new File(this.temporaryFolder.getRoot(), "b.txt");
+		File third = new File(this.temporaryFolder.getRoot(), "c.txt");
+		CountDownLatch secondStarted = new CountDownLatch(1);
+		MessageChannel fetchChannel = (request, timeout) -> {
+			String remotePath = (String) request.getPayload();
+			try {
+				if (remotePath.equals("/a.txt")) {
+					secondStarted.await(10, TimeUnit.SECONDS);
+					throw new IllegalStateException("550 No such file");
+				}
+				if (remotePath.equals("/b.txt")) {
+					secondStarted.countDown();
+					Thread.sleep(500);
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return reply(request, new File(this.temporaryFolder.getRoot(), remotePath.substring(1)));
+		};
+		ConcurrentFetchSplitter splitter = splitter(Arrays.asList("/a.txt", "/b.txt", "/c.txt"), fetchChannel);
+
+		try {
+			splitter.splitMessage(new GenericMessage<>("/*.txt"));
+			fail("Expected the failed fetch to fail the message");
+		}
+		catch (MessageHandlingException e) {
+			assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+		}
+
+		assertFalse(second.exists());
+		assertFalse(third.exists());
+	}
+
+	@Test
+	public void interruptedSplitsWaitForTheRunningFetches() throws Exception {
+		File file = new File(this.temporaryFolder.getRoot(), "a.txt");
+		CountDownLatch fetchStarted = new CountDownLatch(1);
+		CountDownLatch fetchReleased = new CountDownLatch(1);
+		MessageChannel fetchChannel = (request, timeout) -> {
+			fetchStarted.countDown();
+			try {
+				fetchReleased.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return reply(request, file);
+		};
+		ConcurrentFetchSplitter splitter = splitter(Collections.singletonList("/a.txt"), fetchChannel);
+		AtomicReference<Exception> failure = new AtomicReference<>();
+		AtomicBoolean interrupted = new AtomicBoolean();
+		Thread caller = new Thread(() -> {
+			try {
+				splitter.splitMessage(new GenericMessage<>("/a.txt"));
+			}
+			catch (Exception e) {
+				failure.set(e);
+			}
+			interrupted.set(Thread.currentThread().isInterrupted());
+		});
+		caller.start();
+		assertTrue(fetchStarted.await(10, TimeUnit.SECONDS));
+
+		caller.interrupt();
+		Thread.sleep(100);
+		fetchReleased.countDown();
+		caller.join(10000);
+
+		assertThat(failure.get(), instanceOf(MessageHandlingException.class));
+		assertTrue(interrupted.get());
+		assertFalse(file.exists());
+	}
+
+	private ConcurrentFetchSplitter splitter(List<String> remotePaths, MessageChannel fetchChannel) {
+		RemoteGlobSplitter globSplitter = new RemoteGlobSplitter(null, null, "/") {
+
+			@Override
+			protected Object splitMessage(Message<?> message) {
+				return remotePaths;
+			}
+
+		};
+		return new ConcurrentFetchSplitter(globSplitter, fetchChannel, this.executor::execute);
+	}
+
+	private static boolean reply(Message<?> request, File file) {
+		try {
+			file.createNewFile();
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return ((MessageChannel) request.getHeaders().getReplyChannel()).send(new GenericMessage<>(file));
+	}
+
+}
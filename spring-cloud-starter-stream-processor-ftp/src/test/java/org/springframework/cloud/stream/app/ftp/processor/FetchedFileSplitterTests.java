@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.processor;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.messaging.support.GenericMessage;
+
+public class FetchedFileSplitterTests {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void lines() throws Exception {
+		File file = this.temporaryFolder.newFile("lines.txt");
+		Files.write(file.toPath(), "first\nsecond\n".getBytes(StandardCharsets.UTF_8));
+		QueueChannel output = split(file, FetchMode.LINES, 4);
+
+		assertThat(output.receive(0).getPayload(), equalTo("first"));
+		assertThat(output.receive(0).getPayload(), equalTo("second"));
+		assertNull(output.receive(0));
+		assertFalse(file.exists());
+	}
+
+	@Test
+	public void chunks() throws Exception {
+		File file = this.temporaryFolder.newFile("chunks.bin");
+		Files.write(file.toPath(), "0123456789".getBytes(StandardCharsets.UTF_8));
+		QueueChannel output = split(file, FetchMode.CHUNKS, 4);
+
+		assertThat(new String((byte[]) output.receive(0).getPayload(), StandardCharsets.UTF_8), equalTo("0123"));
+		assertThat(new String((byte[]) output.receive(0).getPayload(), StandardCharsets.UTF_8), equalTo("4567"));
+		assertThat(new String((byte[]) output.receive(0).getPayload(), StandardCharsets.UTF_8), equalTo("89"));
+		assertNull(output.receive(0));
+		assertFalse(file.exists());
+	}
+
+	private static QueueChannel split(File file, FetchMode mode, int chunkSize) {
+		FetchedFileSplitter splitter = new FetchedFileSplitter(mode, chunkSize, StandardCharsets.UTF_8);
+		QueueChannel output = new QueueChannel();
+		splitter.setOutputChannel(output);
+		splitter.handleMessage(new GenericMessage<>(file));
+		return output;
+	}
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.processor;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.app.test.ftp.FtpTestSupport;
+import org.springframework.cloud.stream.messaging.Processor;
+import org.springframework.cloud.stream.test.binder.MessageCollector;
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+		properties = {
+				"ftp.factory.username = foo",
+				"ftp.factory.password = foo",
+				"ftp.concurrency = 2"
+		})
+@DirtiesContext
+public class FtpProcessorIntegrationTests extends FtpTestSupport {
+
+	@Autowired
+	Processor processor;
+
+	@Autowired
+	MessageCollector messageCollector;
+
+	@Test
+	public void fetchFile() throws Exception {
+		remoteFile("single.txt", "single");
+		this.processor.input().send(new GenericMessage<>("ftpTarget/single.txt"));
+
+		Message<?> received = receive();
+		assertThat(content(received), equalTo("single"));
+		assertThat(received.getHeaders().get(FileHeaders.REMOTE_FILE), equalTo("single.txt"));
+	}
+
+	@Test
+	public void fetchMatchingFilesInOrder() throws Exception {
+		for (int i = 1; i <= 6; i++) {
+			remoteFile("data" + i + ".csv", "content" + i);
+		}
+		remoteFile("other.txt", "other");
+		this.processor.input().send(new GenericMessage<>("ftpTarget/data?.csv".getBytes(StandardCharsets.UTF_8)));
+
+		// fetched two at a time, but emitted in the listing order once all are fetched
+		for (int i = 1; i <= 6; i++) {
+			Message<?> received = receive();
+			assertThat(content(received), equalTo("content" + i));
+			assertThat(received.getHeaders().get(FileHeaders.REMOTE_FILE), equalTo("data" + i + ".csv"));
+		}
+		assertNull(this.messageCollector.forChannel(this.processor.output()).poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void failedFetchFailsTheMessage() throws Exception {
+		try {
+			this.processor.input().send(new GenericMessage<>("ftpTarget/missing.txt"));
+			fail("Expected MessagingException");
+		}
+		catch (MessagingException e) {
+			// reaches the binder, for its retries and dead letter queue
+		}
+		assertNull(this.messageCollector.forChannel(this.processor.output()).poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	private void remoteFile(String name, String content) throws Exception {
+		Files.write(new File(getTargetRemoteDirectory(), name).toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private Message<?> receive() throws InterruptedException {
+		Message<?> received = this.messageCollector.forChannel(this.processor.output()).poll(10, TimeUnit.SECONDS);
+		assertNotNull(received);
+		return received;
+	}
+
+	private static String content(Message<?> message) {
+		Object payload = message.getPayload();
+		return payload instanceof byte[] ? new String((byte[]) payload, StandardCharsets.UTF_8) : payload.toString();
+	}
+
+	@SpringBootApplication
+	public static class FtpProcessorApplication {
+
+	}
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.processor;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.app.ftp.common.LazyInitializationBeanFactoryPostProcessor;
+import org.springframework.cloud.stream.app.test.ftp.FtpTestSupport;
+import org.springframework.cloud.stream.messaging.Processor;
+import org.springframework.cloud.stream.test.binder.MessageCollector;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+		properties = {
+				"ftp.factory.username = foo",
+				"ftp.factory.password = foo",
+				"ftp.startup.lazy-initialization = true"
+		})
+@DirtiesContext
+public class FtpProcessorLazyInitializationIntegrationTests extends FtpTestSupport {
+
+	@Autowired
+	LazyInitializationBeanFactoryPostProcessor lazyInitialization;
+
+	@Autowired
+	Processor processor;
+
+	@Autowired
+	MessageCollector messageCollector;
+
+	@Test
+	public void filesAreStillFetched() throws Exception {
+		Files.write(new File(getTargetRemoteDirectory(), "lazy.txt").toPath(), "lazy".getBytes(StandardCharsets.UTF_8));
+		this.processor.input().send(new GenericMessage<>("ftpTarget/lazy.txt"));
+
+		Message<?> received = this.messageCollector.forChannel(this.processor.output()).poll(10, TimeUnit.SECONDS);
+		assertNotNull(received);
+		Object payload = received.getPayload();
+		String content = payload instanceof byte[]
+				? new String((byte[]) payload, StandardCharsets.UTF_8)
+				: payload.toString();
+		assertThat(content, equalTo("lazy"));
+	}
+
+	@SpringBootApplication
+	public static class FtpProcessorApplication {
+
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.processor;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+public class FtpProcessorPropertiesTests {
+
+	@Test
+	public void modeCanBeCustomized() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		TestPropertyValues.of("ftp.mode:CHUNKS", "ftp.chunkSize:1MB")
+				.applyTo(context);
+		context.register(Conf.class);
+		context.refresh();
+		FtpProcessorProperties properties = context.getBean(FtpProcessorProperties.class);
+		assertThat(properties.getMode(), equalTo(FetchMode.CHUNKS));
+		assertThat(properties.getChunkSize(), equalTo(DataSize.ofMegabytes(1)));
+		context.close();
+	}
+
+	@Test
+	public void concurrencyCanBeCustomized() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		TestPropertyValues.of("ftp.concurrency:4")
+				.applyTo(context);
+		context.register(Conf.class);
+		context.refresh();
+		FtpProcessorProperties properties = context.getBean(FtpProcessorProperties.class);
+		assertThat(properties.getConcurrency(), equalTo(4));
+		context.close();
+	}
+
+	@Test
+	public void remotePathExpressionDefaultsToPayload() {
+		FtpProcessorProperties properties = new FtpProcessorProperties();
+		assertThat(properties.getRemotePathExpression().getExpressionString(), equalTo("payload"));
+		assertThat(properties.getMode(), equalTo(FetchMode.BYTES));
+	}
+
+	@Configuration
+	@EnableConfigurationProperties(FtpProcessorProperties.class)
+	static class Conf {
+
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.sink;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * An {@link InputStream} which compresses its source while it is read: each read pulls the
+ * next chunk of the source through the encoder, so no more than one chunk and its encoded
+ * output are held in memory and no intermediate file is needed.
+ */
+class CompressingInputStream extends InputStream {
+
+	private final EncodedBuffer encoded = new EncodedBuffer();
+
+	private final InputStream source;
+
+	private final OutputStream encoder;
+
+	private final byte[] chunk;
+
+	private int position;
+
+	private boolean finished;
+
+	CompressingInputStream(InputStream source, CompressionType type, int level, int bufferSize)
+			throws IOException {
+
+		this.source = source;
+		this.encoder = type.encoder(this.encoded, level, bufferSize);
+		this.chunk = new byte[bufferSize];
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] single = new byte[1];
+		int read = read(single, 0, 1);
+		return read < 0 ? -1 : single[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int length) throws IOException {
+		if (length == 0) {
+			return 0;
+		}
+		while (this.position == this.encoded.size()) {
+			if (this.finished) {
+				return -1;
+			}
+			this.encoded.reset();
+			this.position = 0;
+			int read = this.source.read(this.chunk);
+			if (read < 0) {
+				this.finished = true;
+				this.encoder.close();
+			}
+			else {
+				this.encoder.write(this.chunk, 0, read);
+			}
+		}
+		int count = Math.min(length, this.encoded.size() - this.position);
+		System.arraycopy(this.encoded.array(), this.position, bytes, offset, count);
+		this.position += count;
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			if (!this.finished) {
+				this.finished = true;
+				this.encoder.close();
+			}
+		}
+		finally {
+			this.source.close();
+		}
+	}
+
+	private static final class EncodedBuffer extends ByteArrayOutputStream {
+
+		byte[] array() {
+			return this.buf;
+		}
+
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.sink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import com.github.luben.zstd.ZstdOutputStream;
+
+/**
+ * The compression applied to the payloads uploaded by the FTP sink.
+ */
+public enum CompressionType {
+
+	/**
+	 * Upload the payloads as is.
+	 */
+	NONE(""),
+
+	/**
+	 * Compress the payloads with gzip.
+	 */
+	GZIP(".gz"),
+
+	/**
+	 * Compress the payloads with Zstandard.
+	 */
+	ZSTD(".zst");
+
+	private static final int ZSTD_DEFAULT_LEVEL = 3;
+
+	private static final int ZSTD_MAX_LEVEL = 22;
+
+	private final String extension;
+
+	CompressionType(String extension) {
+		this.extension = extension;
+	}
+
+	/**
+	 * The extension added to the remote file names.
+	 * @return the extension, including the dot.
+	 */
+	public String getExtension() {
+		return this.extension;
+	}
+
+	/**
+	 * The highest compression level of the codec; a negative level selects its default.
+	 * @return the highest level.
+	 */
+	public int getMaxLevel() {
+		switch (this) {
+			case GZIP:
+				return Deflater.BEST_COMPRESSION;
+			case ZSTD:
+				return ZSTD_MAX_LEVEL;
+			default:
+				return Integer.MAX_VALUE;
+		}
+	}
+
+	OutputStream encoder(OutputStream target, int level, int bufferSize) throws IOException {
+		switch (this) {
+			case GZIP:
+				return new GZIPOutputStream(target, bufferSize) {
+
+					{
+						this.def.setLevel(level < 0 ? Deflater.DEFAULT_COMPRESSION : level);
+					}
+
+				};
+			case ZSTD:
+				return new ZstdOutputStream(target, level < 0 ? ZSTD_DEFAULT_LEVEL : level);
+			default:
+				return target;
+		}
+	}
+
+}
@@ -0,0 +1,438 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.sink;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.stream.app.ftp.common.DelegatingFtpSession;
+import org.springframework.cloud.stream.app.ftp.common.LoadBalancingFtpSessionFactory;
+import org.springframework.integration.file.FileNameGenerator;
+import org.springframework.integration.file.remote.RemoteFileUtils;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.handler.AbstractMessageHandler;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandlingException;
+
+/**
+ * Appends message payloads to remote files through long-lived {@code APPE} transfers:
+ * one open transfer is kept per remote file and the payloads are buffered in front of it.
+ * A transfer is completed when it reaches the configured size, when the file has been idle
+ * for the configured time or when a rotation boundary is crossed.
+ * <p>
+ * The bytes of the current transfer are retained until the server confirms it, so when
+ * the data connection breaks, the handler reconnects, determines how much of the transfer
+ * reached the remote file and appends the remainder on a new transfer.
+ * <p>
+ * With {@code ftp.filename-affinity} and several servers, each remote file is bound to the
+ * server its name hashes to when its first payload is buffered, and all its transfers,
+ * including the ones completed or resumed by the scheduler threads, go to that server.
+ * <p>
+ * A message is considered handled once its payload is buffered; buffered data which
+ * cannot be written after all resume attempts is discarded and reported as a failure of
+ * the message being handled at that time.
+ */
+public class FtpBufferedAppendingMessageHandler extends AbstractMessageHandler implements DisposableBean {
+
+	private final Map<String, AppendTarget> targets = new ConcurrentHashMap<>();
+
+	private final SessionFactory<FTPFile> sessionFactory;
+
+	private final FtpSinkProperties properties;
+
+	private final FtpSinkProperties.Append append;
+
+	private final FileNameGenerator fileNameGenerator;
+
+	private volatile ScheduledFuture<?> expiryTask;
+
+	public FtpBufferedAppendingMessageHandler(SessionFactory<FTPFile> sessionFactory, FtpSinkProperties properties,
+			FileNameGenerator fileNameGenerator) {
+
+		this.sessionFactory = sessionFactory;
+		this.properties = properties;
+		this.append = properties.getAppend();
+		this.fileNameGenerator = fileNameGenerator;
+	}
+
+	@Override
+	protected void onInit() {
+		super.onInit();
+		long period = Math.max(100, Math.min(this.append.getIdleTimeout().toMillis() / 2, 1000));
+		this.expiryTask = getTaskScheduler().scheduleWithFixedDelay(this::completeExpiredTransfers, period);
+	}
+
+	@Override
+	protected void handleMessageInternal(Message<?> message) throws Exception {
+		String fileName = this.fileNameGenerator.generateFileName(message);
+		String remotePath = remotePath(fileName);
+		while (true) {
+			AppendTarget target = this.targets.computeIfAbsent(remotePath,
+					path -> new AppendTarget(path, targetSessionFactory(fileName)));
+			target.lock.lock();
+			try {
+				if (target.retired) {
+					continue;
+				}
+				try {
+					target.completeIfRotated(System.currentTimeMillis());
+					writePayload(target, message.getPayload());
+				}
+				catch (IOException e) {
+					long lost = target.discard();
+					throw new MessageHandlingException(message, "Failed to append to '" + remotePath + "', "
+							+ lost + " buffered bytes are lost", e);
+				}
+				return;
+			}
+			finally {
+				target.lock.unlock();
+			}
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (this.expiryTask != null) {
+			this.expiryTask.cancel(false);
+		}
+		for (AppendTarget target : this.targets.values()) {
+			target.lock.lock();
+			try {
+				target.completeAndRetire();
+			}
+			catch (IOException e) {
+				this.logger.error("Failed to complete the transfer to '" + target.remotePath + "', "
+						+ target.discard() + " buffered bytes are lost", e);
+			}
+			finally {
+				target.lock.unlock();
+			}
+		}
+	}
+
+	private void completeExpiredTransfers() {
+		long now = System.currentTimeMillis();
+		long idleTimeout = this.append.getIdleTimeout().toMillis();
+		for (AppendTarget target : this.targets.values()) {
+			if (target.lock.tryLock()) {
+				try {
+					if (!target.retired && (now - target.lastWrite >= idleTimeout || target.isRotated(now))) {
+						target.completeAndRetire();
+					}
+				}
+				catch (IOException e) {
+					this.logger.error("Failed to complete the transfer to '" + target.remotePath + "', "
+							+ target.discard() + " buffered bytes are lost", e);
+				}
+				finally {
+					target.lock.unlock();
+				}
+			}
+		}
+	}
+
+	private void writePayload(AppendTarget target, Object payload) throws IOException {
+		if (payload instanceof byte[]) {
+			byte[] bytes = (byte[]) payload;
+			target.write(bytes, 0, bytes.length);
+		}
+		else if (payload instanceof String) {
+			byte[] bytes = ((String) payload).getBytes(StandardCharsets.UTF_8);
+			target.write(bytes, 0, bytes.length);
+		}
+		else if (payload instanceof File) {
+			try (InputStream inputStream = new FileInputStream((File) payload)) {
+				target.write(inputStream);
+			}
+		}
+		else if (payload instanceof InputStream) {
+			try (InputStream inputStream = (InputStream) payload) {
+				target.write(inputStream);
+			}
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported payload type [" + payload.getClass().getName()
+					+ "]. The only supported payloads are java.io.File, java.lang.String, byte[] and InputStream");
+		}
+	}
+
+	/**
+	 * The factory of the sessions of a remote file: that of the server the file name
+	 * hashes to with the file name affinity, so that the connections opened outside of
+	 * the handling thread also go to that server.
+	 */
+	private SessionFactory<FTPFile> targetSessionFactory(String fileName) {
+		if (this.properties.isFilenameAffinity() && this.sessionFactory instanceof LoadBalancingFtpSessionFactory) {
+			return ((LoadBalancingFtpSessionFactory) this.sessionFactory).getAffineSessionFactory(fileName);
+		}
+		return this.sessionFactory;
+	}
+
+	private String remotePath(String fileName) {
+		String remoteDir = this.properties.getRemoteDir();
+		String separator = this.properties.getRemoteFileSeparator();
+		return remoteDir.endsWith(separator) ? remoteDir + fileName : remoteDir + separator + fileName;
+	}
+
+	private final class AppendTarget {
+
+		private final ReentrantLock lock = new ReentrantLock();
+
+		private final String remotePath;
+
+		private final SessionFactory<FTPFile> sessionFactory;
+
+		/**
+		 * Bytes not yet handed to the open transfer.
+		 */
+		private final ResettableByteArrayOutputStream buffer = new ResettableByteArrayOutputStream();
+
+		/**
+		 * Bytes handed to the open transfer, but not yet confirmed by the server.
+		 */
+		private final ResettableByteArrayOutputStream transfer = new ResettableByteArrayOutputStream();
+
+		private Session<FTPFile> session;
+
+		private OutputStream stream;
+
+		/**
+		 * The remote file size when the open transfer started.
+		 */
+		private long transferBase;
+
+		private long transferStarted;
+
+		private long lastWrite = System.currentTimeMillis();
+
+		private boolean directoryCreated;
+
+		private boolean retired;
+
+		AppendTarget(String remotePath, SessionFactory<FTPFile> sessionFactory) {
+			this.remotePath = remotePath;
+			this.sessionFactory = sessionFactory;
+		}
+
+		void write(byte[] bytes, int offset, int length) throws IOException {
+			this.buffer.write(bytes, offset, length);
+			this.lastWrite = System.currentTimeMillis();
+			if (this.buffer.size() >= FtpBufferedAppendingMessageHandler.this.append.getBufferSize()) {
+				flush();
+			}
+		}
+
+		void write(InputStream inputStream) throws IOException {
+			byte[] chunk = new byte[8192];
+			int read;
+			while ((read = inputStream.read(chunk)) >= 0) {
+				write(chunk, 0, read);
+			}
+		}
+
+		boolean isRotated(long now) {
+			Duration rotationInterval = FtpBufferedAppendingMessageHandler.this.append.getRotationInterval();
+			if (rotationInterval == null || this.stream == null) {
+				return false;
+			}
+			long interval = rotationInterval.toMillis();
+			return this.transferStarted / interval != now / interval;
+		}
+
+		void completeIfRotated(long now) throws IOException {
+			if (isRotated(now)) {
+				flush();
+				complete();
+			}
+		}
+
+		void completeAndRetire() throws IOException {
+			this.retired = true;
+			FtpBufferedAppendingMessageHandler.this.targets.remove(this.remotePath, this);
+			flush();
+			complete();
+		}
+
+		long discard() {
+			long lost = this.buffer.size() + this.transfer.size();
+			this.buffer.reset();
+			this.transfer.reset();
+			abandon();
+			this.retired = true;
+			FtpBufferedAppendingMessageHandler.this.targets.remove(this.remotePath, this);
+			return lost;
+		}
+
+		private void flush() throws IOException {
+			if (this.buffer.size() == 0) {
+				return;
+			}
+			if (this.stream == null) {
+				open();
+			}
+			int from = this.transfer.size();
+			this.buffer.writeTo(this.transfer);
+			this.buffer.reset();
+			try {
+				this.stream.write(this.transfer.array(), from, this.transfer.size() - from);
+				this.stream.flush();
+			}
+			catch (IOException e) {
+				resume(e);
+			}
+			if (this.transfer.size() >= FtpBufferedAppendingMessageHandler.this.append.getMaxTransferSize()) {
+				complete();
+			}
+		}
+
+		private void complete() throws IOException {
+			if (this.stream == null) {
+				return;
+			}
+			int maxAttempts = FtpBufferedAppendingMessageHandler.this.append.getMaxAttempts();
+			for (int attempt = 1; ; attempt++) {
+				try {
+					this.stream.close();
+					FTPClient client = (FTPClient) this.session.getClientInstance();
+					if (!client.completePendingCommand()) {
+						throw new IOException("Failed to complete the transfer to '" + this.remotePath + "': "
+								+ client.getReplyString());
+					}
+					break;
+				}
+				catch (IOException e) {
+					if (attempt >= maxAttempts) {
+						throw e;
+					}
+					resume(e);
+				}
+			}
+			this.stream = null;
+			this.transfer.reset();
+			this.session.close();
+			this.session = null;
+		}
+
+		private void open() throws IOException {
+			connect();
+			this.transferBase = remoteSize();
+			startTransfer();
+		}
+
+		private void connect() throws IOException {
+			this.session = this.sessionFactory.getSession();
+			if (!this.directoryCreated && FtpBufferedAppendingMessageHandler.this.properties.isAutoCreateDir()) {
+				RemoteFileUtils.makeDirectories(FtpBufferedAppendingMessageHandler.this.properties.getRemoteDir(),
+						this.session, FtpBufferedAppendingMessageHandler.this.properties.getRemoteFileSeparator(),
+						FtpBufferedAppendingMessageHandler.this.logger);
+				this.directoryCreated = true;
+			}
+		}
+
+		private void startTransfer() throws IOException {
+			FTPClient client = (FTPClient) this.session.getClientInstance();
+			OutputStream outputStream = client.appendFileStream(this.remotePath);
+			if (outputStream == null) {
+				throw new IOException("Failed to start a transfer to '" + this.remotePath + "': "
+						+ client.getReplyString());
+			}
+			this.stream = outputStream;
+			this.transferStarted = System.currentTimeMillis();
+		}
+
+		/**
+		 * Reconnect and append the part of the current transfer which did not reach the
+		 * remote file.
+		 */
+		private void resume(IOException cause) throws IOException {
+			int maxAttempts = FtpBufferedAppendingMessageHandler.this.append.getMaxAttempts();
+			IOException failure = cause;
+			for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+				FtpBufferedAppendingMessageHandler.this.logger.warn("Resuming the transfer to '" + this.remotePath
+						+ "' after failure, attempt " + attempt, failure);
+				abandon();
+				try {
+					connect();
+					long size = remoteSize();
+					long received = Math.max(0, Math.min(size - this.transferBase, this.transfer.size()));
+					this.transfer.discardHead((int) received);
+					this.transferBase = size;
+					startTransfer();
+					this.stream.write(this.transfer.array(), 0, this.transfer.size());
+					this.stream.flush();
+					return;
+				}
+				catch (IOException e) {
+					failure = e;
+				}
+			}
+			throw failure;
+		}
+
+		private long remoteSize() throws IOException {
+			FTPFile[] files = this.session.list(this.remotePath);
+			return files.length == 1 && files[0] != null ? files[0].getSize() : 0;
+		}
+
+		private void abandon() {
+			if (this.stream != null) {
+				try {
+					this.stream.close();
+				}
+				catch (IOException e) {
+					// the data connection is already broken
+				}
+				this.stream = null;
+			}
+			if (this.session != null) {
+				DelegatingFtpSession.invalidate(this.session);
+				this.session.close();
+				this.session = null;
+			}
+		}
+
+	}
+
+	private static final class ResettableByteArrayOutputStream extends ByteArrayOutputStream {
+
+		byte[] array() {
+			return this.buf;
+		}
+
+		void discardHead(int length) {
+			System.arraycopy(this.buf, length, this.buf, 0, this.count - length);
+			this.count -= length;
+		}
+
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2015-2018 the original author or authors.
+ * Copyright 2015-2019 the original author or authors.
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
  * You may obtain a copy of the License at
@@ -15,21 +15,34 @@
 
 package org.springframework.cloud.stream.app.ftp.sink;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.aopalliance.aop.Advice;
 import org.apache.commons.net.ftp.FTPFile;
 
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.stream.annotation.EnableBinding;
-import org.springframework.cloud.stream.app.ftp.FtpSessionFactoryConfiguration;
+import org.springframework.cloud.stream.app.ftp.common.FtpClientSessionFactoryConfiguration;
+import org.springframework.cloud.stream.app.ftp.common.FtpMetrics;
+import org.springframework.cloud.stream.app.ftp.common.LoadBalancingFtpSessionFactory;
 import org.springframework.cloud.stream.messaging.Sink;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.integration.dsl.GenericEndpointSpec;
 import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.dsl.IntegrationFlowBuilder;
 import org.springframework.integration.dsl.IntegrationFlows;
+import org.springframework.integration.file.DefaultFileNameGenerator;
+import org.springframework.integration.file.FileNameGenerator;
 import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.filter.MessageFilter;
 import org.springframework.integration.ftp.dsl.Ftp;
 import org.springframework.integration.ftp.dsl.FtpMessageHandlerSpec;
 import org.springframework.integration.ftp.session.FtpRemoteFileTemplate;
+import org.springframework.integration.transformer.MessageTransformingHandler;
 
 /**
  * @author Gary Russell
@@ -37,26 +50,83 @@ import org.springframework.integration.ftp.session.FtpRemoteFileTemplate;
  */
 @EnableBinding(Sink.class)
 @EnableConfigurationProperties(FtpSinkProperties.class)
-@Import(FtpSessionFactoryConfiguration.class)
+@Import(FtpClientSessionFactoryConfiguration.class)
 public class FtpSinkConfiguration {
 
 	@Autowired
 	private Sink sink;
 
+	@Autowired
+	private BeanFactory beanFactory;
+
 	@Bean
-	public IntegrationFlow ftpInboundFlow(FtpSinkProperties properties, SessionFactory<FTPFile> ftpSessionFactory) {
+	public IntegrationFlow ftpInboundFlow(FtpSinkProperties properties, SessionFactory<FTPFile> ftpSessionFactory,
+			ObjectProvider<MeterRegistry> meterRegistry, FtpMetrics ftpMetrics) {
+
+		FtpSinkProperties.Compression compression = properties.getCompression();
+		IntegrationFlowBuilder flowBuilder = IntegrationFlows.from(Sink.INPUT);
+		HostAffinityAdvice advice = hostAffinityAdvice(properties, ftpSessionFactory);
+		TransferTimingAdvice timingAdvice = new TransferTimingAdvice(ftpMetrics, properties.getRemoteDir());
+		if (properties.getSkipIdentical() != SkipIdenticalMode.NONE) {
+			IdenticalRemoteFileSelector selector =
+					new IdenticalRemoteFileSelector(ftpSessionFactory, fileNameGenerator(properties), properties,
+							meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+			flowBuilder.handle(new MessageFilter(selector), e -> advise(e, advice));
+		}
+		if (compression.getType() != CompressionType.NONE) {
+			flowBuilder.handle(new MessageTransformingHandler(new PayloadCompressingTransformer(compression)));
+		}
+
+		if (properties.getAppend().isBuffered()) {
+			return flowBuilder
+					.handle(new FtpBufferedAppendingMessageHandler(ftpSessionFactory, properties,
+							fileNameGenerator(properties)), e -> advise(e, timingAdvice))
+					.get();
+		}
+
 		FtpMessageHandlerSpec handlerSpec =
 				Ftp.outboundAdapter(new FtpRemoteFileTemplate(ftpSessionFactory), properties.getMode())
 						.remoteDirectory(properties.getRemoteDir())
 						.remoteFileSeparator(properties.getRemoteFileSeparator())
 						.autoCreateDirectory(properties.isAutoCreateDir())
 						.temporaryFileSuffix(properties.getTmpFileSuffix());
-		if (properties.getFilenameExpression() != null) {
+		if (compression.getType() != CompressionType.NONE) {
+			handlerSpec.fileNameGenerator(fileNameGenerator(properties));
+		}
+		else if (properties.getFilenameExpression() != null) {
 			handlerSpec.fileNameExpression(properties.getFilenameExpression().getExpressionString());
 		}
-		return IntegrationFlows.from(Sink.INPUT)
-				.handle(handlerSpec)
+		return flowBuilder
+				.handle(handlerSpec, e -> advise(e, timingAdvice, advice))
 				.get();
 	}
 
+	private HostAffinityAdvice hostAffinityAdvice(FtpSinkProperties properties,
+			SessionFactory<FTPFile> ftpSessionFactory) {
+
+		if (properties.isFilenameAffinity() && ftpSessionFactory instanceof LoadBalancingFtpSessionFactory) {
+			return new HostAffinityAdvice((LoadBalancingFtpSessionFactory) ftpSessionFactory,
+					fileNameGenerator(properties));
+		}
+		return null;
+	}
+
+	private static void advise(GenericEndpointSpec<?> endpoint, Advice... advices) {
+		for (Advice advice : advices) {
+			if (advice != null) {
+				endpoint.advice(advice);
+			}
+		}
+	}
+
+	private FileNameGenerator fileNameGenerator(FtpSinkProperties properties) {
+		DefaultFileNameGenerator fileNameGenerator = new DefaultFileNameGenerator();
+		if (properties.getFilenameExpression() != null) {
+			fileNameGenerator.setExpression(properties.getFilenameExpression().getExpressionString());
+		}
+		fileNameGenerator.setBeanFactory(this.beanFactory);
+		String extension = properties.getCompression().getType().getExtension();
+		return message -> fileNameGenerator.generateFileName(message) + extension;
+	}
+
 }
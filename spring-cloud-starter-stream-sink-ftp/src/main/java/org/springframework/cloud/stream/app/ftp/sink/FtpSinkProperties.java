@@ -15,6 +15,11 @@
 
 package org.springframework.cloud.stream.app.ftp.sink;
 
+import java.time.Duration;
+
+import javax.validation.Valid;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
@@ -72,6 +77,27 @@ public class FtpSinkProperties {
 	 */
 	private Expression filenameExpression;
 
+	/**
+	 * Whether to skip the upload when the remote file is identical to the payload.
+	 */
+	private SkipIdenticalMode skipIdentical = SkipIdenticalMode.NONE;
+
+	/**
+	 * Set to true to upload each file to the server its remote file name hashes to, when
+	 * 'ftp.factory.hosts' lists several servers.
+	 */
+	private boolean filenameAffinity = false;
+
+	/**
+	 * Settings for the buffered append mode.
+	 */
+	private final Append append = new Append();
+
+	/**
+	 * Settings for compressing the payloads while they are uploaded.
+	 */
+	private final Compression compression = new Compression();
+
 	@NotBlank
 	public String getTemporaryRemoteDir() {
 		return this.temporaryRemoteDir;
@@ -141,4 +167,189 @@ public class FtpSinkProperties {
 		this.remoteFileSeparator = remoteFileSeparator;
 	}
 
+	@NotNull
+	public SkipIdenticalMode getSkipIdentical() {
+		return this.skipIdentical;
+	}
+
+	public void setSkipIdentical(SkipIdenticalMode skipIdentical) {
+		this.skipIdentical = skipIdentical;
+	}
+
+	public boolean isFilenameAffinity() {
+		return this.filenameAffinity;
+	}
+
+	public void setFilenameAffinity(boolean filenameAffinity) {
+		this.filenameAffinity = filenameAffinity;
+	}
+
+	@Valid
+	public Append getAppend() {
+		return this.append;
+	}
+
+	@Valid
+	public Compression getCompression() {
+		return this.compression;
+	}
+
+	@AssertTrue(message = "append.buffered requires mode APPEND or APPEND_NO_FLUSH")
+	public boolean isBufferedAppendModeValid() {
+		return !this.append.isBuffered()
+				|| this.mode == FileExistsMode.APPEND || this.mode == FileExistsMode.APPEND_NO_FLUSH;
+	}
+
+	@AssertTrue(message = "skipIdentical cannot be combined with compression")
+	public boolean isSkipIdenticalWithoutCompression() {
+		return this.skipIdentical == SkipIdenticalMode.NONE || this.compression.getType() == CompressionType.NONE;
+	}
+
+	@AssertTrue(message = "skipIdentical cannot be combined with the APPEND and APPEND_NO_FLUSH modes")
+	public boolean isSkipIdenticalWithoutAppend() {
+		return this.skipIdentical == SkipIdenticalMode.NONE
+				|| (this.mode != FileExistsMode.APPEND && this.mode != FileExistsMode.APPEND_NO_FLUSH
+						&& !this.append.isBuffered());
+	}
+
+	public static class Append {
+
+		/**
+		 * Whether to keep an open APPE transfer per remote file and buffer the writes
+		 * instead of opening a new transfer for each message.
+		 */
+		private boolean buffered = false;
+
+		/**
+		 * The number of buffered bytes which triggers a write to the open transfer.
+		 */
+		private int bufferSize = 64 * 1024;
+
+		/**
+		 * The number of bytes after which an open transfer is completed; the bytes of the
+		 * current transfer are retained in memory to resume after a broken data connection.
+		 */
+		private int maxTransferSize = 8 * 1024 * 1024;
+
+		/**
+		 * The time without writes after which an open transfer is flushed and completed.
+		 */
+		private Duration idleTimeout = Duration.ofSeconds(10);
+
+		/**
+		 * An interval, aligned to the epoch, whose boundaries complete the open transfers.
+		 */
+		private Duration rotationInterval;
+
+		/**
+		 * The number of attempts to resume a transfer after its data connection breaks.
+		 */
+		private int maxAttempts = 3;
+
+		public boolean isBuffered() {
+			return this.buffered;
+		}
+
+		public void setBuffered(boolean buffered) {
+			this.buffered = buffered;
+		}
+
+		@Min(1)
+		public int getBufferSize() {
+			return this.bufferSize;
+		}
+
+		public void setBufferSize(int bufferSize) {
+			this.bufferSize = bufferSize;
+		}
+
+		@Min(1)
+		public int getMaxTransferSize() {
+			return this.maxTransferSize;
+		}
+
+		public void setMaxTransferSize(int maxTransferSize) {
+			this.maxTransferSize = maxTransferSize;
+		}
+
+		@NotNull
+		public Duration getIdleTimeout() {
+			return this.idleTimeout;
+		}
+
+		public void setIdleTimeout(Duration idleTimeout) {
+			this.idleTimeout = idleTimeout;
+		}
+
+		public Duration getRotationInterval() {
+			return this.rotationInterval;
+		}
+
+		public void setRotationInterval(Duration rotationInterval) {
+			this.rotationInterval = rotationInterval;
+		}
+
+		@Min(1)
+		public int getMaxAttempts() {
+			return this.maxAttempts;
+		}
+
+		public void setMaxAttempts(int maxAttempts) {
+			this.maxAttempts = maxAttempts;
+		}
+
+	}
+
+	public static class Compression {
+
+		/**
+		 * The compression to apply to the payloads; the matching extension is added to the
+		 * remote file name.
+		 */
+		private CompressionType type = CompressionType.NONE;
+
+		/**
+		 * The compression level, up to 9 for GZIP and 22 for ZSTD; a negative value selects
+		 * the default of the codec.
+		 */
+		private int level = -1;
+
+		/**
+		 * The size of the chunks read from the payload and of the encoder buffer.
+		 */
+		private int bufferSize = 64 * 1024;
+
+		@NotNull
+		public CompressionType getType() {
+			return this.type;
+		}
+
+		public void setType(CompressionType type) {
+			this.type = type;
+		}
+
+		public int getLevel() {
+			return this.level;
+		}
+
+		public void setLevel(int level) {
+			this.level = level;
+		}
+
+		@Min(1)
+		public int getBufferSize() {
+			return this.bufferSize;
+		}
+
+		public void setBufferSize(int bufferSize) {
+			this.bufferSize = bufferSize;
+		}
+
+		@AssertTrue(message = "compression.level must be at most 9 for GZIP and 22 for ZSTD")
+		public boolean isLevelInRange() {
+			return this.type == null || this.level <= this.type.getMaxLevel();
+		}
+
+	}
+
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.sink;
+
+import org.springframework.cloud.stream.app.ftp.common.LoadBalancingFtpSessionFactory;
+import org.springframework.integration.file.FileNameGenerator;
+import org.springframework.integration.handler.advice.AbstractRequestHandlerAdvice;
+import org.springframework.messaging.Message;
+
+/**
+ * A handler advice pinning the sessions the handler opens to the server the generated file
+ * name hashes to, so that a given remote file always lands on the same mirror.
+ */
+class HostAffinityAdvice extends AbstractRequestHandlerAdvice {
+
+	private final LoadBalancingFtpSessionFactory sessionFactory;
+
+	private final FileNameGenerator fileNameGenerator;
+
+	HostAffinityAdvice(LoadBalancingFtpSessionFactory sessionFactory, FileNameGenerator fileNameGenerator) {
+		this.sessionFactory = sessionFactory;
+		this.fileNameGenerator = fileNameGenerator;
+	}
+
+	@Override
+	protected Object doInvoke(ExecutionCallback callback, Object target, Message<?> message) {
+		this.sessionFactory.setAffinityKey(this.fileNameGenerator.generateFileName(message));
+		try {
+			return callback.execute();
+		}
+		finally {
+			this.sessionFactory.clearAffinityKey();
+		}
+	}
+
+}
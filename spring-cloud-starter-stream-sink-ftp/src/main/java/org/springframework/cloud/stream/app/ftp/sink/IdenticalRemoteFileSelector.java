@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.sink;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+
+import org.springframework.cloud.stream.app.ftp.common.FtpServerHash;
+import org.springframework.cloud.stream.app.ftp.common.FtpServerHashCommands;
+import org.springframework.integration.core.MessageSelector;
+import org.springframework.integration.file.FileNameGenerator;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.messaging.Message;
+
+/**
+ * A {@link MessageSelector} which rejects messages whose payload is already present on the
+ * server with the same content, so that replays do not transfer the bytes again.
+ * <p>
+ * With {@link SkipIdenticalMode#METADATA}, a {@link File} payload is identical when the
+ * remote file has the same size and was modified after it. With
+ * {@link SkipIdenticalMode#HASH}, the payload is hashed locally and compared to the hash
+ * computed by the server through the {@code HASH} or {@code XMD5} command, whichever the
+ * server advertises first, each server being probed once; when it supports neither, the
+ * metadata comparison is used instead. {@link InputStream} payloads are never skipped.
+ */
+class IdenticalRemoteFileSelector implements MessageSelector {
+
+	private static final Log logger = LogFactory.getLog(IdenticalRemoteFileSelector.class);
+
+	private final SessionFactory<FTPFile> sessionFactory;
+
+	private final FileNameGenerator fileNameGenerator;
+
+	private final FtpSinkProperties properties;
+
+	private final Counter metadataSkips;
+
+	private final Counter hashSkips;
+
+	private final FtpServerHashCommands hashCommands = new FtpServerHashCommands();
+
+	IdenticalRemoteFileSelector(SessionFactory<FTPFile> sessionFactory, FileNameGenerator fileNameGenerator,
+			FtpSinkProperties properties, MeterRegistry meterRegistry) {
+
+		this.sessionFactory = sessionFactory;
+		this.fileNameGenerator = fileNameGenerator;
+		this.properties = properties;
+		this.metadataSkips = Counter.builder("ftp.sink.skipped")
+				.description("Uploads skipped because the remote file is identical")
+				.tag("check", "metadata")
+				.register(meterRegistry);
+		this.hashSkips = Counter.builder("ftp.sink.skipped")
+				.description("Uploads skipped because the remote file is identical")
+				.tag("check", "hash")
+				.register(meterRegistry);
+	}
+
+	@Override
+	public boolean accept(Message<?> message) {
+		Object payload = message.getPayload();
+		if (payload instanceof InputStream) {
+			return true;
+		}
+		String remoteDir = this.properties.getRemoteDir();
+		String separator = this.properties.getRemoteFileSeparator();
+		String fileName = this.fileNameGenerator.generateFileName(message);
+		String remotePath = remoteDir.endsWith(separator) ? remoteDir + fileName : remoteDir + separator + fileName;
+		try (Session<FTPFile> session = this.sessionFactory.getSession()) {
+			FTPFile[] files = session.list(remotePath);
+			if (files.length != 1 || files[0] == null || !files[0].isFile()) {
+				return true;
+			}
+			FTPClient client = (FTPClient) session.getClientInstance();
+			if (this.properties.getSkipIdentical() == SkipIdenticalMode.HASH) {
+				String command = this.hashCommands.supportedCommand(client);
+				if (!command.isEmpty()) {
+					boolean identical = hashMatches(client, command, remotePath, payload);
+					if (identical) {
+						skipped(remotePath, this.hashSkips);
+					}
+					return !identical;
+				}
+			}
+			boolean identical = payload instanceof File && metadataMatches(client, remotePath, files[0], (File) payload);
+			if (identical) {
+				skipped(remotePath, this.metadataSkips);
+			}
+			return !identical;
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Failed to check the remote file '" + remotePath + "'", e);
+		}
+	}
+
+	private void skipped(String remotePath, Counter counter) {
+		counter.increment();
+		if (logger.isDebugEnabled()) {
+			logger.debug("Skipping the upload to '" + remotePath + "': the remote file is identical");
+		}
+	}
+
+	private boolean metadataMatches(FTPClient client, String remotePath, FTPFile remoteFile, File file)
+			throws IOException {
+
+		if (remoteFile.getSize() != file.length()) {
+			return false;
+		}
+		String modificationTime = client.getModificationTime(remotePath);
+		if (modificationTime == null || modificationTime.trim().length() < 14) {
+			return false;
+		}
+		SimpleDateFormat format = new SimpleDateFormat("yyyyMMddHHmmss", Locale.ROOT);
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		try {
+			long remoteModified = format.parse(modificationTime.trim().substring(0, 14)).getTime();
+			return remoteModified >= file.lastModified() / 1000 * 1000;
+		}
+		catch (ParseException e) {
+			return false;
+		}
+	}
+
+	private boolean hashMatches(FTPClient client, String command, String remotePath, Object payload)
+			throws IOException {
+
+		FtpServerHash remoteHash = FtpServerHash.remote(client, command, remotePath);
+		if (remoteHash == null) {
+			return false;
+		}
+		try (InputStream inputStream = payloadStream(payload)) {
+			return inputStream != null
+					&& remoteHash.equals(FtpServerHash.local(remoteHash.getAlgorithm(), inputStream));
+		}
+	}
+
+	private static InputStream payloadStream(Object payload) throws IOException {
+		if (payload instanceof File) {
+			return new FileInputStream((File) payload);
+		}
+		else if (payload instanceof byte[]) {
+			return new ByteArrayInputStream((byte[]) payload);
+		}
+		else if (payload instanceof String) {
+			return new ByteArrayInputStream(((String) payload).getBytes(StandardCharsets.UTF_8));
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.sink;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.transformer.AbstractTransformer;
+import org.springframework.messaging.Message;
+
+/**
+ * Replaces the payload with a {@link CompressingInputStream} over it, so the upload is
+ * compressed while it is streamed. The name of a {@link File} payload is kept in the
+ * {@link FileHeaders#FILENAME} header for the remote file name generation.
+ */
+class PayloadCompressingTransformer extends AbstractTransformer {
+
+	private final FtpSinkProperties.Compression compression;
+
+	PayloadCompressingTransformer(FtpSinkProperties.Compression compression) {
+		this.compression = compression;
+	}
+
+	@Override
+	protected Object doTransform(Message<?> message) {
+		Object payload = message.getPayload();
+		try {
+			MessageBuilder<InputStream> builder =
+					MessageBuilder.withPayload(compress(payload))
+							.copyHeaders(message.getHeaders());
+			if (payload instanceof File && !message.getHeaders().containsKey(FileHeaders.FILENAME)) {
+				builder.setHeader(FileHeaders.FILENAME, ((File) payload).getName());
+			}
+			return builder.build();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private InputStream compress(Object payload) throws IOException {
+		InputStream source;
+		if (payload instanceof byte[]) {
+			source = new ByteArrayInputStream((byte[]) payload);
+		}
+		else if (payload instanceof String) {
+			source = new ByteArrayInputStream(((String) payload).getBytes(StandardCharsets.UTF_8));
+		}
+		else if (payload instanceof File) {
+			source = new FileInputStream((File) payload);
+		}
+		else if (payload instanceof InputStream) {
+			source = (InputStream) payload;
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported payload type [" + payload.getClass().getName()
+					+ "]. The only supported payloads are java.io.File, java.lang.String, byte[] and InputStream");
+		}
+		return new CompressingInputStream(source, this.compression.getType(), this.compression.getLevel(),
+				this.compression.getBufferSize());
+	}
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.sink;
+
+/**
+ * How the FTP sink decides that a remote file is identical to the payload, in which case
+ * the upload is skipped.
+ */
+public enum SkipIdenticalMode {
+
+	/**
+	 * Always upload.
+	 */
+	NONE,
+
+	/**
+	 * Skip when the remote file has the size of the local file and was modified after it.
+	 */
+	METADATA,
+
+	/**
+	 * Skip when the server-side hash of the remote file matches the hash of the payload;
+	 * falls back to {@link #METADATA} when the server supports no hash command.
+	 */
+	HASH
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.sink;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.cloud.stream.app.ftp.common.FtpMetrics;
+import org.springframework.integration.handler.advice.AbstractRequestHandlerAdvice;
+import org.springframework.messaging.Message;
+
+/**
+ * A handler advice timing the handling of each message by the uploading handler, from the
+ * directory creation to the final rename, with the {@code ftp.sink.transfer} timer tagged
+ * with the outcome.
+ */
+class TransferTimingAdvice extends AbstractRequestHandlerAdvice {
+
+	private final Timer successTimer;
+
+	private final Timer failureTimer;
+
+	TransferTimingAdvice(FtpMetrics metrics, String remoteDirectory) {
+		this.successTimer = metrics.timer("ftp.sink.transfer", "The time spent uploading a message",
+				Tags.of("remoteDir", remoteDirectory, "outcome", "success"));
+		this.failureTimer = metrics.timer("ftp.sink.transfer", "The time spent uploading a message",
+				Tags.of("remoteDir", remoteDirectory, "outcome", "failure"));
+	}
+
+	@Override
+	protected Object doInvoke(ExecutionCallback callback, Object target, Message<?> message) {
+		long start = System.nanoTime();
+		Timer timer = this.failureTimer;
+		try {
+			Object result = callback.execute();
+			timer = this.successTimer;
+			return result;
+		}
+		finally {
+			timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.sink;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.junit.Test;
+
+import org.springframework.util.StreamUtils;
+
+public class CompressingInputStreamTests {
+
+	private final byte[] data = new byte[300_000];
+
+	public CompressingInputStreamTests() {
+		new Random(42).nextBytes(this.data);
+		for (int i = 0; i < this.data.length; i += 2) {
+			this.data[i] = 'x';
+		}
+	}
+
+	@Test
+	public void gzipRoundTrip() throws Exception {
+		try (InputStream compressed = new CompressingInputStream(new ByteArrayInputStream(this.data),
+				CompressionType.GZIP, -1, 1024)) {
+			assertArrayEquals(this.data, StreamUtils.copyToByteArray(new GZIPInputStream(compressed)));
+		}
+	}
+
+	@Test
+	public void zstdRoundTrip() throws Exception {
+		try (InputStream compressed = new CompressingInputStream(new ByteArrayInputStream(this.data),
+				CompressionType.ZSTD, 1, 1024)) {
+			assertArrayEquals(this.data, StreamUtils.copyToByteArray(new ZstdInputStream(compressed)));
+		}
+	}
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.sink;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.cloud.stream.app.ftp.common.FtpHostsProperties;
+import org.springframework.cloud.stream.app.ftp.common.LoadBalancingFtpSessionFactory;
+import org.springframework.cloud.stream.app.test.ftp.EmbeddedFtpServer;
+import org.springframework.cloud.stream.app.test.ftp.NetworkConditions;
+import org.springframework.cloud.stream.app.test.ftp.NetworkShapingFtpProxy;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.ftp.session.DefaultFtpSessionFactory;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Verifies that, with the file name affinity, the transfers of a remote file completed or
+ * resumed by the scheduler threads go to the server of the file, like the ones started by
+ * the handling thread.
+ */
+public class FtpBufferedAppendingMessageHandlerTests {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final List<EmbeddedFtpServer> servers = new ArrayList<>();
+
+	private final List<NetworkShapingFtpProxy> proxies = new ArrayList<>();
+
+	private final FtpSinkProperties properties = new FtpSinkProperties();
+
+	private final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+
+	private LoadBalancingFtpSessionFactory sessionFactory;
+
+	private FtpBufferedAppendingMessageHandler handler;
+
+	@Before
+	public void setup() throws Exception {
+		Map<String, SessionFactory<FTPFile>> factories = new LinkedHashMap<>();
+		for (int i = 0; i < 2; i++) {
+			EmbeddedFtpServer server = EmbeddedFtpServer.start(this.temporaryFolder.newFolder());
+			this.servers.add(server);
+			NetworkShapingFtpProxy proxy = NetworkShapingFtpProxy.start("localhost", server.getPort(),
+					NetworkConditions.NONE);
+			this.proxies.add(proxy);
+			DefaultFtpSessionFactory ftpSessionFactory = new DefaultFtpSessionFactory();
+			ftpSessionFactory.setHost("localhost");
+			ftpSessionFactory.setPort(proxy.getPort());
+			ftpSessionFactory.setUsername("foo");
+			ftpSessionFactory.setPassword("foo");
+			ftpSessionFactory.setClientMode(FTPClient.PASSIVE_LOCAL_DATA_CONNECTION_MODE);
+			factories.put("localhost:" + proxy.getPort(), ftpSessionFactory);
+		}
+		this.sessionFactory = new LoadBalancingFtpSessionFactory(factories, new FtpHostsProperties(),
+				new SimpleMeterRegistry());
+		this.properties.setRemoteDir("/target");
+		this.properties.setFilenameAffinity(true);
+		this.properties.getAppend().setBuffered(true);
+		this.taskScheduler.initialize();
+		this.handler = new FtpBufferedAppendingMessageHandler(this.sessionFactory, this.properties,
+				message -> "data.txt");
+		this.handler.setTaskScheduler(this.taskScheduler);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		this.handler.destroy();
+		this.taskScheduler.shutdown();
+		this.sessionFactory.destroy();
+		this.proxies.forEach(NetworkShapingFtpProxy::close);
+		this.servers.forEach(EmbeddedFtpServer::close);
+	}
+
+	@Test
+	public void idleExpiredTransfersStayOnTheServerOfTheFile() throws Exception {
+		this.properties.getAppend().setIdleTimeout(Duration.ofMillis(200));
+		this.handler.afterPropertiesSet();
+		StringBuilder expectedContent = new StringBuilder();
+		// each payload stays in the buffer and is written by the next idle expiry, on a new transfer
+		for (int i = 1; i <= 4; i++) {
+			send("line" + i + "\n", expectedContent);
+			awaitSingleCopy(expectedContent.toString());
+		}
+	}
+
+	@Test
+	public void resumedTransfersStayOnTheServerOfTheFile() throws Exception {
+		this.properties.getAppend().setBufferSize(4);
+		this.properties.getAppend().setIdleTimeout(Duration.ofSeconds(2));
+		this.handler.afterPropertiesSet();
+		StringBuilder expectedContent = new StringBuilder();
+		send("line1\n", expectedContent);
+		awaitSingleCopy(expectedContent.toString());
+
+		// the idle expiry fails to complete the open transfer, reconnects and checks the remote size
+		this.proxies.forEach(NetworkShapingFtpProxy::dropConnections);
+		Thread.sleep(4000);
+		awaitSingleCopy(expectedContent.toString());
+
+		send("line2\n", expectedContent);
+		awaitSingleCopy(expectedContent.toString());
+	}
+
+	private void send(String line, StringBuilder expectedContent) {
+		this.handler.handleMessage(new GenericMessage<>(line));
+		expectedContent.append(line);
+	}
+
+	/**
+	 * Wait until one of the servers has the expected content, and check that the other
+	 * one never received the file.
+	 */
+	private void awaitSingleCopy(String expected) throws Exception {
+		File first = new File(this.servers.get(0).getHomeDirectory(), "target/data.txt");
+		File second = new File(this.servers.get(1).getHomeDirectory(), "target/data.txt");
+		for (int i = 0; i < 100 && !content(first).equals(expected) && !content(second).equals(expected); i++) {
+			Thread.sleep(100);
+		}
+		File copy = content(first).equals(expected) ? first : second;
+		File other = copy == first ? second : first;
+		assertThat(content(copy), equalTo(expected));
+		assertFalse(other + " must not exist", other.exists());
+	}
+
+	private static String content(File file) throws Exception {
+		return file.exists() ? new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8) : "";
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.sink;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.app.test.ftp.FtpTestSupport;
+import org.springframework.cloud.stream.messaging.Sink;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * Verifies that buffered appends to the same remote file land in order.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@DirtiesContext
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+		properties = {
+				"ftp.remoteDir = ftpTarget",
+				"ftp.factory.username = foo",
+				"ftp.factory.password = foo",
+				"ftp.mode = APPEND",
+				"ftp.append.buffered = true",
+				"ftp.append.bufferSize = 4",
+				"ftp.append.idleTimeout = 200ms",
+				"ftp.filenameExpression = 'appended.txt'"
+		})
+public class FtpSinkBufferedAppendIntegrationTests extends FtpTestSupport {
+
+	@Autowired
+	Sink ftpSink;
+
+	@Test
+	public void appendLines() throws Exception {
+		for (int i = 1; i <= 3; i++) {
+			this.ftpSink.input().send(new GenericMessage<>("line" + i + "\n"));
+		}
+		File expected = new File(getTargetRemoteDirectory(), "appended.txt");
+		String content = "";
+		for (int i = 0; i < 100 && !content.equals("line1\nline2\nline3\n"); i++) {
+			Thread.sleep(100);
+			if (expected.exists()) {
+				content = new String(Files.readAllBytes(expected.toPath()), StandardCharsets.UTF_8);
+			}
+		}
+		assertThat(content, equalTo("line1\nline2\nline3\n"));
+	}
+
+	@SpringBootApplication
+	public static class FtpSinkApplication {
+
+	}
+
+}
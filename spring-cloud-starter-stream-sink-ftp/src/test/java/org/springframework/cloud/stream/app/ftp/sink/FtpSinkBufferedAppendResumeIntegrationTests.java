@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.sink;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.app.test.ftp.FtpTestSupport;
+import org.springframework.cloud.stream.app.test.ftp.NetworkConditions;
+import org.springframework.cloud.stream.app.test.ftp.NetworkShapingFtpProxy;
+import org.springframework.cloud.stream.messaging.Sink;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * Verifies that a buffered append transfer whose connections are dropped is resumed
+ * without gaps or duplicate bytes in the remote file.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@DirtiesContext
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+		properties = {
+				"ftp.remoteDir = ftpTarget",
+				"ftp.factory.username = foo",
+				"ftp.factory.password = foo",
+				"ftp.factory.pool.enabled = true",
+				"ftp.mode = APPEND",
+				"ftp.append.buffered = true",
+				"ftp.append.bufferSize = 4",
+				"ftp.append.idleTimeout = 10s",
+				"ftp.filenameExpression = 'resumed.txt'"
+		})
+public class FtpSinkBufferedAppendResumeIntegrationTests extends FtpTestSupport {
+
+	private static NetworkShapingFtpProxy proxy;
+
+	@Autowired
+	Sink ftpSink;
+
+	@BeforeClass
+	public static void startProxy() throws IOException {
+		proxy = shapeNetwork(NetworkConditions.NONE);
+	}
+
+	@Test
+	public void appendResumesAfterConnectionsDropped() throws Exception {
+		StringBuilder expectedContent = new StringBuilder();
+		File remoteFile = new File(getTargetRemoteDirectory(), "resumed.txt");
+		for (int i = 1; i <= 5; i++) {
+			send("line" + i + "\n", expectedContent);
+		}
+		awaitContent(remoteFile, expectedContent.toString());
+		// the control and data connections of the open APPE transfer
+		proxy.dropConnections();
+		assertThat(proxy.getDroppedConnections(), greaterThanOrEqualTo(2L));
+		for (int i = 6; i <= 10; i++) {
+			send("line" + i + "\n", expectedContent);
+		}
+		awaitContent(remoteFile, expectedContent.toString());
+	}
+
+	private void send(String line, StringBuilder expectedContent) {
+		this.ftpSink.input().send(new GenericMessage<>(line));
+		expectedContent.append(line);
+	}
+
+	private static void awaitContent(File file, String expected) throws Exception {
+		String content = "";
+		for (int i = 0; i < 100 && !content.equals(expected); i++) {
+			Thread.sleep(100);
+			if (file.exists()) {
+				content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+			}
+		}
+		assertThat(content, equalTo(expected));
+	}
+
+	@SpringBootApplication
+	public static class FtpSinkApplication {
+
+	}
+
+}
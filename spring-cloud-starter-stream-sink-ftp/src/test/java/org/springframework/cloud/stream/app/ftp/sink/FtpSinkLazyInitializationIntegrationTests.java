@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.sink;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.app.ftp.common.LazyInitializationBeanFactoryPostProcessor;
+import org.springframework.cloud.stream.app.test.ftp.FtpTestSupport;
+import org.springframework.cloud.stream.messaging.Sink;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+		properties = {
+				"ftp.remoteDir = ftpTarget",
+				"ftp.factory.username = foo",
+				"ftp.factory.password = foo",
+				"ftp.startup.lazy-initialization = true"
+		})
+@DirtiesContext
+public class FtpSinkLazyInitializationIntegrationTests extends FtpTestSupport {
+
+	@Autowired
+	LazyInitializationBeanFactoryPostProcessor lazyInitialization;
+
+	@Autowired
+	Sink ftpSink;
+
+	@Test
+	public void filesAreStillUploaded() {
+		this.ftpSink.input().send(new GenericMessage<>(new File(getSourceLocalDirectory(), "localSource1.txt")));
+		File expected = new File(getTargetRemoteDirectory(), "localSource1.txt");
+		assertTrue(expected.getAbsolutePath() + " does not exist", expected.exists());
+	}
+
+	@SpringBootApplication
+	public static class FtpSinkApplication {
+
+	}
+
+}
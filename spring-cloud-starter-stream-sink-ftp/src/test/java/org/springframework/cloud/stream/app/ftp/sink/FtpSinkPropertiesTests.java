@@ -20,8 +20,11 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.time.Duration;
+
 import org.junit.Test;
 
+import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.util.TestPropertyValues;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
@@ -119,6 +122,141 @@ public class FtpSinkPropertiesTests {
 		context.close();
 	}
 
+	@Test
+	public void bufferedAppendCanBeCustomized() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		TestPropertyValues.of("ftp.mode:APPEND", "ftp.append.buffered:true", "ftp.append.bufferSize:1024",
+				"ftp.append.idleTimeout:1m", "ftp.append.rotationInterval:1h")
+				.applyTo(context);
+		context.register(Conf.class);
+		context.refresh();
+		FtpSinkProperties properties = context.getBean(FtpSinkProperties.class);
+		assertTrue(properties.getAppend().isBuffered());
+		assertThat(properties.getAppend().getBufferSize(), equalTo(1024));
+		assertThat(properties.getAppend().getIdleTimeout(), equalTo(Duration.ofMinutes(1)));
+		assertThat(properties.getAppend().getRotationInterval(), equalTo(Duration.ofHours(1)));
+		context.close();
+	}
+
+	@Test(expected = BeanCreationException.class)
+	public void bufferedAppendRequiresAppendMode() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		TestPropertyValues.of("ftp.append.buffered:true")
+				.applyTo(context);
+		context.register(Conf.class);
+		try {
+			context.refresh();
+		}
+		finally {
+			context.close();
+		}
+	}
+
+	@Test
+	public void compressionCanBeCustomized() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		TestPropertyValues.of("ftp.compression.type:ZSTD", "ftp.compression.level:9")
+				.applyTo(context);
+		context.register(Conf.class);
+		context.refresh();
+		FtpSinkProperties properties = context.getBean(FtpSinkProperties.class);
+		assertThat(properties.getCompression().getType(), equalTo(CompressionType.ZSTD));
+		assertThat(properties.getCompression().getLevel(), equalTo(9));
+		context.close();
+	}
+
+	@Test(expected = BeanCreationException.class)
+	public void gzipLevelIsValidated() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		TestPropertyValues.of("ftp.compression.type:GZIP", "ftp.compression.level:12")
+				.applyTo(context);
+		context.register(Conf.class);
+		try {
+			context.refresh();
+		}
+		finally {
+			context.close();
+		}
+	}
+
+	@Test(expected = BeanCreationException.class)
+	public void zstdLevelIsValidated() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		TestPropertyValues.of("ftp.compression.type:ZSTD", "ftp.compression.level:23")
+				.applyTo(context);
+		context.register(Conf.class);
+		try {
+			context.refresh();
+		}
+		finally {
+			context.close();
+		}
+	}
+
+	@Test
+	public void zstdAcceptsLevelsAboveTheGzipRange() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		TestPropertyValues.of("ftp.compression.type:ZSTD", "ftp.compression.level:19")
+				.applyTo(context);
+		context.register(Conf.class);
+		context.refresh();
+		FtpSinkProperties properties = context.getBean(FtpSinkProperties.class);
+		assertThat(properties.getCompression().getLevel(), equalTo(19));
+		context.close();
+	}
+
+	@Test
+	public void skipIdenticalCanBeCustomized() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		TestPropertyValues.of("ftp.skipIdentical:HASH")
+				.applyTo(context);
+		context.register(Conf.class);
+		context.refresh();
+		FtpSinkProperties properties = context.getBean(FtpSinkProperties.class);
+		assertThat(properties.getSkipIdentical(), equalTo(SkipIdenticalMode.HASH));
+		context.close();
+	}
+
+	@Test(expected = BeanCreationException.class)
+	public void skipIdenticalRejectsAppendMode() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		TestPropertyValues.of("ftp.skipIdentical:METADATA", "ftp.mode:APPEND")
+				.applyTo(context);
+		context.register(Conf.class);
+		try {
+			context.refresh();
+		}
+		finally {
+			context.close();
+		}
+	}
+
+	@Test(expected = BeanCreationException.class)
+	public void skipIdenticalRejectsBufferedAppends() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		TestPropertyValues.of("ftp.skipIdentical:HASH", "ftp.mode:APPEND_NO_FLUSH", "ftp.append.buffered:true")
+				.applyTo(context);
+		context.register(Conf.class);
+		try {
+			context.refresh();
+		}
+		finally {
+			context.close();
+		}
+	}
+
+	@Test
+	public void filenameAffinityCanBeEnabled() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		TestPropertyValues.of("ftp.filenameAffinity:true")
+				.applyTo(context);
+		context.register(Conf.class);
+		context.refresh();
+		FtpSinkProperties properties = context.getBean(FtpSinkProperties.class);
+		assertTrue(properties.isFilenameAffinity());
+		context.close();
+	}
+
 	@Configuration
 	@EnableConfigurationProperties(FtpSinkProperties.class)
 	static class Conf {
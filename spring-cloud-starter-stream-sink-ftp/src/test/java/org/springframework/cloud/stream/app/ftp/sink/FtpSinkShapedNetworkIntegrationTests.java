@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.sink;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.app.test.ftp.FtpTestSupport;
+import org.springframework.cloud.stream.app.test.ftp.NetworkConditions;
+import org.springframework.cloud.stream.app.test.ftp.NetworkShapingFtpProxy;
+import org.springframework.cloud.stream.messaging.Sink;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@DirtiesContext
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+		properties = {
+				"ftp.remoteDir = ftpTarget",
+				"ftp.factory.username = foo",
+				"ftp.factory.password = foo",
+				"ftp.factory.pool.enabled = true",
+				"ftp.mode = REPLACE"
+		})
+public class FtpSinkShapedNetworkIntegrationTests extends FtpTestSupport {
+
+	private static final Duration ROUND_TRIP_TIME = Duration.ofMillis(100);
+
+	private static NetworkShapingFtpProxy proxy;
+
+	@Autowired
+	Sink ftpSink;
+
+	@BeforeClass
+	public static void startProxy() throws IOException {
+		proxy = shapeNetwork(NetworkConditions.builder()
+				.roundTripTime(ROUND_TRIP_TIME)
+				.bandwidth(64 * 1024)
+				.build());
+	}
+
+	@Test
+	public void sendFileOverSlowNetwork() throws Exception {
+		File source = new File(getSourceLocalDirectory(), "localSource1.txt");
+		long start = System.nanoTime();
+		this.ftpSink.input().send(new GenericMessage<>(source));
+		// at least the data connection and the transfer command
+		assertThat(System.nanoTime() - start, greaterThanOrEqualTo(ROUND_TRIP_TIME.multipliedBy(2).toNanos()));
+		assertUploaded(source);
+	}
+
+	@Test
+	public void sendFileAfterConnectionsDropped() throws Exception {
+		File source = new File(getSourceLocalDirectory(), "localSource1.txt");
+		this.ftpSink.input().send(new GenericMessage<>(source));
+		proxy.dropConnections();
+		assertThat(proxy.getDroppedConnections(), greaterThan(0L));
+		File other = new File(getSourceLocalDirectory(), "localSource2.txt");
+		this.ftpSink.input().send(new GenericMessage<>(other));
+		assertUploaded(other);
+	}
+
+	private void assertUploaded(File source) throws IOException {
+		File uploaded = new File(getTargetRemoteDirectory(), source.getName());
+		assertTrue(uploaded.getAbsolutePath() + " does not exist", uploaded.exists());
+		assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(uploaded.toPath()));
+	}
+
+	@SpringBootApplication
+	public static class FtpSinkApplication {
+
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.sink;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.app.test.ftp.FtpTestSupport;
+import org.springframework.cloud.stream.messaging.Sink;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@DirtiesContext
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+		properties = {
+				"ftp.remoteDir = ftpTarget",
+				"ftp.factory.username = foo",
+				"ftp.factory.password = foo",
+				"ftp.factory.bufferSize = 131072",
+				"ftp.factory.sendBufferSize = 262144",
+				"ftp.factory.receiveBufferSize = 262144",
+				"ftp.factory.tcpNoDelay = true",
+				"ftp.factory.transferCompression = true",
+				"ftp.mode = REPLACE"
+		})
+public class FtpSinkTransportIntegrationTests extends FtpTestSupport {
+
+	@Autowired
+	Sink ftpSink;
+
+	@Test
+	public void sendFileInDeflateMode() throws Exception {
+		File source = new File(getSourceLocalDirectory(), "localSource1.txt");
+		this.ftpSink.input().send(new GenericMessage<>(source));
+		File uploaded = new File(getTargetRemoteDirectory(), "localSource1.txt");
+		assertTrue(uploaded.getAbsolutePath() + " does not exist", uploaded.exists());
+		assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(uploaded.toPath()));
+	}
+
+	@SpringBootApplication
+	public static class FtpSinkApplication {
+
+	}
+
+}
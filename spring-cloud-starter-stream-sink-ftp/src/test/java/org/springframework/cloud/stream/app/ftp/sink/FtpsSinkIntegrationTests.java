@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.sink;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.app.ftp.common.SessionReusingFtpsClient;
+import org.springframework.cloud.stream.app.test.ftp.FtpTestSupport;
+import org.springframework.cloud.stream.messaging.Sink;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@DirtiesContext
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+		properties = {
+				"ftp.remoteDir = ftpTarget",
+				"ftp.factory.port = ${ftps.port}",
+				"ftp.factory.username = foo",
+				"ftp.factory.password = foo",
+				"ftp.factory.ssl.enabled = true",
+				"ftp.factory.ssl.enabledProtocols = TLSv1.2",
+				"ftp.factory.ssl.trustStore = classpath:ftps/test-truststore.jks",
+				"ftp.factory.ssl.trustStorePassword = secret",
+				"ftp.mode = REPLACE"
+		})
+public class FtpsSinkIntegrationTests extends FtpTestSupport {
+
+	@Autowired
+	Sink ftpSink;
+
+	@Autowired
+	SessionFactory<FTPFile> ftpSessionFactory;
+
+	@Test
+	public void sendFileOverFtps() throws Exception {
+		File source = new File(getSourceLocalDirectory(), "localSource1.txt");
+		this.ftpSink.input().send(new GenericMessage<>(source));
+		File uploaded = new File(getTargetRemoteDirectory(), "localSource1.txt");
+		assertTrue(uploaded.getAbsolutePath() + " does not exist", uploaded.exists());
+		assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(uploaded.toPath()));
+	}
+
+	@Test
+	public void dataConnectionsResumeTheControlSession() throws Exception {
+		try (Session<FTPFile> session = this.ftpSessionFactory.getSession()) {
+			for (int i = 0; i < 2; i++) {
+				ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+				session.read("ftpSource/ftpSource1.txt", outputStream);
+				assertTrue(outputStream.size() > 0);
+			}
+			SessionReusingFtpsClient client = (SessionReusingFtpsClient) session.getClientInstance();
+			assertEquals(2, client.getDataConnections());
+			assertEquals(2, client.getResumedDataConnections());
+		}
+	}
+
+	@SpringBootApplication
+	public static class FtpSinkApplication {
+
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.sink;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.integration.file.DefaultFileNameGenerator;
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.DigestUtils;
+
+public class IdenticalRemoteFileSelectorTests {
+
+	private static final String CONTENT = "some content";
+
+	private static final long UPLOADED = 1_500_000_000_000L;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final FTPClient client = mock(FTPClient.class);
+
+	private final FtpSinkProperties properties = new FtpSinkProperties();
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private IdenticalRemoteFileSelector selector;
+
+	private File file;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setup() throws Exception {
+		Session<FTPFile> session = mock(Session.class);
+		when(session.getClientInstance()).thenReturn(this.client);
+		FTPFile remoteFile = new FTPFile();
+		remoteFile.setType(FTPFile.FILE_TYPE);
+		remoteFile.setName("data.txt");
+		remoteFile.setSize(CONTENT.length());
+		when(session.list("/target/data.txt")).thenReturn(new FTPFile[] { remoteFile });
+		SessionFactory<FTPFile> sessionFactory = mock(SessionFactory.class);
+		when(sessionFactory.getSession()).thenReturn(session);
+		SimpleDateFormat format = new SimpleDateFormat("yyyyMMddHHmmss", Locale.ROOT);
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		when(this.client.getModificationTime("/target/data.txt")).thenReturn(format.format(new Date(UPLOADED)));
+		this.properties.setRemoteDir("/target");
+		this.selector = new IdenticalRemoteFileSelector(sessionFactory, new DefaultFileNameGenerator(),
+				this.properties, this.meterRegistry);
+		this.file = this.temporaryFolder.newFile("data.txt");
+	}
+
+	@Test
+	public void metadataSkipsUnmodifiedFileOfSameSize() throws Exception {
+		this.properties.setSkipIdentical(SkipIdenticalMode.METADATA);
+		writeLocalFile(CONTENT, UPLOADED - 60_000);
+
+		assertFalse(this.selector.accept(new GenericMessage<>(this.file)));
+		assertEquals(1, skipped("metadata"), 0);
+	}
+
+	@Test
+	public void metadataUploadsFileModifiedAfterUpload() throws Exception {
+		this.properties.setSkipIdentical(SkipIdenticalMode.METADATA);
+		writeLocalFile("some CONTENT", UPLOADED + 60_000);
+
+		assertTrue(this.selector.accept(new GenericMessage<>(this.file)));
+		assertEquals(0, skipped("metadata"), 0);
+	}
+
+	@Test
+	public void metadataUploadsFileOfDifferentSize() throws Exception {
+		this.properties.setSkipIdentical(SkipIdenticalMode.METADATA);
+		writeLocalFile(CONTENT + " and more", UPLOADED - 60_000);
+
+		assertTrue(this.selector.accept(new GenericMessage<>(this.file)));
+	}
+
+	@Test
+	public void hashSkipsIdenticalContentEvenIfModifiedAfterUpload() throws Exception {
+		this.properties.setSkipIdentical(SkipIdenticalMode.HASH);
+		serverMd5(CONTENT);
+		writeLocalFile(CONTENT, UPLOADED + 60_000);
+
+		assertFalse(this.selector.accept(new GenericMessage<>(this.file)));
+		assertEquals(1, skipped("hash"), 0);
+	}
+
+	@Test
+	public void hashUploadsSameSizeFileModifiedAfterUpload() throws Exception {
+		this.properties.setSkipIdentical(SkipIdenticalMode.HASH);
+		serverMd5(CONTENT);
+		writeLocalFile("some CONTENT", UPLOADED + 60_000);
+
+		assertTrue(this.selector.accept(new GenericMessage<>(this.file)));
+		assertEquals(0, skipped("hash"), 0);
+	}
+
+	@Test
+	public void hashComparesStringPayloads() throws Exception {
+		this.properties.setSkipIdentical(SkipIdenticalMode.HASH);
+		serverMd5(CONTENT);
+
+		assertFalse(this.selector.accept(named(CONTENT)));
+		assertTrue(this.selector.accept(named("other content")));
+	}
+
+	@Test
+	public void hashFallsBackToMetadataWithoutServerSupport() throws Exception {
+		this.properties.setSkipIdentical(SkipIdenticalMode.HASH);
+		when(this.client.features()).thenReturn(true);
+		writeLocalFile("some CONTENT", UPLOADED + 60_000);
+
+		assertTrue(this.selector.accept(new GenericMessage<>(this.file)));
+		verify(this.client, never()).sendCommand(anyString(), anyString());
+		writeLocalFile(CONTENT, UPLOADED - 60_000);
+
+		assertFalse(this.selector.accept(new GenericMessage<>(this.file)));
+		assertEquals(1, skipped("metadata"), 0);
+	}
+
+	@Test
+	public void streamsAreNeverSkipped() throws Exception {
+		this.properties.setSkipIdentical(SkipIdenticalMode.HASH);
+		serverMd5(CONTENT);
+
+		assertTrue(this.selector.accept(new GenericMessage<>(
+				new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8)))));
+	}
+
+	private static Message<String> named(String payload) {
+		return MessageBuilder.withPayload(payload).setHeader(FileHeaders.FILENAME, "data.txt").build();
+	}
+
+	private void serverMd5(String remoteContent) throws Exception {
+		when(this.client.features()).thenReturn(true);
+		when(this.client.hasFeature("XMD5")).thenReturn(true);
+		when(this.client.sendCommand(eq("XMD5"), anyString())).thenReturn(250);
+		when(this.client.getReplyCode()).thenReturn(250);
+		when(this.client.getReplyString()).thenReturn(
+				"250 " + DigestUtils.md5DigestAsHex(remoteContent.getBytes(StandardCharsets.UTF_8)) + "\r\n");
+	}
+
+	private void writeLocalFile(String content, long lastModified) throws Exception {
+		Files.write(this.file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		this.file.setLastModified(lastModified);
+	}
+
+	private double skipped(String check) {
+		return this.meterRegistry.get("ftp.sink.skipped").tag("check", check).counter().count();
+	}
+
+}
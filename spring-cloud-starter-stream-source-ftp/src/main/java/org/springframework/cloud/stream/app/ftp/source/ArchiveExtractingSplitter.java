@@ -0,0 +1,253 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.springframework.cloud.stream.app.file.FileReadingMode;
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.integration.splitter.AbstractMessageSplitter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Splits a downloaded gzip file or zip archive into its decompressed content, as a stream:
+ * a gzip file becomes one message, a zip archive one message per entry. Other files are
+ * passed through. The payloads depend on the {@link FileReadingMode}:
+ * <ul>
+ * <li>{@code ref} - a {@link File} the content is extracted to;</li>
+ * <li>{@code lines} - an {@link InputStream} over the content, to be split into lines;</li>
+ * <li>{@code contents} - a {@code byte[]} with the content, up to a maximum size.</li>
+ * </ul>
+ * Only the {@code ref} mode writes the content to disk; the consumer then owns the
+ * extracted files.
+ * Zip entries are read one after the other from the same stream, so each entry message
+ * must be consumed before the next one is requested, which is the case for direct channels.
+ */
+public class ArchiveExtractingSplitter extends AbstractMessageSplitter {
+
+	/**
+	 * The header with the name of the archive entry, or of the decompressed gzip file.
+	 */
+	public static final String ARCHIVE_ENTRY = "ftp_archiveEntry";
+
+	private final FileReadingMode mode;
+
+	private final File extractDirectory;
+
+	private final long maxContentSize;
+
+	ArchiveExtractingSplitter(FileReadingMode mode, File extractDirectory, long maxContentSize) {
+		this.mode = mode;
+		this.extractDirectory = extractDirectory;
+		this.maxContentSize = maxContentSize;
+		setApplySequence(false);
+	}
+
+	@Override
+	protected Object splitMessage(Message<?> message) {
+		File file = (File) message.getPayload();
+		try {
+			InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+			try {
+				byte[] magic = new byte[4];
+				inputStream.mark(magic.length);
+				int read = 0;
+				int count;
+				while (read < magic.length && (count = inputStream.read(magic, read, magic.length - read)) >= 0) {
+					read += count;
+				}
+				inputStream.reset();
+				if (read >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+					String name = file.getName();
+					String entryName = name.endsWith(".gz") ? name.substring(0, name.length() - 3) : name;
+					GZIPInputStream gzipInputStream = new GZIPInputStream(inputStream);
+					return Collections.singletonList(entry(file, entryName, gzipInputStream, gzipInputStream));
+				}
+				else if (read == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4) {
+					return new ZipEntryIterator(file, new ZipInputStream(inputStream));
+				}
+			}
+			catch (IOException | RuntimeException e) {
+				inputStream.close();
+				throw e;
+			}
+			inputStream.close();
+			if (this.mode == FileReadingMode.contents) {
+				if (file.length() > this.maxContentSize) {
+					throw tooLarge(file.getName());
+				}
+				return Collections.singletonList(Files.readAllBytes(file.toPath()));
+			}
+			return Collections.singletonList(file);
+		}
+		catch (IOException e) {
+			throw new MessageHandlingException(message, "Failed to extract " + file, e);
+		}
+	}
+
+	/**
+	 * Build the message for an entry; for the {@code lines} mode, the entry stream is only
+	 * closed by the consumer through the given {@code closeable}.
+	 */
+	private Object entry(File archive, String entryName, InputStream content, Closeable closeable)
+			throws IOException {
+
+		Object payload;
+		if (this.mode == FileReadingMode.lines) {
+			payload = new FilterInputStream(content) {
+
+				@Override
+				public void close() throws IOException {
+					closeable.close();
+				}
+
+			};
+		}
+		else {
+			try {
+				payload = this.mode == FileReadingMode.ref
+						? extract(archive, entryName, content)
+						: read(entryName, content);
+			}
+			finally {
+				closeable.close();
+			}
+		}
+		String fileName = entryName.substring(entryName.lastIndexOf('/') + 1);
+		return getMessageBuilderFactory()
+				.withPayload(payload)
+				.setHeader(FileHeaders.FILENAME, fileName)
+				.setHeader(ARCHIVE_ENTRY, entryName);
+	}
+
+	/**
+	 * Read the content into memory, failing as soon as it exceeds the maximum size rather
+	 * than trusting the size declared by the archive.
+	 */
+	private byte[] read(String entryName, InputStream content) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+		int count;
+		while ((count = content.read(buffer)) >= 0) {
+			if (outputStream.size() + count > this.maxContentSize) {
+				throw tooLarge(entryName);
+			}
+			outputStream.write(buffer, 0, count);
+		}
+		return outputStream.toByteArray();
+	}
+
+	private IOException tooLarge(String name) {
+		return new IOException("The content of '" + name + "' exceeds the maximum of " + this.maxContentSize
+				+ " bytes read into memory");
+	}
+
+	private File extract(File archive, String entryName, InputStream content) throws IOException {
+		File directory = new File(this.extractDirectory, archive.getName()).getCanonicalFile();
+		File target = new File(directory, entryName).getCanonicalFile();
+		if (!target.toPath().startsWith(directory.toPath())) {
+			throw new IOException("The entry '" + entryName + "' is outside of the target directory");
+		}
+		Files.createDirectories(target.getParentFile().toPath());
+		Files.copy(content, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		return target;
+	}
+
+	private final class ZipEntryIterator implements Iterator<Object>, Closeable {
+
+		private final File archive;
+
+		private final ZipInputStream zipInputStream;
+
+		private Object next;
+
+		private boolean done;
+
+		ZipEntryIterator(File archive, ZipInputStream zipInputStream) {
+			this.archive = archive;
+			this.zipInputStream = zipInputStream;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (this.next == null && !this.done) {
+				advance();
+			}
+			return this.next != null;
+		}
+
+		@Override
+		public Object next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Object result = this.next;
+			this.next = null;
+			return result;
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.done = true;
+			this.zipInputStream.close();
+		}
+
+		private void advance() {
+			try {
+				ZipEntry zipEntry = this.zipInputStream.getNextEntry();
+				while (zipEntry != null && zipEntry.isDirectory()) {
+					zipEntry = this.zipInputStream.getNextEntry();
+				}
+				if (zipEntry == null) {
+					close();
+				}
+				else {
+					this.next = entry(this.archive, zipEntry.getName(), this.zipInputStream,
+							this.zipInputStream::closeEntry);
+				}
+			}
+			catch (IOException e) {
+				try {
+					close();
+				}
+				catch (IOException ex) {
+					e.addSuppressed(ex);
+				}
+				throw new UncheckedIOException(e);
+			}
+		}
+
+	}
+
+}
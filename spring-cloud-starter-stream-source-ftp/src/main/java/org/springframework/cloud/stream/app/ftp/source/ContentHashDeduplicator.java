@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+
+import org.springframework.cloud.stream.app.ftp.common.FtpServerHash;
+import org.springframework.cloud.stream.app.ftp.common.FtpServerHashCommands;
+import org.springframework.integration.core.MessageSelector;
+import org.springframework.integration.file.filters.FileListFilter;
+import org.springframework.integration.file.filters.ReversibleFileListFilter;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.metadata.ConcurrentMetadataStore;
+import org.springframework.messaging.Message;
+
+/**
+ * Drops files whose content was already seen, whatever their name. The content hashes are
+ * tracked in the {@link ConcurrentMetadataStore}, so they are shared by all the instances
+ * using the same store.
+ * <p>
+ * When the server supports a hash command ({@code HASH} or {@code XMD5}), each server
+ * being probed once, the duplicates are dropped by the {@link FileListFilter} role, before
+ * they are downloaded; the hashes recorded for a listing are removed again when the
+ * synchronizer rolls the files back, after a failed download or beyond the maximum fetch
+ * size. The other downloaded files are hashed locally and the duplicates are dropped, and
+ * deleted, by the {@link MessageSelector} role before they are emitted.
+ * <p>
+ * A content recorded for the same file name is not a duplicate: the file is the one which
+ * recorded it, selected again when its emission is retried after a failed send.
+ */
+public class ContentHashDeduplicator implements ReversibleFileListFilter<FTPFile>, MessageSelector {
+
+	private static final Log logger = LogFactory.getLog(ContentHashDeduplicator.class);
+
+	private static final String KEY_PREFIX = "ftpSourceContent/";
+
+	private final SessionFactory<FTPFile> sessionFactory;
+
+	private final ConcurrentMetadataStore metadataStore;
+
+	private final FtpSourceProperties properties;
+
+	/**
+	 * The keys recorded for the listed files not rolled back yet; the synchronizer rolls
+	 * back the same instances it filtered, and the entries go away with the listing.
+	 */
+	private final Map<FTPFile, String> recordedKeys = Collections.synchronizedMap(new WeakHashMap<>());
+
+	/**
+	 * The names of the accepted files whose hash was computed by the server, which are
+	 * not hashed again once downloaded; a retried emission hashes the file locally, and
+	 * is accepted as the same file name.
+	 */
+	private final Set<String> serverHashedNames = ConcurrentHashMap.newKeySet();
+
+	private final FtpServerHashCommands hashCommands = new FtpServerHashCommands();
+
+	public ContentHashDeduplicator(SessionFactory<FTPFile> sessionFactory, ConcurrentMetadataStore metadataStore,
+			FtpSourceProperties properties) {
+
+		this.sessionFactory = sessionFactory;
+		this.metadataStore = metadataStore;
+		this.properties = properties;
+	}
+
+	@Override
+	public List<FTPFile> filterFiles(FTPFile[] files) {
+		if (files == null || files.length == 0) {
+			return new ArrayList<>();
+		}
+		if (!this.properties.getDedupe().isServerHash()) {
+			return new ArrayList<>(Arrays.asList(files));
+		}
+		List<FTPFile> accepted = new ArrayList<>();
+		try (Session<FTPFile> session = this.sessionFactory.getSession()) {
+			FTPClient client = (FTPClient) session.getClientInstance();
+			String command = this.hashCommands.supportedCommand(client);
+			for (FTPFile file : files) {
+				if (command.isEmpty()) {
+					accepted.add(file);
+				}
+				else {
+					FtpServerHash hash = FtpServerHash.remote(client, command, remotePath(file.getName()));
+					if (hash == null) {
+						accepted.add(file);
+					}
+					else if (firstSeen(hash, file.getName())) {
+						this.recordedKeys.put(file, key(hash));
+						this.serverHashedNames.add(file.getName());
+						accepted.add(file);
+					}
+				}
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Failed to hash the remote files", e);
+		}
+		return accepted;
+	}
+
+	@Override
+	public void rollback(FTPFile file, List<FTPFile> files) {
+		boolean rollingBack = false;
+		for (FTPFile fileToRollback : files) {
+			if (fileToRollback.equals(file)) {
+				rollingBack = true;
+			}
+			if (rollingBack) {
+				String key = this.recordedKeys.remove(fileToRollback);
+				if (key != null) {
+					this.serverHashedNames.remove(fileToRollback.getName());
+					if (fileToRollback.getName().equals(this.metadataStore.get(key))) {
+						this.metadataStore.remove(key);
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public boolean accept(Message<?> message) {
+		if (!(message.getPayload() instanceof File)) {
+			return true;
+		}
+		File file = (File) message.getPayload();
+		if (this.serverHashedNames.remove(file.getName())) {
+			return true;
+		}
+		try (InputStream inputStream = new FileInputStream(file)) {
+			FtpServerHash hash = FtpServerHash.local(this.properties.getDedupe().getAlgorithm(), inputStream);
+			if (hash == null || firstSeen(hash, file.getName())) {
+				return true;
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Failed to hash " + file, e);
+		}
+		if (!file.delete() && logger.isWarnEnabled()) {
+			logger.warn("Failed to delete the duplicate " + file);
+		}
+		return false;
+	}
+
+	private boolean firstSeen(FtpServerHash hash, String fileName) {
+		String recordedFileName = this.metadataStore.putIfAbsent(key(hash), fileName);
+		boolean firstSeen = recordedFileName == null || recordedFileName.equals(fileName);
+		if (!firstSeen && logger.isDebugEnabled()) {
+			logger.debug("Dropping '" + fileName + "': its content " + hash + " was already seen");
+		}
+		return firstSeen;
+	}
+
+	private static String key(FtpServerHash hash) {
+		return KEY_PREFIX + hash;
+	}
+
+	private String remotePath(String fileName) {
+		String remoteDir = this.properties.getRemoteDir();
+		String separator = this.properties.getRemoteFileSeparator();
+		return remoteDir.endsWith(separator) ? remoteDir + fileName : remoteDir + separator + fileName;
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.cloud.stream.app.ftp.common.FtpMetrics;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+/**
+ * A {@link ChannelInterceptor} timing the sends to the output of the source, that is the
+ * time each message takes to be handed to the binder, with the {@code ftp.source.emit}
+ * timer tagged with the outcome. The sends must complete on the thread they started on,
+ * which is the case for the direct channel it is meant for.
+ */
+class EmitTimingInterceptor implements ChannelInterceptor {
+
+	private final ThreadLocal<Long> start = new ThreadLocal<>();
+
+	private final Timer successTimer;
+
+	private final Timer failureTimer;
+
+	EmitTimingInterceptor(FtpMetrics metrics, String remoteDirectory) {
+		this.successTimer = metrics.timer("ftp.source.emit", "The time spent sending a message to the binder",
+				Tags.of("remoteDir", remoteDirectory, "outcome", "success"));
+		this.failureTimer = metrics.timer("ftp.source.emit", "The time spent sending a message to the binder",
+				Tags.of("remoteDir", remoteDirectory, "outcome", "failure"));
+	}
+
+	@Override
+	public Message<?> preSend(Message<?> message, MessageChannel channel) {
+		this.start.set(System.nanoTime());
+		return message;
+	}
+
+	@Override
+	public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+		Long started = this.start.get();
+		if (started != null) {
+			this.start.remove();
+			(sent && ex == null ? this.successTimer : this.failureTimer)
+					.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+		}
+	}
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.commons.net.ftp.FTPFile;
+
+import org.springframework.context.Lifecycle;
+import org.springframework.integration.endpoint.AbstractMessageSource;
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.integration.file.filters.FileListFilter;
+import org.springframework.integration.file.filters.ReversibleFileListFilter;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+
+/**
+ * A message source emitting a {@link RemoteFileDescriptor} for each new file in the remote
+ * directory, without transferring its content. The directory is listed once the files of
+ * the previous listing have all been emitted, so the discovery costs one {@code LIST}.
+ * <p>
+ * The filter accepts the files of a listing before they are emitted; when the source is
+ * stopped, the files still pending are rolled back through a
+ * {@link ReversibleFileListFilter}, so that they are listed again after a restart.
+ */
+public class FtpListingMessageSource extends AbstractMessageSource<RemoteFileDescriptor> implements Lifecycle {
+
+	private final SessionFactory<FTPFile> sessionFactory;
+
+	private final String host;
+
+	private final String remoteDirectory;
+
+	private final String remoteFileSeparator;
+
+	private final FileListFilter<FTPFile> filter;
+
+	private final Queue<FTPFile> pending = new ConcurrentLinkedQueue<>();
+
+	private volatile boolean running;
+
+	public FtpListingMessageSource(SessionFactory<FTPFile> sessionFactory, String host, String remoteDirectory,
+			String remoteFileSeparator, FileListFilter<FTPFile> filter) {
+
+		this.sessionFactory = sessionFactory;
+		this.host = host;
+		this.remoteDirectory = remoteDirectory;
+		this.remoteFileSeparator = remoteFileSeparator;
+		this.filter = filter;
+	}
+
+	@Override
+	public String getComponentType() {
+		return "ftp:inbound-listing-channel-adapter";
+	}
+
+	@Override
+	public void start() {
+		this.running = true;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void stop() {
+		this.running = false;
+		List<FTPFile> undrained = new ArrayList<>();
+		FTPFile file;
+		while ((file = this.pending.poll()) != null) {
+			undrained.add(file);
+		}
+		if (!undrained.isEmpty() && this.filter instanceof ReversibleFileListFilter) {
+			((ReversibleFileListFilter<FTPFile>) this.filter).rollback(undrained.get(0), undrained);
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	@Override
+	protected Object doReceive() {
+		FTPFile file = this.pending.poll();
+		if (file == null) {
+			list();
+			file = this.pending.poll();
+			if (file == null) {
+				return null;
+			}
+		}
+		long modified = file.getTimestamp() != null ? file.getTimestamp().getTimeInMillis() : 0;
+		RemoteFileDescriptor descriptor = new RemoteFileDescriptor(this.host, remotePath(file.getName()),
+				file.getName(), file.getSize(), modified);
+		return getMessageBuilderFactory()
+				.withPayload(descriptor)
+				.setHeader(FileHeaders.REMOTE_DIRECTORY, this.remoteDirectory)
+				.setHeader(FileHeaders.REMOTE_FILE, descriptor.getName())
+				.setHeader(FileHeaders.FILENAME, descriptor.getName());
+	}
+
+	private void list() {
+		FTPFile[] files;
+		try (Session<FTPFile> session = this.sessionFactory.getSession()) {
+			files = session.list(this.remoteDirectory);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Failed to list '" + this.remoteDirectory + "'", e);
+		}
+		if (files == null) {
+			return;
+		}
+		FTPFile[] regularFiles = Arrays.stream(files)
+				.filter(file -> file != null && file.isFile())
+				.toArray(FTPFile[]::new);
+		this.pending.addAll(this.filter.filterFiles(regularFiles));
+	}
+
+	private String remotePath(String fileName) {
+		return this.remoteDirectory.endsWith(this.remoteFileSeparator)
+				? this.remoteDirectory + fileName
+				: this.remoteDirectory + this.remoteFileSeparator + fileName;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2015-2018 the original author or authors.
+ * Copyright 2015-2019 the original author or authors.
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
  * You may obtain a copy of the License at
@@ -15,8 +15,19 @@
 
 package org.springframework.cloud.stream.app.ftp.source;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+import org.aopalliance.aop.Advice;
 import org.apache.commons.net.ftp.FTPFile;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -24,17 +35,24 @@ import org.springframework.cloud.stream.annotation.EnableBinding;
 import org.springframework.cloud.stream.app.file.FileConsumerProperties;
 import org.springframework.cloud.stream.app.file.FileReadingMode;
 import org.springframework.cloud.stream.app.file.FileUtils;
-import org.springframework.cloud.stream.app.ftp.FtpSessionFactoryConfiguration;
+import org.springframework.cloud.stream.app.ftp.FtpSessionFactoryProperties;
+import org.springframework.cloud.stream.app.ftp.common.FtpClientSessionFactoryConfiguration;
+import org.springframework.cloud.stream.app.ftp.common.FtpMetrics;
+import org.springframework.cloud.stream.app.ftp.common.FtpTaskExecutor;
+import org.springframework.cloud.stream.app.ftp.common.FtpTaskExecutorConfiguration;
 import org.springframework.cloud.stream.app.trigger.TriggerConfiguration;
 import org.springframework.cloud.stream.app.trigger.TriggerPropertiesMaxMessagesDefaultUnlimited;
 import org.springframework.cloud.stream.messaging.Source;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.integration.dsl.DirectChannelSpec;
 import org.springframework.integration.dsl.IntegrationFlow;
 import org.springframework.integration.dsl.IntegrationFlowBuilder;
 import org.springframework.integration.dsl.IntegrationFlows;
+import org.springframework.integration.dsl.MessageChannels;
 import org.springframework.integration.file.filters.ChainFileListFilter;
 import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.filter.MessageFilter;
 import org.springframework.integration.ftp.dsl.Ftp;
 import org.springframework.integration.ftp.dsl.FtpInboundChannelAdapterSpec;
 import org.springframework.integration.ftp.filters.FtpPersistentAcceptOnceFileListFilter;
@@ -43,6 +61,7 @@ import org.springframework.integration.ftp.filters.FtpSimplePatternFileListFilte
 import org.springframework.integration.metadata.ConcurrentMetadataStore;
 import org.springframework.integration.metadata.MetadataStore;
 import org.springframework.integration.scheduling.PollerMetadata;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.util.StringUtils;
 
 /**
@@ -55,7 +74,8 @@ import org.springframework.util.StringUtils;
 @EnableBinding(Source.class)
 @EnableConfigurationProperties({ FtpSourceProperties.class, FileConsumerProperties.class,
 		TriggerPropertiesMaxMessagesDefaultUnlimited.class })
-@Import({ TriggerConfiguration.class, FtpSessionFactoryConfiguration.class })
+@Import({ TriggerConfiguration.class, FtpClientSessionFactoryConfiguration.class,
+		FtpTaskExecutorConfiguration.class })
 public class FtpSourceConfiguration {
 
 	@Autowired
@@ -68,9 +88,21 @@ public class FtpSourceConfiguration {
 	@Autowired
 	private ConcurrentMetadataStore metadataStore;
 
+	@Bean
+	public RemoteFileCleaner remoteFileCleaner(SessionFactory<FTPFile> ftpSessionFactory,
+			FtpSourceProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+
+		return new RemoteFileCleaner(ftpSessionFactory, properties,
+				meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+	}
+
 	@Bean
 	public IntegrationFlow ftpInboundFlow(SessionFactory<FTPFile> ftpSessionFactory, FtpSourceProperties properties,
-			FileConsumerProperties fileConsumerProperties) {
+			FileConsumerProperties fileConsumerProperties, FtpSessionFactoryProperties sessionFactoryProperties,
+			ObjectProvider<FtpTaskExecutor> ftpTaskExecutor, ObjectProvider<MeterRegistry> meterRegistry,
+			FtpMetrics ftpMetrics, RemoteFileCleaner remoteFileCleaner) {
+
+		boolean inlineDelete = properties.isDeleteRemoteFiles() && !remoteFileCleaner.isEnabled();
 
 		FtpInboundChannelAdapterSpec messageSourceBuilder = Ftp.inboundAdapter(ftpSessionFactory)
 				.preserveTimestamp(properties.isPreserveTimestamp())
@@ -79,9 +111,10 @@ public class FtpSourceConfiguration {
 				.localDirectory(properties.getLocalDir())
 				.autoCreateLocalDirectory(properties.isAutoCreateLocalDir())
 				.temporaryFileSuffix(properties.getTmpFileSuffix())
-				.deleteRemoteFiles(properties.isDeleteRemoteFiles());
+				.deleteRemoteFiles(inlineDelete);
 
-		ChainFileListFilter<FTPFile> chainFileListFilter = new ChainFileListFilter<>();
+		String remoteDir = properties.getRemoteDir();
+		ChainFileListFilter<FTPFile> chainFileListFilter = new TimedChainFileListFilter(ftpMetrics, remoteDir);
 
 		if (StringUtils.hasText(properties.getFilenamePattern())) {
 			chainFileListFilter.addFilter(new FtpSimplePatternFileListFilter(properties.getFilenamePattern()));
@@ -90,18 +123,124 @@ public class FtpSourceConfiguration {
 			chainFileListFilter.addFilter(new FtpRegexPatternFileListFilter(properties.getFilenameRegex()));
 		}
 
+		RemoteBacklogTracker backlogTracker = new RemoteBacklogTracker(remoteDir,
+				meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+		if (!inlineDelete) {
+			chainFileListFilter.addFilter(backlogTracker.listingFilter());
+		}
+
 		chainFileListFilter.addFilter(new FtpPersistentAcceptOnceFileListFilter(this.metadataStore, "ftpSource/"));
 
+		ContentHashDeduplicator deduplicator = null;
+		if (properties.getDedupe().isEnabled()) {
+			deduplicator = new ContentHashDeduplicator(ftpSessionFactory, this.metadataStore, properties);
+			chainFileListFilter.addFilter(deduplicator);
+		}
+
+		chainFileListFilter.addFilter(backlogTracker.acceptedFilter());
+
+		if (properties.isListOnly()) {
+			FtpListingMessageSource listingMessageSource = new FtpListingMessageSource(ftpSessionFactory,
+					sessionFactoryProperties.getHost(), properties.getRemoteDir(), properties.getRemoteFileSeparator(),
+					chainFileListFilter);
+			PollerMetadata poller = poller(ftpTaskExecutor.getIfAvailable(),
+					Arrays.asList(new PollTimingAdvice(ftpMetrics, remoteDir), backlogTracker));
+			return IntegrationFlows.from(listingMessageSource, e -> e.poller(poller))
+					.channel(emitChannel(ftpMetrics, remoteDir))
+					.channel(this.source.output())
+					.get();
+		}
+
 		messageSourceBuilder.filter(chainFileListFilter);
 
-		IntegrationFlowBuilder flowBuilder =
-				IntegrationFlows.from(messageSourceBuilder, e -> e.poller(this.defaultPoller));
+		IntegrationFlowBuilder flowBuilder;
+		FtpSourceProperties.Reactive reactive = properties.getReactive();
+		if (reactive.isEnabled()) {
+			messageSourceBuilder.maxFetchSize(reactive.getPrefetch());
+			ReactiveFtpMessageProducer messageProducer = new ReactiveFtpMessageProducer(messageSourceBuilder,
+					reactive.getPrefetch(), reactive.getIdleDelay());
+			messageProducer.addListener(file -> backlogTracker.emitted(file.getName()));
+			messageProducer.addListener(file -> remoteFileCleaner.emitted(file.getName()));
+			flowBuilder = IntegrationFlows.from(messageProducer);
+		}
+		else {
+			List<Advice> advices = new ArrayList<>();
+			FtpSourceProperties.Backlog backlog = properties.getBacklog();
+			if (backlog.isEnabled()) {
+				advices.add(new LocalBacklogGuard(Arrays.asList(properties.getLocalDir(), extractDirectory(properties)),
+						backlog, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry)));
+			}
+			if (backlog.isEnabled() || remoteFileCleaner.isEnabled()) {
+				LocalFileEmissionAdvice emissionAdvice = new LocalFileEmissionAdvice(backlog.isEnabled()
+						&& backlog.isDeleteEmitted() && fileConsumerProperties.getMode() != FileReadingMode.ref);
+				emissionAdvice.addListener(file -> remoteFileCleaner.emitted(file.getName()));
+				advices.add(emissionAdvice);
+			}
+			advices.add(new PollTimingAdvice(ftpMetrics, remoteDir));
+			advices.add(backlogTracker);
+			PollerMetadata poller = poller(ftpTaskExecutor.getIfAvailable(), advices);
+			flowBuilder = IntegrationFlows.from(messageSourceBuilder, e -> e.poller(poller));
+		}
+
+		if (deduplicator != null) {
+			flowBuilder.handle(new MessageFilter(deduplicator));
+		}
 
-		if (fileConsumerProperties.getMode() != FileReadingMode.ref) {
+		if (properties.isDecompress()) {
+			flowBuilder.split(new ArchiveExtractingSplitter(fileConsumerProperties.getMode(),
+					extractDirectory(properties), properties.getDecompressMaxSize().toBytes()));
+			if (fileConsumerProperties.getMode() == FileReadingMode.contents) {
+				flowBuilder.enrichHeaders(Collections.<String, Object>singletonMap(MessageHeaders.CONTENT_TYPE,
+						"application/octet-stream"));
+			}
+			else if (fileConsumerProperties.getMode() == FileReadingMode.lines) {
+				flowBuilder = FileUtils.enhanceFlowForReadingMode(flowBuilder, fileConsumerProperties);
+			}
+		}
+		else if (fileConsumerProperties.getMode() != FileReadingMode.ref) {
 			flowBuilder = FileUtils.enhanceFlowForReadingMode(flowBuilder, fileConsumerProperties);
 		}
 
-		return flowBuilder.channel(this.source.output()).get();
+		return flowBuilder
+				.channel(emitChannel(ftpMetrics, remoteDir))
+				.channel(this.source.output())
+				.get();
+	}
+
+	/**
+	 * A direct channel in front of the output, timing the sends to the binder.
+	 */
+	private static DirectChannelSpec emitChannel(FtpMetrics ftpMetrics, String remoteDir) {
+		return MessageChannels.direct().interceptor(new EmitTimingInterceptor(ftpMetrics, remoteDir));
+	}
+
+	private static File extractDirectory(FtpSourceProperties properties) {
+		return new File(properties.getLocalDir().getParentFile(), properties.getLocalDir().getName() + "-extracted");
+	}
+
+	/**
+	 * The default poller, or a copy of it running the polls on the given executor, if any,
+	 * and with the given advices after its own.
+	 */
+	private PollerMetadata poller(FtpTaskExecutor taskExecutor, List<Advice> advices) {
+		if (taskExecutor == null && advices.isEmpty()) {
+			return this.defaultPoller;
+		}
+		List<Advice> adviceChain = new ArrayList<>();
+		if (this.defaultPoller.getAdviceChain() != null) {
+			adviceChain.addAll(this.defaultPoller.getAdviceChain());
+		}
+		adviceChain.addAll(advices);
+		PollerMetadata poller = new PollerMetadata();
+		poller.setTrigger(this.defaultPoller.getTrigger());
+		poller.setMaxMessagesPerPoll(this.defaultPoller.getMaxMessagesPerPoll());
+		poller.setReceiveTimeout(this.defaultPoller.getReceiveTimeout());
+		poller.setAdviceChain(adviceChain);
+		poller.setErrorHandler(this.defaultPoller.getErrorHandler());
+		if (taskExecutor != null) {
+			poller.setTaskExecutor(taskExecutor);
+		}
+		return poller;
 	}
 
 }
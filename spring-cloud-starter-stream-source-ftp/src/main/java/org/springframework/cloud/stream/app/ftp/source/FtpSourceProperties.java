@@ -16,13 +16,17 @@
 package org.springframework.cloud.stream.app.ftp.source;
 
 import java.io.File;
+import java.time.Duration;
 import java.util.regex.Pattern;
 
+import javax.validation.Valid;
 import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
 /**
@@ -79,6 +83,44 @@ public class FtpSourceProperties {
 	 */
 	private boolean preserveTimestamp = true;
 
+	/**
+	 * Set to true to decompress gzip files and extract the entries of zip archives while
+	 * they are emitted.
+	 */
+	private boolean decompress = false;
+
+	/**
+	 * The maximum size of a decompressed gzip file or zip entry, or of a plain file, read
+	 * into memory by 'ftp.decompress' in the contents mode; larger content fails the poll.
+	 */
+	private DataSize decompressMaxSize = DataSize.ofMegabytes(64);
+
+	/**
+	 * Set to true to emit a descriptor (host, path, size and modification time) of each new
+	 * remote file instead of downloading it, for a downstream application to fetch it.
+	 */
+	private boolean listOnly = false;
+
+	/**
+	 * Settings for dropping files whose content was already seen.
+	 */
+	private final Dedupe dedupe = new Dedupe();
+
+	/**
+	 * Settings for fetching the files on demand instead of polling.
+	 */
+	private final Reactive reactive = new Reactive();
+
+	/**
+	 * Settings for pausing the polls while too many files are pending locally.
+	 */
+	private final Backlog backlog = new Backlog();
+
+	/**
+	 * Settings for deleting or archiving the remote files once they are emitted.
+	 */
+	private final Cleanup cleanup = new Cleanup();
+
 	public boolean isAutoCreateLocalDir() {
 		return this.autoCreateLocalDir;
 	}
@@ -128,6 +170,50 @@ public class FtpSourceProperties {
 		this.preserveTimestamp = preserveTimestamp;
 	}
 
+	public boolean isDecompress() {
+		return this.decompress;
+	}
+
+	public void setDecompress(boolean decompress) {
+		this.decompress = decompress;
+	}
+
+	public DataSize getDecompressMaxSize() {
+		return this.decompressMaxSize;
+	}
+
+	public void setDecompressMaxSize(DataSize decompressMaxSize) {
+		this.decompressMaxSize = decompressMaxSize;
+	}
+
+	public boolean isListOnly() {
+		return this.listOnly;
+	}
+
+	public void setListOnly(boolean listOnly) {
+		this.listOnly = listOnly;
+	}
+
+	@Valid
+	public Dedupe getDedupe() {
+		return this.dedupe;
+	}
+
+	@Valid
+	public Reactive getReactive() {
+		return this.reactive;
+	}
+
+	@Valid
+	public Backlog getBacklog() {
+		return this.backlog;
+	}
+
+	@Valid
+	public Cleanup getCleanup() {
+		return this.cleanup;
+	}
+
 	@NotBlank
 	public String getRemoteDir() {
 		return this.remoteDir;
@@ -160,4 +246,274 @@ public class FtpSourceProperties {
 		return !(this.filenamePattern != null && this.filenameRegex != null);
 	}
 
+	@AssertTrue(message = "listOnly and reactive.enabled are mutually exclusive")
+	public boolean isExclusiveListOnly() {
+		return !(this.listOnly && this.reactive.isEnabled());
+	}
+
+	@AssertTrue(message = "cleanup.archiveDir cannot be used with listOnly")
+	public boolean isExclusiveArchiveListOnly() {
+		return !(this.listOnly && this.cleanup.getArchiveDir() != null);
+	}
+
+	public static class Dedupe {
+
+		/**
+		 * Set to true to drop files whose content was already seen under any name.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Set to false to always hash the downloaded files locally instead of using the
+		 * HASH or XMD5 command when the server supports one.
+		 */
+		private boolean serverHash = true;
+
+		/**
+		 * The algorithm used to hash the downloaded files locally.
+		 */
+		private String algorithm = "SHA-256";
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public boolean isServerHash() {
+			return this.serverHash;
+		}
+
+		public void setServerHash(boolean serverHash) {
+			this.serverHash = serverHash;
+		}
+
+		@NotBlank
+		public String getAlgorithm() {
+			return this.algorithm;
+		}
+
+		public void setAlgorithm(String algorithm) {
+			this.algorithm = algorithm;
+		}
+
+	}
+
+	public static class Reactive {
+
+		/**
+		 * Set to true to fetch the files when downstream requests them, rather than when
+		 * the trigger fires.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * The maximum number of files fetched ahead of the one being emitted.
+		 */
+		private int prefetch = 4;
+
+		/**
+		 * How long to wait before listing the remote directory again when it has no new
+		 * file, or after a failure.
+		 */
+		private Duration idleDelay = Duration.ofSeconds(1);
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		@Min(1)
+		public int getPrefetch() {
+			return this.prefetch;
+		}
+
+		public void setPrefetch(int prefetch) {
+			this.prefetch = prefetch;
+		}
+
+		@NotNull
+		public Duration getIdleDelay() {
+			return this.idleDelay;
+		}
+
+		public void setIdleDelay(Duration idleDelay) {
+			this.idleDelay = idleDelay;
+		}
+
+	}
+
+	public static class Backlog {
+
+		/**
+		 * Set to true to stop downloading files while too many files are pending in the
+		 * local directory.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * The number of local files at which the polls are paused.
+		 */
+		private int highWaterFiles = 1000;
+
+		/**
+		 * The number of local files at or below which the polls are resumed.
+		 */
+		private int lowWaterFiles = 500;
+
+		/**
+		 * The size of the local files at which the polls are paused.
+		 */
+		private DataSize highWaterSize = DataSize.ofGigabytes(1);
+
+		/**
+		 * The size of the local files at or below which the polls are resumed.
+		 */
+		private DataSize lowWaterSize = DataSize.ofMegabytes(512);
+
+		/**
+		 * Set to false to keep the local files once emitted; ignored in 'ref' mode, where
+		 * the consumer owns the files.
+		 */
+		private boolean deleteEmitted = true;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		@Min(1)
+		public int getHighWaterFiles() {
+			return this.highWaterFiles;
+		}
+
+		public void setHighWaterFiles(int highWaterFiles) {
+			this.highWaterFiles = highWaterFiles;
+		}
+
+		@Min(0)
+		public int getLowWaterFiles() {
+			return this.lowWaterFiles;
+		}
+
+		public void setLowWaterFiles(int lowWaterFiles) {
+			this.lowWaterFiles = lowWaterFiles;
+		}
+
+		@NotNull
+		public DataSize getHighWaterSize() {
+			return this.highWaterSize;
+		}
+
+		public void setHighWaterSize(DataSize highWaterSize) {
+			this.highWaterSize = highWaterSize;
+		}
+
+		@NotNull
+		public DataSize getLowWaterSize() {
+			return this.lowWaterSize;
+		}
+
+		public void setLowWaterSize(DataSize lowWaterSize) {
+			this.lowWaterSize = lowWaterSize;
+		}
+
+		public boolean isDeleteEmitted() {
+			return this.deleteEmitted;
+		}
+
+		public void setDeleteEmitted(boolean deleteEmitted) {
+			this.deleteEmitted = deleteEmitted;
+		}
+
+		@AssertTrue(message = "the low-water marks must not be above the high-water marks")
+		public boolean isLowWaterBelowHighWater() {
+			return this.lowWaterFiles <= this.highWaterFiles && (this.lowWaterSize == null
+					|| this.highWaterSize == null || this.lowWaterSize.compareTo(this.highWaterSize) <= 0);
+		}
+
+	}
+
+	public static class Cleanup {
+
+		/**
+		 * Set to true to run the deletes of 'ftp.delete-remote-files' in batches on a separate
+		 * session once the files are emitted, instead of after each download.
+		 */
+		private boolean async = false;
+
+		/**
+		 * A remote directory the files are moved to once they are emitted, in batches like
+		 * the asynchronous deletes; takes precedence over 'ftp.delete-remote-files'.
+		 */
+		private String archiveDir;
+
+		/**
+		 * The maximum number of files deleted or moved on one session.
+		 */
+		private int batchSize = 100;
+
+		/**
+		 * The interval between the runs, each handling the queued files in batches.
+		 */
+		private Duration interval = Duration.ofSeconds(1);
+
+		/**
+		 * The number of attempts to delete or move a file before it is left on the server.
+		 */
+		private int maxAttempts = 5;
+
+		public boolean isAsync() {
+			return this.async;
+		}
+
+		public void setAsync(boolean async) {
+			this.async = async;
+		}
+
+		public String getArchiveDir() {
+			return this.archiveDir;
+		}
+
+		public void setArchiveDir(String archiveDir) {
+			this.archiveDir = archiveDir;
+		}
+
+		@Min(1)
+		public int getBatchSize() {
+			return this.batchSize;
+		}
+
+		public void setBatchSize(int batchSize) {
+			this.batchSize = batchSize;
+		}
+
+		@NotNull
+		public Duration getInterval() {
+			return this.interval;
+		}
+
+		public void setInterval(Duration interval) {
+			this.interval = interval;
+		}
+
+		@Min(1)
+		public int getMaxAttempts() {
+			return this.maxAttempts;
+		}
+
+		public void setMaxAttempts(int maxAttempts) {
+			this.maxAttempts = maxAttempts;
+		}
+
+	}
+
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.integration.aop.AbstractMessageSourceAdvice;
+import org.springframework.integration.core.MessageSource;
+import org.springframework.integration.support.management.MessageSourceManagement;
+import org.springframework.messaging.Message;
+
+/**
+ * A poller advice suspending the remote synchronization while the files pending in the
+ * local directories are above a high-water mark, until they drop below a low-water mark.
+ * The files and bytes are measured before each poll.
+ * <p>
+ * While paused, the maximum fetch size of the source is set to 0, so that the polls keep
+ * emitting the files already in the local directory, which is what drains the backlog,
+ * but no longer download any; a source without a fetch size is not polled at all.
+ * <p>
+ * The state is exposed with the {@code ftp.source.backlog.files}, {@code bytes} and
+ * {@code paused} gauges, and the {@code ftp.source.backlog.pauses} counter.
+ */
+public class LocalBacklogGuard extends AbstractMessageSourceAdvice {
+
+	private static final Log logger = LogFactory.getLog(LocalBacklogGuard.class);
+
+	private final List<File> directories;
+
+	private final FtpSourceProperties.Backlog properties;
+
+	private final Counter pauses;
+
+	private volatile long files;
+
+	private volatile long bytes;
+
+	private volatile boolean paused;
+
+	/**
+	 * The maximum fetch size of the source before it was paused.
+	 */
+	private volatile int maxFetchSize;
+
+	public LocalBacklogGuard(List<File> directories, FtpSourceProperties.Backlog properties,
+			MeterRegistry meterRegistry) {
+
+		this.directories = directories;
+		this.properties = properties;
+		Gauge.builder("ftp.source.backlog.files", this, guard -> guard.files)
+				.description("The files pending in the local directory")
+				.register(meterRegistry);
+		Gauge.builder("ftp.source.backlog.bytes", this, guard -> guard.bytes)
+				.description("The bytes pending in the local directory")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+		Gauge.builder("ftp.source.backlog.paused", this, guard -> guard.paused ? 1 : 0)
+				.description("Whether the polls are paused by the local backlog")
+				.register(meterRegistry);
+		this.pauses = Counter.builder("ftp.source.backlog.pauses")
+				.description("The times the polls were paused by the local backlog")
+				.register(meterRegistry);
+	}
+
+	public boolean isPaused() {
+		return this.paused;
+	}
+
+	@Override
+	public boolean beforeReceive(MessageSource<?> source) {
+		measure();
+		if (!this.paused && (this.files >= this.properties.getHighWaterFiles()
+				|| this.bytes >= this.properties.getHighWaterSize().toBytes())) {
+
+			this.paused = true;
+			this.pauses.increment();
+			if (logger.isInfoEnabled()) {
+				logger.info("Pausing the polls: " + this.files + " files and " + this.bytes
+						+ " bytes are pending locally");
+			}
+		}
+		else if (this.paused && this.files <= this.properties.getLowWaterFiles()
+				&& this.bytes <= this.properties.getLowWaterSize().toBytes()) {
+
+			this.paused = false;
+			if (logger.isInfoEnabled()) {
+				logger.info("Resuming the polls: " + this.files + " files and " + this.bytes
+						+ " bytes are pending locally");
+			}
+		}
+		if (source instanceof MessageSourceManagement) {
+			MessageSourceManagement management = (MessageSourceManagement) source;
+			if (this.paused && management.getMaxFetchSize() != 0) {
+				this.maxFetchSize = management.getMaxFetchSize();
+				management.setMaxFetchSize(0);
+			}
+			else if (!this.paused && management.getMaxFetchSize() == 0) {
+				management.setMaxFetchSize(this.maxFetchSize);
+			}
+			return true;
+		}
+		return !this.paused;
+	}
+
+	@Override
+	public Message<?> afterReceive(Message<?> result, MessageSource<?> source) {
+		return result;
+	}
+
+	private void measure() {
+		long[] totals = new long[2];
+		for (File directory : this.directories) {
+			if (!directory.isDirectory()) {
+				continue;
+			}
+			try {
+				Files.walkFileTree(directory.toPath(), new SimpleFileVisitor<Path>() {
+
+					@Override
+					public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+						if (attributes.isRegularFile()) {
+							totals[0]++;
+							totals[1] += attributes.size();
+						}
+						return FileVisitResult.CONTINUE;
+					}
+
+					@Override
+					public FileVisitResult visitFileFailed(Path file, IOException e) {
+						return FileVisitResult.CONTINUE;
+					}
+
+				});
+			}
+			catch (IOException e) {
+				if (logger.isWarnEnabled()) {
+					logger.warn("Failed to measure the backlog in " + directory, e);
+				}
+			}
+		}
+		this.files = totals[0];
+		this.bytes = totals[1];
+	}
+
+}
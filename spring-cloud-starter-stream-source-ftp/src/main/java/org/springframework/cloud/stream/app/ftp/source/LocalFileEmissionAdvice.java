@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.messaging.Message;
+
+/**
+ * A poller advice around the whole poll, which returns the message once the flow handled
+ * it: the local file of the message has then been emitted, and the advice notifies the
+ * listeners with it, and deletes it when requested.
+ * <p>
+ * Only the modes which read the file while the message is handled, {@code contents} and
+ * {@code lines}, can delete it; in {@code ref} mode the consumer owns the file.
+ */
+public class LocalFileEmissionAdvice implements MethodInterceptor {
+
+	private static final Log logger = LogFactory.getLog(LocalFileEmissionAdvice.class);
+
+	private final boolean delete;
+
+	private final List<Consumer<File>> listeners = new CopyOnWriteArrayList<>();
+
+	public LocalFileEmissionAdvice(boolean delete) {
+		this.delete = delete;
+	}
+
+	/**
+	 * Add a listener notified with each emitted local file.
+	 * @param listener the listener.
+	 */
+	public void addListener(Consumer<File> listener) {
+		this.listeners.add(listener);
+	}
+
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		Object result = invocation.proceed();
+		if (result instanceof Message && ((Message<?>) result).getPayload() instanceof File) {
+			emitted((File) ((Message<?>) result).getPayload());
+		}
+		return result;
+	}
+
+	private void emitted(File file) {
+		for (Consumer<File> listener : this.listeners) {
+			listener.accept(file);
+		}
+		if (this.delete && !file.delete() && file.exists() && logger.isWarnEnabled()) {
+			logger.warn("Failed to delete the emitted file " + file);
+		}
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.cloud.stream.app.ftp.common.FtpMetrics;
+import org.springframework.integration.aop.AbstractMessageSourceAdvice;
+import org.springframework.integration.core.MessageSource;
+import org.springframework.messaging.Message;
+
+/**
+ * A poller advice timing the receive of each poll, which lists, filters and downloads the
+ * remote files when no local file is pending, with the {@code ftp.source.receive} timer
+ * tagged with whether a message was received.
+ */
+class PollTimingAdvice extends AbstractMessageSourceAdvice {
+
+	private final ThreadLocal<Long> start = new ThreadLocal<>();
+
+	private final Timer messageTimer;
+
+	private final Timer emptyTimer;
+
+	PollTimingAdvice(FtpMetrics metrics, String remoteDirectory) {
+		this.messageTimer = metrics.timer("ftp.source.receive", "The time spent receiving a message",
+				Tags.of("remoteDir", remoteDirectory, "result", "message"));
+		this.emptyTimer = metrics.timer("ftp.source.receive", "The time spent receiving a message",
+				Tags.of("remoteDir", remoteDirectory, "result", "empty"));
+	}
+
+	@Override
+	public boolean beforeReceive(MessageSource<?> source) {
+		this.start.set(System.nanoTime());
+		return true;
+	}
+
+	@Override
+	public Message<?> afterReceive(Message<?> result, MessageSource<?> source) {
+		Long started = this.start.get();
+		if (started != null) {
+			this.start.remove();
+			(result != null ? this.messageTimer : this.emptyTimer)
+					.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+		}
+		return result;
+	}
+
+}
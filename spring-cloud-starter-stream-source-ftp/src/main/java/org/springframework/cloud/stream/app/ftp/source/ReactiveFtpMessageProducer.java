@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.integration.endpoint.MessageProducerSupport;
+import org.springframework.integration.ftp.dsl.FtpInboundChannelAdapterSpec;
+import org.springframework.integration.ftp.inbound.FtpInboundFileSynchronizingMessageSource;
+import org.springframework.messaging.Message;
+
+/**
+ * A message producer driving the FTP inbound message source by the downstream demand
+ * instead of a poller: a file is fetched only when one is requested, and at most
+ * {@code prefetch} files are fetched ahead of the one being emitted.
+ * <p>
+ * The files are fetched on one thread and emitted on another; the emitting thread requests
+ * the next file once the output channel accepted the previous one, so a slow binder
+ * throttles the remote reads. When the remote directory has no new file, or when fetching
+ * fails, it is listed again after the {@code idleDelay}. A file which fails to be sent has
+ * already been accepted by the remote filters, so it is sent again after the
+ * {@code idleDelay} rather than dropped, and no other file is requested meanwhile.
+ */
+public class ReactiveFtpMessageProducer extends MessageProducerSupport {
+
+	private final FtpInboundFileSynchronizingMessageSource messageSource;
+
+	private final Collection<Object> components;
+
+	private final int prefetch;
+
+	private final Duration idleDelay;
+
+	private final List<Consumer<File>> listeners = new CopyOnWriteArrayList<>();
+
+	private volatile Scheduler fetchScheduler;
+
+	private volatile Scheduler emitScheduler;
+
+	private volatile DemandSubscriber subscriber;
+
+	public ReactiveFtpMessageProducer(FtpInboundChannelAdapterSpec messageSourceSpec, int prefetch,
+			Duration idleDelay) {
+
+		this.messageSource = messageSourceSpec.get();
+		this.components = messageSourceSpec.getComponentsToRegister().keySet();
+		this.prefetch = prefetch;
+		this.idleDelay = idleDelay;
+	}
+
+	/**
+	 * Add a listener notified with the local file of each message once it has been sent
+	 * successfully.
+	 * @param listener the listener.
+	 */
+	public void addListener(Consumer<File> listener) {
+		this.listeners.add(listener);
+	}
+
+	@Override
+	public String getComponentType() {
+		return "ftp:reactive-inbound-channel-adapter";
+	}
+
+	@Override
+	protected void onInit() {
+		super.onInit();
+		BeanFactory beanFactory = getBeanFactory();
+		for (Object component : this.components) {
+			if (component instanceof BeanFactoryAware) {
+				((BeanFactoryAware) component).setBeanFactory(beanFactory);
+			}
+		}
+		this.messageSource.setBeanFactory(beanFactory);
+		this.messageSource.afterPropertiesSet();
+	}
+
+	@Override
+	protected void doStart() {
+		this.messageSource.start();
+		this.fetchScheduler = Schedulers.newSingle("ftp-source-fetch");
+		this.emitScheduler = Schedulers.newSingle("ftp-source-emit");
+		Flux<Message<File>> files =
+				Mono.fromCallable(this.messageSource::receive)
+						.onErrorResume(e -> {
+							logger.error("Failed to fetch a file; retrying in " + this.idleDelay, e);
+							return Mono.empty();
+						})
+						.repeatWhenEmpty(attempts -> attempts.delayElements(this.idleDelay, this.fetchScheduler))
+						.repeat()
+						.subscribeOn(this.fetchScheduler)
+						.publishOn(this.emitScheduler, this.prefetch);
+		this.subscriber = new DemandSubscriber();
+		files.subscribe(this.subscriber);
+	}
+
+	@Override
+	protected void doStop() {
+		this.subscriber.dispose();
+		this.emitScheduler.dispose();
+		this.fetchScheduler.dispose();
+		this.messageSource.stop();
+	}
+
+	private final class DemandSubscriber extends BaseSubscriber<Message<File>> {
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+			request(1);
+		}
+
+		@Override
+		protected void hookOnNext(Message<File> message) {
+			send(message);
+		}
+
+		private void send(Message<File> message) {
+			if (isDisposed()) {
+				return;
+			}
+			try {
+				sendMessage(message);
+			}
+			catch (RuntimeException e) {
+				logger.error("Failed to send " + message + "; retrying in " + ReactiveFtpMessageProducer.this.idleDelay,
+						e);
+				try {
+					ReactiveFtpMessageProducer.this.emitScheduler.schedule(() -> send(message),
+							ReactiveFtpMessageProducer.this.idleDelay.toMillis(), TimeUnit.MILLISECONDS);
+				}
+				catch (RejectedExecutionException ex) {
+					// stopping: the file is left in the local directory
+				}
+				return;
+			}
+			for (Consumer<File> listener : ReactiveFtpMessageProducer.this.listeners) {
+				listener.accept(message.getPayload());
+			}
+			request(1);
+		}
+
+		@Override
+		protected void hookOnError(Throwable throwable) {
+			logger.error("The FTP file stream terminated", throwable);
+		}
+
+	}
+
+}
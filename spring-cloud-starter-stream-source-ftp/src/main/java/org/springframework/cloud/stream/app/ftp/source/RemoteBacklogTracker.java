@@ -0,0 +1,180 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.net.ftp.FTPFile;
+
+import org.springframework.integration.file.filters.FileListFilter;
+import org.springframework.messaging.Message;
+
+/**
+ * Tracks the remote files accepted by the filters of the source and not emitted yet, from
+ * the listings the source performs anyway: no additional {@code LIST} is sent.
+ * <p>
+ * The {@link #acceptedFilter()}, at the end of the filter chain, records the newly
+ * accepted files, and the tracker, as a poller advice around the whole poll, forgets them
+ * once their message has been handled. The {@link #listingFilter()}, in front of the
+ * accept-once filter, also forgets the files which are no longer listed, when the remote
+ * files are kept after their download. The files accepted before a restart but not
+ * emitted are not tracked.
+ * <p>
+ * The backlog is exposed with the {@code ftp.source.remote.backlog.files} and
+ * {@code bytes} gauges, and the age of the oldest pending file with the
+ * {@code ftp.source.remote.lag} gauge, in seconds, all tagged with the {@code remoteDir}.
+ */
+public class RemoteBacklogTracker implements MethodInterceptor {
+
+	private final ConcurrentMap<String, PendingFile> pending = new ConcurrentHashMap<>();
+
+	public RemoteBacklogTracker(String remoteDirectory, MeterRegistry meterRegistry) {
+		Gauge.builder("ftp.source.remote.backlog.files", this, RemoteBacklogTracker::getFiles)
+				.description("The remote files accepted and not emitted yet")
+				.tag("remoteDir", remoteDirectory)
+				.register(meterRegistry);
+		Gauge.builder("ftp.source.remote.backlog.bytes", this, RemoteBacklogTracker::getBytes)
+				.description("The bytes of the remote files accepted and not emitted yet")
+				.tag("remoteDir", remoteDirectory)
+				.baseUnit("bytes")
+				.register(meterRegistry);
+		Gauge.builder("ftp.source.remote.lag", this, tracker -> tracker.getLag() / 1000.0)
+				.description("The age of the oldest remote file accepted and not emitted yet")
+				.tag("remoteDir", remoteDirectory)
+				.baseUnit("seconds")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Return the filter recording the accepted files, to be added last to the chain.
+	 * @return the filter, which accepts all the files.
+	 */
+	public FileListFilter<FTPFile> acceptedFilter() {
+		return new AcceptedFileListFilter();
+	}
+
+	/**
+	 * Return the filter forgetting the files which are no longer listed, to be added in front
+	 * of the accept-once filter.
+	 * @return the filter, which accepts all the files.
+	 */
+	public FileListFilter<FTPFile> listingFilter() {
+		return new ListingFileListFilter();
+	}
+
+	public int getFiles() {
+		return this.pending.size();
+	}
+
+	public long getBytes() {
+		long bytes = 0;
+		for (PendingFile file : this.pending.values()) {
+			bytes += file.size;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Return the age of the oldest pending file.
+	 * @return the age in milliseconds, 0 when no file is pending.
+	 */
+	public long getLag() {
+		long oldest = Long.MAX_VALUE;
+		for (PendingFile file : this.pending.values()) {
+			oldest = Math.min(oldest, file.timestamp);
+		}
+		return oldest == Long.MAX_VALUE ? 0 : Math.max(0, System.currentTimeMillis() - oldest);
+	}
+
+	/**
+	 * Forget a file once its message has been handled.
+	 * @param name the name of the file.
+	 */
+	public void emitted(String name) {
+		this.pending.remove(name);
+	}
+
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		Object result = invocation.proceed();
+		if (result instanceof Message) {
+			Object payload = ((Message<?>) result).getPayload();
+			if (payload instanceof File) {
+				emitted(((File) payload).getName());
+			}
+			else if (payload instanceof RemoteFileDescriptor) {
+				emitted(((RemoteFileDescriptor) payload).getName());
+			}
+		}
+		return result;
+	}
+
+	private static final class PendingFile {
+
+		private final long size;
+
+		private final long timestamp;
+
+		PendingFile(FTPFile file) {
+			this.size = Math.max(0, file.getSize());
+			this.timestamp = file.getTimestamp() != null
+					? file.getTimestamp().getTimeInMillis()
+					: System.currentTimeMillis();
+		}
+
+	}
+
+	private final class AcceptedFileListFilter implements FileListFilter<FTPFile> {
+
+		@Override
+		public List<FTPFile> filterFiles(FTPFile[] files) {
+			for (FTPFile file : files) {
+				if (file != null) {
+					RemoteBacklogTracker.this.pending.putIfAbsent(file.getName(), new PendingFile(file));
+				}
+			}
+			return Arrays.asList(files);
+		}
+
+	}
+
+	private final class ListingFileListFilter implements FileListFilter<FTPFile> {
+
+		@Override
+		public List<FTPFile> filterFiles(FTPFile[] files) {
+			Set<String> names = new HashSet<>();
+			for (FTPFile file : files) {
+				if (file != null) {
+					names.add(file.getName());
+				}
+			}
+			RemoteBacklogTracker.this.pending.keySet().retainAll(names);
+			return Arrays.asList(files);
+		}
+
+	}
+
+}
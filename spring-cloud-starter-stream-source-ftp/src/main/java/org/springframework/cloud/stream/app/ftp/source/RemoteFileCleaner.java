@@ -0,0 +1,275 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.commons.net.ftp.FTPFile;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.integration.file.remote.RemoteFileUtils;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Deletes the remote files, or moves them to an archive directory, once they have been
+ * emitted: the files are queued and handled in batches, each on one session, by a
+ * dedicated thread, so that the polls do not wait for the {@code DELE} or
+ * {@code RNFR/RNTO} round trips. Each run, and the last one at shutdown, handles all the
+ * files queued when it starts. A file whose action fails is retried on the next run, up
+ * to the maximum number of attempts, after which it is left on the server; the files
+ * not handled because the connection failed are retried without counting an attempt.
+ * <p>
+ * The state is exposed with the {@code ftp.source.cleanup.pending} gauge and the
+ * {@code ftp.source.cleanup.completed}, {@code failures}, {@code connection.failures} and
+ * {@code abandoned} counters, tagged with the {@code action}.
+ */
+public class RemoteFileCleaner implements DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(RemoteFileCleaner.class);
+
+	private final SessionFactory<FTPFile> sessionFactory;
+
+	private final String remoteDirectory;
+
+	private final String remoteFileSeparator;
+
+	private final FtpSourceProperties.Cleanup properties;
+
+	private final boolean enabled;
+
+	private final String action;
+
+	private final BlockingQueue<PendingFile> queue = new LinkedBlockingQueue<>();
+
+	private final Counter completed;
+
+	private final Counter failures;
+
+	private final Counter abandoned;
+
+	private final Counter connectionFailures;
+
+	private final ScheduledExecutorService executor;
+
+	private volatile boolean archiveDirectoryCreated;
+
+	public RemoteFileCleaner(SessionFactory<FTPFile> sessionFactory, FtpSourceProperties properties,
+			MeterRegistry meterRegistry) {
+
+		this.sessionFactory = sessionFactory;
+		this.remoteDirectory = properties.getRemoteDir();
+		this.remoteFileSeparator = properties.getRemoteFileSeparator();
+		this.properties = properties.getCleanup();
+		this.enabled = !properties.isListOnly() && (this.properties.getArchiveDir() != null
+				|| (this.properties.isAsync() && properties.isDeleteRemoteFiles()));
+		this.action = this.properties.getArchiveDir() != null ? "archive" : "delete";
+		Gauge.builder("ftp.source.cleanup.pending", this.queue, BlockingQueue::size)
+				.description("The remote files waiting to be deleted or archived")
+				.register(meterRegistry);
+		this.completed = Counter.builder("ftp.source.cleanup.completed")
+				.description("The remote files deleted or archived")
+				.tag("action", this.action)
+				.register(meterRegistry);
+		this.failures = Counter.builder("ftp.source.cleanup.failures")
+				.description("The failed attempts to delete or archive a remote file")
+				.tag("action", this.action)
+				.register(meterRegistry);
+		this.abandoned = Counter.builder("ftp.source.cleanup.abandoned")
+				.description("The remote files left on the server after the last attempt")
+				.tag("action", this.action)
+				.register(meterRegistry);
+		this.connectionFailures = Counter.builder("ftp.source.cleanup.connection.failures")
+				.description("The batches of remote files queued again after a connection failure")
+				.tag("action", this.action)
+				.register(meterRegistry);
+		if (this.enabled) {
+			this.executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("ftp-cleanup-"));
+			long interval = this.properties.getInterval().toMillis();
+			this.executor.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+		}
+		else {
+			this.executor = null;
+		}
+	}
+
+	/**
+	 * Return whether the files are deleted or archived by this cleaner, in which case the
+	 * inbound adapter must not delete them itself.
+	 * @return true when enabled.
+	 */
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public int getPendingCount() {
+		return this.queue.size();
+	}
+
+	/**
+	 * Queue the remote file of an emitted local file.
+	 * @param fileName the name of the file.
+	 */
+	public void emitted(String fileName) {
+		if (this.enabled) {
+			this.queue.add(new PendingFile(path(this.remoteDirectory, fileName), fileName));
+		}
+	}
+
+	/**
+	 * Delete or archive the queued files, in batches; the files queued again after a
+	 * failure wait for the next run, as well as the files queued meanwhile. The run stops
+	 * early when the connection fails.
+	 */
+	void flush() {
+		int remaining = this.queue.size();
+		while (remaining > 0) {
+			List<PendingFile> batch = new ArrayList<>();
+			this.queue.drainTo(batch, Math.min(remaining, this.properties.getBatchSize()));
+			if (batch.isEmpty() || !flush(batch)) {
+				return;
+			}
+			remaining -= batch.size();
+		}
+	}
+
+	/**
+	 * Delete or archive a batch of files on one session. When the session cannot be
+	 * opened, or breaks, the files not handled yet are queued again without counting an
+	 * attempt, since the server was not asked to delete or move them.
+	 * @param batch the files.
+	 * @return false if the connection failed.
+	 */
+	private boolean flush(List<PendingFile> batch) {
+		Session<FTPFile> session;
+		try {
+			session = this.sessionFactory.getSession();
+		}
+		catch (RuntimeException e) {
+			connectionFailed(batch, e);
+			return false;
+		}
+		try {
+			for (int i = 0; i < batch.size(); i++) {
+				PendingFile file = batch.get(i);
+				try {
+					apply(session, file);
+					this.completed.increment();
+				}
+				catch (IOException | RuntimeException e) {
+					if (!session.isOpen()) {
+						connectionFailed(batch.subList(i, batch.size()), e);
+						return false;
+					}
+					failed(file, e);
+				}
+			}
+			return true;
+		}
+		finally {
+			try {
+				session.close();
+			}
+			catch (RuntimeException e) {
+				logger.debug("Failed to close the cleanup session", e);
+			}
+		}
+	}
+
+	private void connectionFailed(List<PendingFile> files, Exception e) {
+		this.connectionFailures.increment();
+		if (logger.isWarnEnabled()) {
+			logger.warn("Failed to connect to " + this.action + " " + files.size() + " files; retrying on the next run",
+					e);
+		}
+		this.queue.addAll(files);
+	}
+
+	private void apply(Session<FTPFile> session, PendingFile file) throws IOException {
+		String archiveDir = this.properties.getArchiveDir();
+		if (archiveDir != null) {
+			if (!this.archiveDirectoryCreated) {
+				RemoteFileUtils.makeDirectories(archiveDir, session, this.remoteFileSeparator, logger);
+				this.archiveDirectoryCreated = true;
+			}
+			session.rename(file.path, path(archiveDir, file.name));
+		}
+		else if (!session.remove(file.path)) {
+			throw new IOException("The server did not delete '" + file.path + "'");
+		}
+	}
+
+	private void failed(PendingFile file, Exception e) {
+		this.failures.increment();
+		if (++file.attempts < this.properties.getMaxAttempts()) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to " + this.action + " '" + file.path + "'; retrying", e);
+			}
+			this.queue.add(file);
+		}
+		else {
+			this.abandoned.increment();
+			if (logger.isWarnEnabled()) {
+				logger.warn("Failed to " + this.action + " '" + file.path + "' after " + file.attempts
+						+ " attempts; leaving it on the server", e);
+			}
+		}
+	}
+
+	private String path(String directory, String fileName) {
+		return directory.endsWith(this.remoteFileSeparator)
+				? directory + fileName
+				: directory + this.remoteFileSeparator + fileName;
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		if (this.executor != null && !this.executor.isShutdown()) {
+			this.executor.execute(this::flush);
+			this.executor.shutdown();
+			this.executor.awaitTermination(10, TimeUnit.SECONDS);
+		}
+	}
+
+	private static final class PendingFile {
+
+		private final String path;
+
+		private final String name;
+
+		private int attempts;
+
+		PendingFile(String path, String name) {
+			this.path = path;
+			this.name = name;
+		}
+
+	}
+
+}
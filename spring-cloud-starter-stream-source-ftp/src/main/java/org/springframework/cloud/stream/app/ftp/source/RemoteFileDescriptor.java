@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+/**
+ * The description of a remote file emitted by the source in list-only mode, for a
+ * downstream application to fetch it.
+ */
+public class RemoteFileDescriptor {
+
+	private final String host;
+
+	private final String path;
+
+	private final String name;
+
+	private final long size;
+
+	private final long modified;
+
+	public RemoteFileDescriptor(String host, String path, String name, long size, long modified) {
+		this.host = host;
+		this.path = path;
+		this.name = name;
+		this.size = size;
+		this.modified = modified;
+	}
+
+	/**
+	 * @return the host of the server.
+	 */
+	public String getHost() {
+		return this.host;
+	}
+
+	/**
+	 * @return the path of the file on the server.
+	 */
+	public String getPath() {
+		return this.path;
+	}
+
+	/**
+	 * @return the name of the file.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return the size of the file, in bytes.
+	 */
+	public long getSize() {
+		return this.size;
+	}
+
+	/**
+	 * @return the modification time of the file, in milliseconds since the epoch, or 0 when
+	 * the server does not provide it.
+	 */
+	public long getModified() {
+		return this.modified;
+	}
+
+	@Override
+	public String toString() {
+		return "RemoteFileDescriptor [host=" + this.host + ", path=" + this.path + ", size=" + this.size
+				+ ", modified=" + this.modified + "]";
+	}
+
+}
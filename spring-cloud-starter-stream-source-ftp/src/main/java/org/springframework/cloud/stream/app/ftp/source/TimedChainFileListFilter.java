@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.net.ftp.FTPFile;
+
+import org.springframework.cloud.stream.app.ftp.common.FtpMetrics;
+import org.springframework.integration.file.filters.ChainFileListFilter;
+
+/**
+ * A {@link ChainFileListFilter} timing the filtering of each listing with the
+ * {@code ftp.source.filter} timer, and counting the listed and accepted files with the
+ * {@code ftp.source.files.listed} and {@code accepted} counters.
+ */
+class TimedChainFileListFilter extends ChainFileListFilter<FTPFile> {
+
+	private final Timer timer;
+
+	private final Counter listed;
+
+	private final Counter accepted;
+
+	TimedChainFileListFilter(FtpMetrics metrics, String remoteDirectory) {
+		Tags tags = Tags.of("remoteDir", remoteDirectory);
+		this.timer = metrics.timer("ftp.source.filter", "The time spent filtering the remote files", tags);
+		this.listed = metrics.counter("ftp.source.files.listed", "The remote files listed", tags);
+		this.accepted = metrics.counter("ftp.source.files.accepted", "The remote files accepted by the filters",
+				tags);
+	}
+
+	@Override
+	public List<FTPFile> filterFiles(FTPFile[] files) {
+		long start = System.nanoTime();
+		List<FTPFile> result = super.filterFiles(files);
+		this.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		this.listed.increment(files.length);
+		this.accepted.increment(result.size());
+		return result;
+	}
+
+}
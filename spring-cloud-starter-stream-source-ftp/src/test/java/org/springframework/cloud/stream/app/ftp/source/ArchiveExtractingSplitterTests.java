@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.cloud.stream.app.file.FileReadingMode;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.support.GenericMessage;
+
+public class ArchiveExtractingSplitterTests {
+
+	private static final int MAX_CONTENT_SIZE = 1024;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void zipEntriesAsContents() throws Exception {
+		File archive = this.temporaryFolder.newFile("archive.zip");
+		try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(archive))) {
+			zipOutputStream.putNextEntry(new ZipEntry("dir/"));
+			zipOutputStream.putNextEntry(new ZipEntry("dir/first.txt"));
+			zipOutputStream.write("first".getBytes(StandardCharsets.UTF_8));
+			zipOutputStream.putNextEntry(new ZipEntry("second.txt"));
+			zipOutputStream.write("second".getBytes(StandardCharsets.UTF_8));
+		}
+		QueueChannel output = split(archive, FileReadingMode.contents);
+
+		Message<?> first = output.receive(0);
+		assertThat(new String((byte[]) first.getPayload(), StandardCharsets.UTF_8), equalTo("first"));
+		assertThat(first.getHeaders().get(FileHeaders.FILENAME), equalTo("first.txt"));
+		assertThat(first.getHeaders().get(ArchiveExtractingSplitter.ARCHIVE_ENTRY), equalTo("dir/first.txt"));
+		Message<?> second = output.receive(0);
+		assertThat(new String((byte[]) second.getPayload(), StandardCharsets.UTF_8), equalTo("second"));
+		assertNull(output.receive(0));
+	}
+
+	@Test
+	public void oversizedEntryIsRejected() throws Exception {
+		File compressed = this.temporaryFolder.newFile("large.txt.gz");
+		try (OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(compressed))) {
+			outputStream.write(new byte[MAX_CONTENT_SIZE + 1]);
+		}
+		try {
+			split(compressed, FileReadingMode.contents);
+			fail("Expected MessageHandlingException");
+		}
+		catch (MessageHandlingException e) {
+			assertThat(e.getCause().getMessage(), containsString("large.txt"));
+		}
+	}
+
+	@Test
+	public void nothingIsExtractedToDiskOutsideRefMode() throws Exception {
+		File compressed = this.temporaryFolder.newFile("data.txt.gz");
+		try (OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(compressed))) {
+			outputStream.write("data".getBytes(StandardCharsets.UTF_8));
+		}
+		for (FileReadingMode mode : new FileReadingMode[] { FileReadingMode.contents, FileReadingMode.lines }) {
+			File extractDirectory = this.temporaryFolder.newFolder("extracted-" + mode);
+			ArchiveExtractingSplitter splitter = new ArchiveExtractingSplitter(mode, extractDirectory,
+					MAX_CONTENT_SIZE);
+			QueueChannel output = new QueueChannel();
+			splitter.setOutputChannel(output);
+			splitter.handleMessage(new GenericMessage<>(compressed));
+			Object payload = output.receive(0).getPayload();
+			if (payload instanceof Closeable) {
+				((Closeable) payload).close();
+			}
+			assertThat(extractDirectory.list().length, equalTo(0));
+		}
+	}
+
+	@Test
+	public void gzipAsRef() throws Exception {
+		File compressed = this.temporaryFolder.newFile("data.txt.gz");
+		try (OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(compressed))) {
+			outputStream.write("data".getBytes(StandardCharsets.UTF_8));
+		}
+		QueueChannel output = split(compressed, FileReadingMode.ref);
+
+		Message<?> message = output.receive(0);
+		File extracted = (File) message.getPayload();
+		assertThat(extracted.getName(), equalTo("data.txt"));
+		assertThat(new String(Files.readAllBytes(extracted.toPath()), StandardCharsets.UTF_8), equalTo("data"));
+		assertNull(output.receive(0));
+	}
+
+	@Test
+	public void plainFilePassesThrough() throws Exception {
+		File plain = this.temporaryFolder.newFile("plain.txt");
+		Files.write(plain.toPath(), "plain".getBytes(StandardCharsets.UTF_8));
+		QueueChannel output = split(plain, FileReadingMode.ref);
+
+		assertThat(output.receive(0).getPayload(), equalTo(plain));
+	}
+
+	private QueueChannel split(File file, FileReadingMode mode) throws Exception {
+		ArchiveExtractingSplitter splitter = new ArchiveExtractingSplitter(mode,
+				this.temporaryFolder.newFolder("extracted-" + mode), MAX_CONTENT_SIZE);
+		QueueChannel output = new QueueChannel();
+		splitter.setOutputChannel(output);
+		splitter.handleMessage(new GenericMessage<>(file));
+		return output;
+	}
+
+}
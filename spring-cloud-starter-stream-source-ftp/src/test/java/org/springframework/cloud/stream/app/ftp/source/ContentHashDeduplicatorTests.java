@@ -0,0 +1,229 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.filter.MessageFilter;
+import org.springframework.integration.metadata.SimpleMetadataStore;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.support.GenericMessage;
+
+public class ContentHashDeduplicatorTests {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final FtpSourceProperties properties = new FtpSourceProperties();
+
+	private final FTPClient client = mock(FTPClient.class);
+
+	private SessionFactory<FTPFile> sessionFactory;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setup() throws Exception {
+		Session<FTPFile> session = mock(Session.class);
+		when(session.getClientInstance()).thenReturn(this.client);
+		this.sessionFactory = mock(SessionFactory.class);
+		when(this.sessionFactory.getSession()).thenReturn(session);
+		this.properties.setRemoteDir("/in");
+		when(this.client.features()).thenReturn(true);
+		when(this.client.hasFeature("XMD5")).thenReturn(true);
+		when(this.client.getReplyCode()).thenReturn(250);
+		// every remote file has the same content
+		when(this.client.getReplyString()).thenReturn("250 0123456789abcdef0123456789abcdef\r\n");
+	}
+
+	@Test
+	public void serverHashDropsDuplicateBeforeDownload() {
+		ContentHashDeduplicator deduplicator = deduplicator();
+
+		List<FTPFile> accepted = deduplicator.filterFiles(files("first.txt", "copy.txt"));
+
+		assertThat(names(accepted), equalTo(Collections.singletonList("first.txt")));
+		assertThat(deduplicator.filterFiles(files("later-copy.txt")).size(), equalTo(0));
+	}
+
+	@Test
+	public void serverHashRollbackForgetsTheContent() {
+		ContentHashDeduplicator deduplicator = deduplicator();
+		List<FTPFile> accepted = deduplicator.filterFiles(files("first.txt"));
+
+		deduplicator.rollback(accepted.get(0), accepted);
+
+		assertThat(names(deduplicator.filterFiles(files("first.txt"))),
+				equalTo(Collections.singletonList("first.txt")));
+	}
+
+	@Test
+	public void serverHashRollbackKeepsTheFilesBefore() {
+		ContentHashDeduplicator deduplicator = deduplicator();
+		when(this.client.getReplyString()).thenReturn(
+				"250 00000000000000000000000000000001\r\n",
+				"250 00000000000000000000000000000002\r\n",
+				"250 00000000000000000000000000000001\r\n",
+				"250 00000000000000000000000000000002\r\n");
+		List<FTPFile> accepted = deduplicator.filterFiles(files("first.txt", "second.txt"));
+		assertThat(accepted.size(), equalTo(2));
+
+		deduplicator.rollback(accepted.get(1), accepted);
+
+		assertThat(names(deduplicator.filterFiles(files("first-again.txt", "second.txt"))),
+				equalTo(Collections.singletonList("second.txt")));
+	}
+
+	@Test
+	public void filesOfServersWithoutHashAreHashedLocally() throws Exception {
+		when(this.client.hasFeature("XMD5")).thenReturn(false);
+		ContentHashDeduplicator deduplicator = deduplicator();
+
+		assertThat(deduplicator.filterFiles(files("first.txt", "copy.txt")).size(), equalTo(2));
+		assertTrue(deduplicator.accept(new GenericMessage<>(localFile("first.txt", "content"))));
+		assertFalse(deduplicator.accept(new GenericMessage<>(localFile("copy.txt", "content"))));
+	}
+
+	@Test
+	public void serverHashedFilesAreNotHashedAgain() throws Exception {
+		ContentHashDeduplicator deduplicator = deduplicator();
+		// the same content recorded by a local hash, as for a server without hash command
+		this.properties.getDedupe().setServerHash(false);
+		assertTrue(deduplicator.accept(new GenericMessage<>(localFile("other.txt", "content"))));
+		this.properties.getDedupe().setServerHash(true);
+
+		assertThat(names(deduplicator.filterFiles(files("first.txt"))), equalTo(Collections.singletonList("first.txt")));
+		assertTrue(deduplicator.accept(new GenericMessage<>(localFile("first.txt", "content"))));
+	}
+
+	@Test
+	public void localHashDoesNotOpenSessionsWhileListing() throws Exception {
+		this.properties.getDedupe().setServerHash(false);
+		ContentHashDeduplicator deduplicator = deduplicator();
+
+		assertThat(deduplicator.filterFiles(files("first.txt", "copy.txt")).size(), equalTo(2));
+		verify(this.sessionFactory, never()).getSession();
+		verify(this.client, never()).sendCommand(anyString(), anyString());
+	}
+
+	@Test
+	public void localHashDropsAndDeletesDuplicate() throws Exception {
+		this.properties.getDedupe().setServerHash(false);
+		ContentHashDeduplicator deduplicator = deduplicator();
+		File first = localFile("first.txt", "content");
+		File copy = localFile("copy.txt", "content");
+		File other = localFile("other.txt", "other content");
+
+		assertTrue(deduplicator.accept(new GenericMessage<>(first)));
+		assertFalse(deduplicator.accept(new GenericMessage<>(copy)));
+		assertFalse(copy.exists());
+		assertTrue(deduplicator.accept(new GenericMessage<>(other)));
+	}
+
+	@Test
+	public void localHashAcceptsTheRetriedSendOfTheSameFile() throws Exception {
+		this.properties.getDedupe().setServerHash(false);
+		ContentHashDeduplicator deduplicator = deduplicator();
+		MessageFilter filter = new MessageFilter(deduplicator);
+		AtomicInteger sends = new AtomicInteger();
+		List<Message<?>> emitted = new ArrayList<>();
+		filter.setOutputChannel((message, timeout) -> {
+			if (sends.incrementAndGet() == 1) {
+				throw new MessageDeliveryException(message, "The binder is not available");
+			}
+			return emitted.add(message);
+		});
+		File first = localFile("first.txt", "content");
+		try {
+			filter.handleMessage(new GenericMessage<>(first));
+			fail("MessageDeliveryException expected");
+		}
+		catch (MessageDeliveryException e) {
+			// retried by the source
+		}
+
+		filter.handleMessage(new GenericMessage<>(first));
+
+		assertThat(emitted.size(), equalTo(1));
+		assertTrue(first.exists());
+		assertFalse(deduplicator.accept(new GenericMessage<>(localFile("copy.txt", "content"))));
+	}
+
+	@Test
+	public void localHashRecordsNothingForRolledBackFiles() throws Exception {
+		this.properties.getDedupe().setServerHash(false);
+		ContentHashDeduplicator deduplicator = deduplicator();
+		List<FTPFile> accepted = deduplicator.filterFiles(files("first.txt"));
+
+		// not downloaded, e.g. beyond the maximum fetch size
+		deduplicator.rollback(accepted.get(0), accepted);
+
+		assertTrue(deduplicator.accept(new GenericMessage<>(localFile("first.txt", "content"))));
+	}
+
+	private ContentHashDeduplicator deduplicator() {
+		return new ContentHashDeduplicator(this.sessionFactory, new SimpleMetadataStore(), this.properties);
+	}
+
+	private File localFile(String name, String content) throws Exception {
+		File file = new File(this.temporaryFolder.getRoot(), name);
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private static FTPFile[] files(String... names) {
+		return Arrays.stream(names)
+				.map(name -> {
+					FTPFile file = new FTPFile();
+					file.setName(name);
+					file.setType(FTPFile.FILE_TYPE);
+					return file;
+				})
+				.toArray(FTPFile[]::new);
+	}
+
+	private static List<String> names(List<FTPFile> files) {
+		return Arrays.asList(files.stream().map(FTPFile::getName).toArray(String[]::new));
+	}
+
+}
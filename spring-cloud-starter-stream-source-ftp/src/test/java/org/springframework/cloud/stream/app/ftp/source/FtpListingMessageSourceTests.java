@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.Test;
+
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.ftp.filters.FtpPersistentAcceptOnceFileListFilter;
+import org.springframework.integration.metadata.SimpleMetadataStore;
+
+public class FtpListingMessageSourceTests {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void undrainedFilesAreRolledBackOnStop() throws Exception {
+		Session<FTPFile> session = mock(Session.class);
+		SessionFactory<FTPFile> sessionFactory = mock(SessionFactory.class);
+		when(sessionFactory.getSession()).thenReturn(session);
+		when(session.list("in")).thenAnswer(invocation -> files("first.txt", "second.txt", "third.txt"));
+		SimpleMetadataStore metadataStore = new SimpleMetadataStore();
+		FtpListingMessageSource source = new FtpListingMessageSource(sessionFactory, "localhost", "in", "/",
+				new FtpPersistentAcceptOnceFileListFilter(metadataStore, "ftpSource/"));
+		source.start();
+
+		assertThat(source.receive().getHeaders().get(FileHeaders.FILENAME), equalTo("first.txt"));
+		source.stop();
+
+		assertNotNull(metadataStore.get("ftpSource/first.txt"));
+		assertNull(metadataStore.get("ftpSource/second.txt"));
+		assertNull(metadataStore.get("ftpSource/third.txt"));
+		source.start();
+		assertThat(source.receive().getHeaders().get(FileHeaders.FILENAME), equalTo("second.txt"));
+		assertThat(source.receive().getHeaders().get(FileHeaders.FILENAME), equalTo("third.txt"));
+		assertNull(source.receive());
+	}
+
+	private static FTPFile[] files(String... names) {
+		return Arrays.stream(names)
+				.map(name -> {
+					FTPFile file = new FTPFile();
+					file.setName(name);
+					file.setType(FTPFile.FILE_TYPE);
+					file.setSize(1);
+					return file;
+				})
+				.toArray(FTPFile[]::new);
+	}
+
+}
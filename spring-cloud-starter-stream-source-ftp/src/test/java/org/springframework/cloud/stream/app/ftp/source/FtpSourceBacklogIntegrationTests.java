@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.app.test.ftp.FtpTestSupport;
+import org.springframework.cloud.stream.messaging.Source;
+import org.springframework.cloud.stream.test.binder.MessageCollector;
+import org.springframework.messaging.Message;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+		properties = {
+				"ftp.remoteDir = ftpSource",
+				"ftp.factory.username = foo",
+				"ftp.factory.password = foo",
+				"ftp.filenamePattern = *",
+				"file.consumer.mode = ref",
+				"trigger.fixedDelay = 100",
+				"trigger.timeUnit = MILLISECONDS",
+				"ftp.backlog.enabled = true",
+				"ftp.backlog.highWaterFiles = 2",
+				"ftp.backlog.lowWaterFiles = 0"
+		})
+@DirtiesContext
+public class FtpSourceBacklogIntegrationTests extends FtpTestSupport {
+
+	@Autowired
+	MessageCollector messageCollector;
+
+	@Autowired
+	FtpSourceProperties config;
+
+	@Autowired
+	Source ftpSource;
+
+	@Test
+	public void localFilesDrainWhilePausedAndPollingResumes() throws Exception {
+		// both remote files are downloaded by one poll, crossing the high-water mark, and the
+		// second one is still emitted while the downloads are paused
+		Set<String> received = new HashSet<>();
+		received.add(receive().getName());
+		received.add(receive().getName());
+		assertThat(received, equalTo(new HashSet<>(Arrays.asList("ftpSource1.txt", "ftpSource2.txt"))));
+
+		File remoteDirectory = new File(remoteTemporaryFolder.getRoot(), "ftpSource");
+		Files.write(new File(remoteDirectory, "ftpSource3.txt").toPath(), "third".getBytes(StandardCharsets.UTF_8));
+		// paused: not downloaded
+		assertNull(this.messageCollector.forChannel(this.ftpSource.output()).poll(1, TimeUnit.SECONDS));
+		assertFalse(new File(this.config.getLocalDir(), "ftpSource3.txt").exists());
+
+		// the consumer owns the files in ref mode: deleting them drains the backlog
+		for (File file : this.config.getLocalDir().listFiles()) {
+			Files.delete(file.toPath());
+		}
+		assertThat(receive().getName(), equalTo("ftpSource3.txt"));
+	}
+
+	private File receive() throws InterruptedException {
+		Message<?> received = this.messageCollector.forChannel(this.ftpSource.output()).poll(10, TimeUnit.SECONDS);
+		assertNotNull(received);
+		return new File(received.getPayload().toString().replaceAll("\"", ""));
+	}
+
+	@SpringBootApplication
+	public static class FtpSourceApplication {
+
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.app.test.ftp.FtpTestSupport;
+import org.springframework.cloud.stream.messaging.Source;
+import org.springframework.cloud.stream.test.binder.MessageCollector;
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+		properties = {
+				"ftp.remoteDir = ftpSource",
+				"ftp.factory.username = foo",
+				"ftp.factory.password = foo",
+				"ftp.filenamePattern = *",
+				"ftp.listOnly = true",
+				"ftp.localDir = ${java.io.tmpdir}/ftp-source-listing"
+		})
+@DirtiesContext
+public class FtpSourceListingIntegrationTests extends FtpTestSupport {
+
+	@Autowired
+	MessageCollector messageCollector;
+
+	@Autowired
+	FtpSourceProperties config;
+
+	@Autowired
+	Source ftpSource;
+
+	@Test
+	public void sourceDescriptors() throws InterruptedException {
+		Set<Object> fileNames = new HashSet<>();
+		for (int i = 1; i <= 2; i++) {
+			Message<?> received = this.messageCollector.forChannel(this.ftpSource.output()).poll(10, TimeUnit.SECONDS);
+			assertNotNull(received);
+			Object fileName = received.getHeaders().get(FileHeaders.FILENAME);
+			fileNames.add(fileName);
+			String payload = received.getPayload().toString();
+			assertThat(payload, containsString("\"path\":\"ftpSource/" + fileName + "\""));
+			assertThat(payload, containsString("\"host\":\"localhost\""));
+		}
+		assertThat(fileNames, equalTo(new HashSet<>(Arrays.asList("ftpSource1.txt", "ftpSource2.txt"))));
+		assertFalse(new File(this.config.getLocalDir(), "ftpSource1.txt").exists());
+	}
+
+	@SpringBootApplication
+	public static class FtpSourceApplication {
+
+	}
+
+}
@@ -17,9 +17,11 @@ package org.springframework.cloud.stream.app.ftp.source;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.time.Duration;
 
 import org.junit.Test;
 
@@ -27,6 +29,7 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.boot.test.util.TestPropertyValues;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 
 /**
  * @author David Turanski
@@ -132,6 +135,82 @@ public class FtpSourcePropertiesTests {
 		context.close();
 	}
 
+	@Test
+	public void decompressCanBeEnabled() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		TestPropertyValues.of("ftp.decompress:true")
+				.applyTo(context);
+		context.register(Conf.class);
+		context.refresh();
+		FtpSourceProperties properties = context.getBean(FtpSourceProperties.class);
+		assertTrue(properties.isDecompress());
+		context.close();
+	}
+
+	@Test
+	public void dedupeCanBeCustomized() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		TestPropertyValues.of("ftp.dedupe.enabled:true", "ftp.dedupe.serverHash:false", "ftp.dedupe.algorithm:MD5")
+				.applyTo(context);
+		context.register(Conf.class);
+		context.refresh();
+		FtpSourceProperties properties = context.getBean(FtpSourceProperties.class);
+		assertTrue(properties.getDedupe().isEnabled());
+		assertFalse(properties.getDedupe().isServerHash());
+		assertThat(properties.getDedupe().getAlgorithm(), equalTo("MD5"));
+		context.close();
+	}
+
+	@Test
+	public void reactiveCanBeCustomized() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		TestPropertyValues.of("ftp.reactive.enabled:true", "ftp.reactive.prefetch:16", "ftp.reactive.idleDelay:5s")
+				.applyTo(context);
+		context.register(Conf.class);
+		context.refresh();
+		FtpSourceProperties properties = context.getBean(FtpSourceProperties.class);
+		assertTrue(properties.getReactive().isEnabled());
+		assertThat(properties.getReactive().getPrefetch(), equalTo(16));
+		assertThat(properties.getReactive().getIdleDelay(), equalTo(Duration.ofSeconds(5)));
+		context.close();
+	}
+
+	@Test
+	public void backlogCanBeCustomized() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		TestPropertyValues.of("ftp.backlog.enabled:true", "ftp.backlog.highWaterFiles:10",
+				"ftp.backlog.lowWaterFiles:5", "ftp.backlog.highWaterSize:10MB", "ftp.backlog.lowWaterSize:1MB",
+				"ftp.backlog.deleteEmitted:false")
+				.applyTo(context);
+		context.register(Conf.class);
+		context.refresh();
+		FtpSourceProperties properties = context.getBean(FtpSourceProperties.class);
+		assertTrue(properties.getBacklog().isEnabled());
+		assertThat(properties.getBacklog().getHighWaterFiles(), equalTo(10));
+		assertThat(properties.getBacklog().getLowWaterFiles(), equalTo(5));
+		assertThat(properties.getBacklog().getHighWaterSize(), equalTo(DataSize.ofMegabytes(10)));
+		assertThat(properties.getBacklog().getLowWaterSize(), equalTo(DataSize.ofMegabytes(1)));
+		assertFalse(properties.getBacklog().isDeleteEmitted());
+		context.close();
+	}
+
+	@Test
+	public void cleanupCanBeCustomized() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		TestPropertyValues.of("ftp.cleanup.async:true", "ftp.cleanup.archiveDir:/archive",
+				"ftp.cleanup.batchSize:10", "ftp.cleanup.interval:5s", "ftp.cleanup.maxAttempts:2")
+				.applyTo(context);
+		context.register(Conf.class);
+		context.refresh();
+		FtpSourceProperties properties = context.getBean(FtpSourceProperties.class);
+		assertTrue(properties.getCleanup().isAsync());
+		assertThat(properties.getCleanup().getArchiveDir(), equalTo("/archive"));
+		assertThat(properties.getCleanup().getBatchSize(), equalTo(10));
+		assertThat(properties.getCleanup().getInterval(), equalTo(Duration.ofSeconds(5)));
+		assertThat(properties.getCleanup().getMaxAttempts(), equalTo(2));
+		context.close();
+	}
+
 	@Configuration
 	@EnableConfigurationProperties(FtpSourceProperties.class)
 	static class Conf {
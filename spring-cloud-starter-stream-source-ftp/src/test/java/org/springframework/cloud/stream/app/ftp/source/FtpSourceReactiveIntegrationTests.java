@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.app.test.ftp.FtpTestSupport;
+import org.springframework.cloud.stream.messaging.Source;
+import org.springframework.cloud.stream.test.binder.MessageCollector;
+import org.springframework.context.annotation.Bean;
+import org.springframework.integration.config.GlobalChannelInterceptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+		properties = {
+				"ftp.remoteDir = ftpSource",
+				"ftp.factory.username = foo",
+				"ftp.factory.password = foo",
+				"ftp.filenamePattern = *",
+				"file.consumer.mode = ref",
+				"ftp.reactive.enabled = true",
+				"ftp.reactive.prefetch = 1",
+				"ftp.reactive.idleDelay = 100ms"
+		})
+@DirtiesContext
+public class FtpSourceReactiveIntegrationTests extends FtpTestSupport {
+
+	@Autowired
+	ReactiveFtpMessageProducer messageProducer;
+
+	@Autowired
+	MessageCollector messageCollector;
+
+	@Autowired
+	FtpSourceProperties config;
+
+	@Autowired
+	Source ftpSource;
+
+	@Test
+	public void demandBoundsTheFetchesAndFailedSendsAreRetried() throws Exception {
+		File remoteDirectory = new File(remoteTemporaryFolder.getRoot(), "ftpSource");
+		Set<String> expected = new HashSet<>(Arrays.asList("ftpSource1.txt", "ftpSource2.txt"));
+		for (int i = 1; i <= 10; i++) {
+			String name = String.format("more-%02d.txt", i);
+			Files.write(new File(remoteDirectory, name).toPath(), name.getBytes(StandardCharsets.UTF_8));
+			expected.add(name);
+		}
+		assertTrue(OutputGate.blocked.await(10, TimeUnit.SECONDS));
+		Thread.sleep(1000);
+
+		// one file being sent and the prefetched ones; the others are not even downloaded
+		assertThat(this.config.getLocalDir().list().length,
+				lessThanOrEqualTo(this.config.getReactive().getPrefetch() + 2));
+
+		OutputGate.failures.set(2);
+		OutputGate.release.countDown();
+		Set<String> received = new HashSet<>();
+		while (!received.containsAll(expected)) {
+			Message<?> message = this.messageCollector.forChannel(this.ftpSource.output()).poll(10, TimeUnit.SECONDS);
+			assertNotNull("Received only " + received, message);
+			received.add(new File(message.getPayload().toString().replaceAll("\"", "")).getName());
+		}
+		assertThat(OutputGate.failures.get(), lessThanOrEqualTo(0));
+		this.messageProducer.stop();
+	}
+
+	@SpringBootApplication
+	public static class FtpSourceApplication {
+
+		@Bean
+		@GlobalChannelInterceptor(patterns = Source.OUTPUT)
+		public ChannelInterceptor outputGate() {
+			return new OutputGate();
+		}
+
+	}
+
+	/**
+	 * Holds the sends to the output until released, like a stalled binder, then fails the
+	 * requested number of them.
+	 */
+	static class OutputGate implements ChannelInterceptor {
+
+		static final CountDownLatch blocked = new CountDownLatch(1);
+
+		static final CountDownLatch release = new CountDownLatch(1);
+
+		static final AtomicInteger failures = new AtomicInteger();
+
+		@Override
+		public Message<?> preSend(Message<?> message, MessageChannel channel) {
+			blocked.countDown();
+			try {
+				release.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (failures.getAndDecrement() > 0) {
+				throw new MessageDeliveryException(message, "Simulated binder failure");
+			}
+			return message;
+		}
+
+	}
+
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.stream.app.test.ftp.CountingMetadataStore;
+import org.springframework.cloud.stream.app.test.ftp.EmbeddedFtpServer;
+import org.springframework.cloud.stream.app.test.ftp.LargeRemoteDirectory;
+import org.springframework.cloud.stream.app.test.ftp.ScalingCheck;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.integration.core.MessageSource;
+import org.springframework.integration.endpoint.SourcePollingChannelAdapter;
+import org.springframework.integration.test.util.TestUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Polls remote directories of 10k, 100k and 1M entries with the message source built by
+ * {@link FtpSourceConfiguration}, its synchronizer and its filter chain, and fails when
+ * the poll latency, the allocations or the metadata store operations per entry grow
+ * super-linearly; the heap retained by the application is logged only, the full
+ * collections being too coarse for a threshold. Only run with
+ * {@code -Dftp.scale.tests=true}, which the {@code scale-tests} profile sets;
+ * {@code ftp.scale.sizes}, {@code ftp.scale.tolerance} and {@code ftp.scale.dir} tune the
+ * sizes, the accepted growth and where the directories are generated and kept between
+ * runs, and {@code ftp.scale.properties} adds comma-separated properties of the source,
+ * such as {@code ftp.dedupe.enabled=true}, to measure other filter chains.
+ */
+public class FtpSourceScaleTests {
+
+	private static final Log logger = LogFactory.getLog(FtpSourceScaleTests.class);
+
+	private static final int REPEATS = 3;
+
+	@ClassRule
+	public static final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private static EmbeddedFtpServer server;
+
+	private static File homeDirectory;
+
+	@BeforeClass
+	public static void startServer() throws Exception {
+		assumeTrue("The scale tests run with -Dftp.scale.tests=true", Boolean.getBoolean("ftp.scale.tests"));
+		String directory = System.getProperty("ftp.scale.dir");
+		homeDirectory = directory != null ? new File(directory) : temporaryFolder.newFolder("remote");
+		homeDirectory.mkdirs();
+		server = EmbeddedFtpServer.start(homeDirectory);
+	}
+
+	@AfterClass
+	public static void stopServer() {
+		if (server != null) {
+			server.close();
+		}
+	}
+
+	@Test
+	public void pollCostScalesLinearly() throws Exception {
+		int[] sizes = Arrays.stream(System.getProperty("ftp.scale.sizes", "10000,100000,1000000").split(","))
+				.map(String::trim)
+				.mapToInt(Integer::parseInt)
+				.sorted()
+				.toArray();
+		double tolerance = Double.parseDouble(System.getProperty("ftp.scale.tolerance", "2.5"));
+		ScalingCheck firstPollLatency = new ScalingCheck("First poll latency (ns)", tolerance);
+		ScalingCheck pollLatency = new ScalingCheck("Poll latency (ns)", tolerance);
+		ScalingCheck pollAllocations = new ScalingCheck("Poll allocations (bytes)", tolerance);
+		ScalingCheck metadataOperations = new ScalingCheck("Metadata store operations per poll", 1);
+
+		// warm up the application, the listing and the filters
+		measure(sizes[0]);
+		for (int size : sizes) {
+			Measurement measurement = measure(size);
+			logger.info(String.format("%,d entries: first poll %,d ms, poll %,d ms, %,d bytes allocated per poll, "
+							+ "%,d bytes retained, %,d metadata store operations per poll",
+					size, measurement.firstPollNanos / 1_000_000, measurement.pollNanos / 1_000_000,
+					measurement.pollAllocations, measurement.retainedHeap, measurement.metadataOperations));
+			firstPollLatency.record(size, measurement.firstPollNanos);
+			pollLatency.record(size, measurement.pollNanos);
+			if (measurement.pollAllocations >= 0) {
+				pollAllocations.record(size, measurement.pollAllocations);
+			}
+			metadataOperations.record(size, measurement.metadataOperations);
+		}
+		firstPollLatency.assertNotSuperLinear();
+		pollLatency.assertNotSuperLinear();
+		pollAllocations.assertNotSuperLinear();
+		metadataOperations.assertNotSuperLinear();
+	}
+
+	/**
+	 * Emit all the files of the directory with a fresh application, then poll it again,
+	 * when the accept-once filter rejects all of them, which is the cost of every poll of
+	 * an idle source in production. The poller of the application is delayed, so that the
+	 * message source is only polled by the test thread.
+	 */
+	private Measurement measure(int size) throws Exception {
+		// the files are downloaded by the synchronizer: keep them small
+		String remoteDir = "scale-sync-" + size;
+		LargeRemoteDirectory.generate(new File(homeDirectory, remoteDir), size, 1024);
+		Measurement measurement = new Measurement();
+		long heapBefore = usedHeapAfterGc();
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ScaleTestApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(arguments(remoteDir))) {
+
+			CountingMetadataStore metadataStore = context.getBean(CountingMetadataStore.class);
+			MessageSource<?> source = TestUtils.getPropertyValue(context.getBean(SourcePollingChannelAdapter.class),
+					"source", MessageSource.class);
+
+			long start = System.nanoTime();
+			int received = source.receive() != null ? 1 : 0;
+			measurement.firstPollNanos = System.nanoTime() - start;
+			while (source.receive() != null) {
+				received++;
+			}
+			assertEquals(size, received);
+
+			measurement.pollNanos = Long.MAX_VALUE;
+			measurement.pollAllocations = Long.MAX_VALUE;
+			for (int i = 0; i < REPEATS; i++) {
+				long operations = metadataStore.getOperations();
+				long allocated = allocatedBytes();
+				start = System.nanoTime();
+				assertNull(source.receive());
+				measurement.pollNanos = Math.min(measurement.pollNanos, System.nanoTime() - start);
+				measurement.pollAllocations = allocated < 0 ? -1
+						: Math.min(measurement.pollAllocations, allocatedBytes() - allocated);
+				measurement.metadataOperations = metadataStore.getOperations() - operations;
+			}
+			measurement.retainedHeap = usedHeapAfterGc() - heapBefore;
+		}
+		return measurement;
+	}
+
+	private static String[] arguments(String remoteDir) throws Exception {
+		List<String> arguments = new ArrayList<>(Arrays.asList(
+				"--ftp.factory.host=localhost",
+				"--ftp.factory.port=" + server.getPort(),
+				"--ftp.factory.username=foo",
+				"--ftp.factory.password=foo",
+				"--ftp.factory.clientMode=PASSIVE",
+				"--ftp.remoteDir=" + remoteDir,
+				"--ftp.localDir=" + temporaryFolder.newFolder().getAbsolutePath(),
+				"--ftp.filenamePattern=*",
+				"--file.consumer.mode=ref",
+				"--trigger.initialDelay=3600"));
+		for (String property : StringUtils.commaDelimitedListToStringArray(
+				System.getProperty("ftp.scale.properties", ""))) {
+			arguments.add("--" + property.trim());
+		}
+		return arguments.toArray(new String[0]);
+	}
+
+	private static long allocatedBytes() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threadMXBean)
+					.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	private static long usedHeapAfterGc() {
+		MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+		for (int i = 0; i < 3; i++) {
+			memoryMXBean.gc();
+		}
+		return memoryMXBean.getHeapMemoryUsage().getUsed();
+	}
+
+	private static final class Measurement {
+
+		private long firstPollNanos;
+
+		private long pollNanos;
+
+		private long pollAllocations;
+
+		private long retainedHeap;
+
+		private long metadataOperations;
+
+	}
+
+	@Configuration
+	@EnableAutoConfiguration
+	@Import(FtpSourceConfiguration.class)
+	static class ScaleTestApplication {
+
+		@Bean
+		@Primary
+		public CountingMetadataStore countingMetadataStore() {
+			return new CountingMetadataStore();
+		}
+
+	}
+
+}
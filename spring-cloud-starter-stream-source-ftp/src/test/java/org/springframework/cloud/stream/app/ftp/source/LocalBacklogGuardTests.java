@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.integration.core.MessageSource;
+import org.springframework.integration.support.management.MessageSourceManagement;
+import org.springframework.messaging.Message;
+import org.springframework.util.unit.DataSize;
+
+public class LocalBacklogGuardTests {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void pausesAboveHighWaterAndResumesBelowLowWater() throws Exception {
+		File localDir = this.temporaryFolder.newFolder("local");
+		FtpSourceProperties.Backlog backlog = new FtpSourceProperties.Backlog();
+		backlog.setHighWaterFiles(3);
+		backlog.setLowWaterFiles(1);
+		MeterRegistry meterRegistry = new SimpleMeterRegistry();
+		LocalBacklogGuard guard = new LocalBacklogGuard(Collections.singletonList(localDir), backlog, meterRegistry);
+
+		File first = file(localDir, "first", 1);
+		File second = file(localDir, "second", 1);
+		assertTrue(guard.beforeReceive(null));
+		File third = file(localDir, "third", 1);
+		assertFalse(guard.beforeReceive(null));
+		assertThat(meterRegistry.get("ftp.source.backlog.paused").gauge().value(), equalTo(1.0));
+		assertThat(meterRegistry.get("ftp.source.backlog.files").gauge().value(), equalTo(3.0));
+
+		Files.delete(third.toPath());
+		assertFalse(guard.beforeReceive(null));
+		Files.delete(second.toPath());
+		assertTrue(guard.beforeReceive(null));
+		assertThat(meterRegistry.get("ftp.source.backlog.paused").gauge().value(), equalTo(0.0));
+		assertThat(meterRegistry.get("ftp.source.backlog.pauses").counter().count(), equalTo(1.0));
+		assertTrue(first.exists());
+	}
+
+	@Test
+	public void pausesAboveHighWaterSize() throws Exception {
+		File localDir = this.temporaryFolder.newFolder("local");
+		FtpSourceProperties.Backlog backlog = new FtpSourceProperties.Backlog();
+		backlog.setHighWaterSize(DataSize.ofBytes(100));
+		backlog.setLowWaterSize(DataSize.ofBytes(50));
+		MeterRegistry meterRegistry = new SimpleMeterRegistry();
+		LocalBacklogGuard guard = new LocalBacklogGuard(Collections.singletonList(localDir), backlog, meterRegistry);
+
+		file(new File(localDir, "nested"), "big", 100);
+		assertFalse(guard.beforeReceive(null));
+		assertThat(meterRegistry.get("ftp.source.backlog.bytes").gauge().value(), equalTo(100.0));
+	}
+
+	@Test
+	public void pausingOnlyStopsTheDownloads() throws Exception {
+		File localDir = this.temporaryFolder.newFolder("local");
+		FtpSourceProperties.Backlog backlog = new FtpSourceProperties.Backlog();
+		backlog.setHighWaterFiles(1);
+		backlog.setLowWaterFiles(0);
+		LocalBacklogGuard guard = new LocalBacklogGuard(Collections.singletonList(localDir), backlog,
+				new SimpleMeterRegistry());
+		FetchLimitedSource source = new FetchLimitedSource();
+		source.setMaxFetchSize(10);
+
+		File pending = file(localDir, "pending", 1);
+		assertTrue(guard.beforeReceive(source));
+		assertTrue(guard.isPaused());
+		assertThat(source.getMaxFetchSize(), equalTo(0));
+
+		Files.delete(pending.toPath());
+		assertTrue(guard.beforeReceive(source));
+		assertFalse(guard.isPaused());
+		assertThat(source.getMaxFetchSize(), equalTo(10));
+	}
+
+	private static File file(File directory, String name, int size) throws Exception {
+		Files.createDirectories(directory.toPath());
+		File file = new File(directory, name);
+		Files.write(file.toPath(), new byte[size]);
+		return file;
+	}
+
+	private static class FetchLimitedSource implements MessageSource<Object>, MessageSourceManagement {
+
+		private volatile int maxFetchSize = Integer.MIN_VALUE;
+
+		@Override
+		public Message<Object> receive() {
+			return null;
+		}
+
+		@Override
+		public void setMaxFetchSize(int maxFetchSize) {
+			this.maxFetchSize = maxFetchSize;
+		}
+
+		@Override
+		public int getMaxFetchSize() {
+			return this.maxFetchSize;
+		}
+
+	}
+
+}
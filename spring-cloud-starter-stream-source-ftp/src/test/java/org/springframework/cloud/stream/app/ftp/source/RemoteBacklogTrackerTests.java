@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.Calendar;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.Test;
+
+import org.springframework.integration.support.MessageBuilder;
+
+public class RemoteBacklogTrackerTests {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final RemoteBacklogTracker tracker = new RemoteBacklogTracker("/in", this.meterRegistry);
+
+	@Test
+	public void acceptedFilesArePendingUntilEmitted() throws Throwable {
+		FTPFile old = ftpFile("old.txt", 100, System.currentTimeMillis() - 60_000);
+		FTPFile recent = ftpFile("recent.txt", 50, System.currentTimeMillis());
+		this.tracker.acceptedFilter().filterFiles(new FTPFile[] { old, recent });
+		this.tracker.acceptedFilter().filterFiles(new FTPFile[] { recent });
+
+		assertThat(gauge("ftp.source.remote.backlog.files"), equalTo(2.0));
+		assertThat(gauge("ftp.source.remote.backlog.bytes"), equalTo(150.0));
+		assertTrue(gauge("ftp.source.remote.lag") >= 60);
+
+		MethodInvocation poll = mock(MethodInvocation.class);
+		when(poll.proceed()).thenReturn(MessageBuilder.withPayload(new File("/tmp/local/old.txt")).build());
+		this.tracker.invoke(poll);
+
+		assertThat(gauge("ftp.source.remote.backlog.files"), equalTo(1.0));
+		assertThat(gauge("ftp.source.remote.backlog.bytes"), equalTo(50.0));
+		assertTrue(gauge("ftp.source.remote.lag") < 60);
+
+		this.tracker.emitted("recent.txt");
+		assertThat(gauge("ftp.source.remote.lag"), equalTo(0.0));
+	}
+
+	@Test
+	public void filesNoLongerListedAreForgotten() {
+		FTPFile first = ftpFile("first.txt", 10, System.currentTimeMillis());
+		FTPFile second = ftpFile("second.txt", 10, System.currentTimeMillis());
+		this.tracker.acceptedFilter().filterFiles(new FTPFile[] { first, second });
+		this.tracker.listingFilter().filterFiles(new FTPFile[] { second });
+
+		assertThat(this.tracker.getFiles(), equalTo(1));
+		assertThat(this.tracker.getBytes(), equalTo(10L));
+	}
+
+	private double gauge(String name) {
+		return this.meterRegistry.get(name).tag("remoteDir", "/in").gauge().value();
+	}
+
+	private static FTPFile ftpFile(String name, long size, long timestamp) {
+		FTPFile file = new FTPFile();
+		file.setName(name);
+		file.setSize(size);
+		file.setType(FTPFile.FILE_TYPE);
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTimeInMillis(timestamp);
+		file.setTimestamp(calendar);
+		return file;
+	}
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2019 the original author or authors.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.ftp.source;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+
+public class RemoteFileCleanerTests {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final FtpSourceProperties properties = new FtpSourceProperties();
+
+	private Session<FTPFile> session;
+
+	private SessionFactory<FTPFile> sessionFactory;
+
+	private RemoteFileCleaner cleaner;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		this.session = mock(Session.class);
+		this.sessionFactory = mock(SessionFactory.class);
+		when(this.sessionFactory.getSession()).thenReturn(this.session);
+		this.properties.setRemoteDir("/in");
+		this.properties.setDeleteRemoteFiles(true);
+		this.properties.getCleanup().setAsync(true);
+		this.properties.getCleanup().setInterval(Duration.ofHours(1));
+		this.properties.getCleanup().setMaxAttempts(2);
+	}
+
+	@After
+	public void tearDown() throws InterruptedException {
+		if (this.cleaner != null) {
+			this.cleaner.destroy();
+		}
+	}
+
+	@Test
+	public void deletesAreBatchedOnOneSession() throws IOException {
+		when(this.session.remove(anyString())).thenReturn(true);
+		this.cleaner = new RemoteFileCleaner(this.sessionFactory, this.properties, this.meterRegistry);
+		this.cleaner.emitted("first.txt");
+		this.cleaner.emitted("second.txt");
+		assertThat(this.cleaner.getPendingCount(), equalTo(2));
+
+		this.cleaner.flush();
+
+		verify(this.sessionFactory, times(1)).getSession();
+		verify(this.session).remove("/in/first.txt");
+		verify(this.session).remove("/in/second.txt");
+		assertThat(this.cleaner.getPendingCount(), equalTo(0));
+		assertThat(this.meterRegistry.get("ftp.source.cleanup.completed").tag("action", "delete").counter().count(),
+				equalTo(2.0));
+	}
+
+	@Test
+	public void eachRunDrainsTheQueueInBatches() throws IOException {
+		this.properties.getCleanup().setBatchSize(2);
+		when(this.session.remove(anyString())).thenReturn(true);
+		this.cleaner = new RemoteFileCleaner(this.sessionFactory, this.properties, this.meterRegistry);
+		for (int i = 0; i < 5; i++) {
+			this.cleaner.emitted("file" + i + ".txt");
+		}
+
+		this.cleaner.flush();
+
+		verify(this.sessionFactory, times(3)).getSession();
+		verify(this.session, times(5)).remove(anyString());
+		assertThat(this.cleaner.getPendingCount(), equalTo(0));
+	}
+
+	@Test
+	public void runStopsWhenNoSessionCanBeOpened() {
+		this.properties.getCleanup().setBatchSize(2);
+		when(this.sessionFactory.getSession()).thenThrow(new IllegalStateException("Connection refused"));
+		this.cleaner = new RemoteFileCleaner(this.sessionFactory, this.properties, this.meterRegistry);
+		for (int i = 0; i < 5; i++) {
+			this.cleaner.emitted("file" + i + ".txt");
+		}
+
+		this.cleaner.flush();
+
+		verify(this.sessionFactory, times(1)).getSession();
+		assertThat(this.cleaner.getPendingCount(), equalTo(5));
+	}
+
+	@Test
+	public void connectionFailuresDoNotCountAsAttempts() {
+		when(this.sessionFactory.getSession()).thenThrow(new IllegalStateException("Connection refused"));
+		this.cleaner = new RemoteFileCleaner(this.sessionFactory, this.properties, this.meterRegistry);
+		this.cleaner.emitted("first.txt");
+		this.cleaner.emitted("second.txt");
+
+		for (int i = 0; i < 5; i++) {
+			this.cleaner.flush();
+		}
+
+		assertThat(this.cleaner.getPendingCount(), equalTo(2));
+		assertThat(this.meterRegistry.get("ftp.source.cleanup.connection.failures").counter().count(),
+				equalTo(5.0));
+		assertThat(this.meterRegistry.get("ftp.source.cleanup.failures").counter().count(), equalTo(0.0));
+		assertThat(this.meterRegistry.get("ftp.source.cleanup.abandoned").counter().count(), equalTo(0.0));
+	}
+
+	@Test
+	public void filesLeftByABrokenSessionDoNotCountAnAttempt() throws IOException {
+		this.properties.getCleanup().setMaxAttempts(1);
+		when(this.session.remove("/in/first.txt")).thenThrow(new IOException("Connection reset"));
+		when(this.session.isOpen()).thenReturn(false);
+		this.cleaner = new RemoteFileCleaner(this.sessionFactory, this.properties, this.meterRegistry);
+		this.cleaner.emitted("first.txt");
+		this.cleaner.emitted("second.txt");
+
+		this.cleaner.flush();
+
+		verify(this.session, times(0)).remove("/in/second.txt");
+		assertThat(this.cleaner.getPendingCount(), equalTo(2));
+		assertThat(this.meterRegistry.get("ftp.source.cleanup.connection.failures").counter().count(),
+				equalTo(1.0));
+		assertThat(this.meterRegistry.get("ftp.source.cleanup.abandoned").counter().count(), equalTo(0.0));
+	}
+
+	@Test
+	public void shutdownDrainsTheQueue() throws Exception {
+		this.properties.getCleanup().setBatchSize(2);
+		when(this.session.remove(anyString())).thenReturn(true);
+		this.cleaner = new RemoteFileCleaner(this.sessionFactory, this.properties, this.meterRegistry);
+		for (int i = 0; i < 5; i++) {
+			this.cleaner.emitted("file" + i + ".txt");
+		}
+
+		this.cleaner.destroy();
+
+		verify(this.session, times(5)).remove(anyString());
+		assertThat(this.cleaner.getPendingCount(), equalTo(0));
+	}
+
+	@Test
+	public void failedDeletesAreRetriedThenAbandoned() throws IOException {
+		when(this.session.remove("/in/gone.txt")).thenThrow(new IOException("550 No such file"));
+		when(this.session.isOpen()).thenReturn(true);
+		this.cleaner = new RemoteFileCleaner(this.sessionFactory, this.properties, this.meterRegistry);
+		this.cleaner.emitted("gone.txt");
+
+		this.cleaner.flush();
+		assertThat(this.cleaner.getPendingCount(), equalTo(1));
+		this.cleaner.flush();
+		assertThat(this.cleaner.getPendingCount(), equalTo(0));
+
+		assertThat(this.meterRegistry.get("ftp.source.cleanup.failures").counter().count(), equalTo(2.0));
+		assertThat(this.meterRegistry.get("ftp.source.cleanup.abandoned").counter().count(), equalTo(1.0));
+	}
+
+	@Test
+	public void filesAreMovedToTheArchiveDirectory() throws IOException {
+		this.properties.getCleanup().setArchiveDir("/archive");
+		when(this.session.exists("/archive")).thenReturn(true);
+		this.cleaner = new RemoteFileCleaner(this.sessionFactory, this.properties, this.meterRegistry);
+		this.cleaner.emitted("data.csv");
+
+		this.cleaner.flush();
+
+		verify(this.session).rename("/in/data.csv", "/archive/data.csv");
+		assertThat(this.meterRegistry.get("ftp.source.cleanup.completed").tag("action", "archive").counter().count(),
+				equalTo(1.0));
+	}
+
+	@Test
+	public void synchronousDeletesAreNotQueued() {
+		this.properties.getCleanup().setAsync(false);
+		this.cleaner = new RemoteFileCleaner(this.sessionFactory, this.properties, this.meterRegistry);
+		assertFalse(this.cleaner.isEnabled());
+		this.cleaner.emitted("first.txt");
+		assertThat(this.cleaner.getPendingCount(), equalTo(0));
+	}
+
+}